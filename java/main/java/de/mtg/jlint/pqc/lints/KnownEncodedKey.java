@@ -7,9 +7,8 @@ import java.security.cert.CertificateEncodingException;
 import java.security.cert.X509Certificate;
 import java.security.spec.InvalidKeySpecException;
 
-import org.bouncycastle.util.encoders.Base64;
-
 import de.mtg.jlint.pqc.util.KnownPublicKeys;
+import de.mtg.jlint.pqc.util.LintEvents;
 import de.mtg.jzlint.EffectiveDate;
 import de.mtg.jzlint.JavaLint;
 import de.mtg.jzlint.Lint;
@@ -28,11 +27,19 @@ public class KnownEncodedKey implements JavaLint {
 
     @Override
     public LintResult execute(X509Certificate certificate) {
+        return LintEvents.execute(this, certificate, KnownEncodedKey::lint);
+    }
+
+    @Override
+    public boolean checkApplies(X509Certificate certificate) {
+        return LintEvents.checkApplies(this, certificate, ignored -> true);
+    }
+
+    private static LintResult lint(X509Certificate certificate) {
         KnownPublicKeys knownPublicKeys;
         try {
             knownPublicKeys = KnownPublicKeys.getInstance();
-            String encodedKey = Base64.toBase64String(ASN1CertificateUtils.getPublicKey(certificate).getEncoded());
-            if (knownPublicKeys.contains(encodedKey)) {
+            if (knownPublicKeys.contains(ASN1CertificateUtils.getPublicKey(certificate).getEncoded())) {
                 return LintResult.of(Status.ERROR);
             }
             return LintResult.of(Status.PASS);
@@ -42,9 +49,4 @@ public class KnownEncodedKey implements JavaLint {
         }
     }
 
-    @Override
-    public boolean checkApplies(X509Certificate certificate) {
-        return true;
-    }
-
 }
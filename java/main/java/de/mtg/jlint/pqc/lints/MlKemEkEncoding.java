@@ -2,7 +2,11 @@ package de.mtg.jlint.pqc.lints;
 
 import java.security.cert.X509Certificate;
 
+import org.bouncycastle.asn1.x509.SubjectPublicKeyInfo;
+
 import de.mtg.jlint.pqc.util.ExternalLintUtils;
+import de.mtg.jlint.pqc.util.LintEvents;
+import de.mtg.jlint.pqc.util.MlKemPublicKeyValidator;
 import de.mtg.jlint.pqc.util.PQCUtils;
 import de.mtg.jzlint.EffectiveDate;
 import de.mtg.jzlint.JavaLint;
@@ -21,12 +25,22 @@ public class MlKemEkEncoding implements JavaLint {
 
     @Override
     public LintResult execute(X509Certificate certificate) {
-        return ExternalLintUtils.getLintResult("e_ml_kem_ek_encoding", certificate, LintResult.of(Status.ERROR));
+        return LintEvents.execute(this, certificate, ExternalLintUtils.route(this, MlKemEkEncoding::lint));
     }
 
     @Override
     public boolean checkApplies(X509Certificate certificate) {
-        return PQCUtils.isPublicKeyMLKEM(certificate);
+        return LintEvents.checkApplies(this, certificate, PQCUtils::isPublicKeyMLKEM);
+    }
+
+    private static LintResult lint(X509Certificate certificate) {
+        SubjectPublicKeyInfo subjectPublicKeyInfo = SubjectPublicKeyInfo.getInstance(certificate.getPublicKey().getEncoded());
+        int rank = MlKemPublicKeyValidator.getRank(subjectPublicKeyInfo.getAlgorithm().getAlgorithm());
+        byte[] publicKey = subjectPublicKeyInfo.getPublicKeyData().getBytes();
+        if (MlKemPublicKeyValidator.isValid(rank, publicKey)) {
+            return LintResult.of(Status.PASS);
+        }
+        return LintResult.of(Status.ERROR);
     }
 
 }
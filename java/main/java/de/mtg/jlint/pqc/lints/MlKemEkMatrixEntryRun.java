@@ -2,7 +2,12 @@ package de.mtg.jlint.pqc.lints;
 
 import java.security.cert.X509Certificate;
 
+import org.bouncycastle.asn1.x509.SubjectPublicKeyInfo;
+
 import de.mtg.jlint.pqc.util.ExternalLintUtils;
+import de.mtg.jlint.pqc.util.LintEvents;
+import de.mtg.jlint.pqc.util.MlKemMatrixStatistics;
+import de.mtg.jlint.pqc.util.MlKemPublicKeyValidator;
 import de.mtg.jlint.pqc.util.PQCUtils;
 import de.mtg.jzlint.EffectiveDate;
 import de.mtg.jzlint.JavaLint;
@@ -21,12 +26,25 @@ public class MlKemEkMatrixEntryRun implements JavaLint {
 
     @Override
     public LintResult execute(X509Certificate certificate) {
-        return ExternalLintUtils.getLintResult("e_ml_kem_ek_matrix_entry_run", certificate, LintResult.of(Status.ERROR));
+        return LintEvents.execute(this, certificate, ExternalLintUtils.route(this, MlKemEkMatrixEntryRun::lint));
     }
 
     @Override
     public boolean checkApplies(X509Certificate certificate) {
-        return PQCUtils.isPublicKeyMLKEM(certificate);
+        return LintEvents.checkApplies(this, certificate, PQCUtils::isPublicKeyMLKEM);
+    }
+
+    private static LintResult lint(X509Certificate certificate) {
+        SubjectPublicKeyInfo subjectPublicKeyInfo = SubjectPublicKeyInfo.getInstance(certificate.getPublicKey().getEncoded());
+        int rank = MlKemPublicKeyValidator.getRank(subjectPublicKeyInfo.getAlgorithm().getAlgorithm());
+        byte[] publicKey = subjectPublicKeyInfo.getPublicKeyData().getBytes();
+        if (!MlKemPublicKeyValidator.isLengthValid(rank, publicKey.length)) {
+            return LintResult.of(Status.ERROR);
+        }
+        if (MlKemMatrixStatistics.of(rank, publicKey).isEntryRunValid()) {
+            return LintResult.of(Status.PASS);
+        }
+        return LintResult.of(Status.ERROR);
     }
 
 }
\ No newline at end of file
@@ -3,6 +3,8 @@ package de.mtg.jlint.pqc.lints;
 import java.security.cert.X509Certificate;
 
 import de.mtg.jlint.pqc.util.ExternalLintUtils;
+import de.mtg.jlint.pqc.util.LintEvents;
+import de.mtg.jlint.pqc.util.MlKemSeedStatistics;
 import de.mtg.jlint.pqc.util.PQCUtils;
 import de.mtg.jzlint.EffectiveDate;
 import de.mtg.jzlint.JavaLint;
@@ -21,12 +23,26 @@ public class MlKemEkSeedEntryRun implements JavaLint {
 
     @Override
     public LintResult execute(X509Certificate certificate) {
-        return ExternalLintUtils.getLintResult("e_ml_kem_ek_seed_entry_run", certificate, LintResult.of(Status.ERROR));
+        return LintEvents.execute(this, certificate, ExternalLintUtils.route(this, MlKemEkSeedEntryRun::lint));
     }
 
     @Override
     public boolean checkApplies(X509Certificate certificate) {
-        return PQCUtils.isPublicKeyMLKEM(certificate);
+        return LintEvents.checkApplies(this, certificate, PQCUtils::isPublicKeyMLKEM);
+    }
+
+    private static LintResult lint(X509Certificate certificate) {
+        MlKemSeedStatistics statistics;
+        try {
+            statistics = MlKemSeedStatistics.of(certificate);
+        } catch (IllegalArgumentException ex) {
+            return LintResult.of(Status.ERROR);
+        }
+        if (statistics.isEntryRunValid()) {
+            return LintResult.of(Status.PASS);
+        }
+        return LintResult.of(Status.ERROR, String.format("The seed contains a run of %d equal bytes, at most %d are allowed",
+                statistics.getLongestRun(), MlKemSeedStatistics.MAX_ENTRY_RUN));
     }
 
 }
@@ -6,6 +6,7 @@ import org.bouncycastle.asn1.ASN1OctetString;
 import org.bouncycastle.asn1.x509.Extension;
 import org.bouncycastle.asn1.x509.KeyUsage;
 
+import de.mtg.jlint.pqc.util.LintEvents;
 import de.mtg.jlint.pqc.util.PQCUtils;
 import de.mtg.jzlint.EffectiveDate;
 import de.mtg.jzlint.JavaLint;
@@ -25,6 +26,15 @@ public class MlKemKeyUsage implements JavaLint {
 
     @Override
     public LintResult execute(X509Certificate certificate) {
+        return LintEvents.execute(this, certificate, MlKemKeyUsage::lint);
+    }
+
+    @Override
+    public boolean checkApplies(X509Certificate certificate) {
+        return LintEvents.checkApplies(this, certificate, MlKemKeyUsage::applies);
+    }
+
+    private static LintResult lint(X509Certificate certificate) {
 
         byte[] rawKeyUsage = certificate.getExtensionValue(Extension.keyUsage.getId());
 
@@ -57,8 +67,7 @@ public class MlKemKeyUsage implements JavaLint {
         return LintResult.of(Status.PASS);
     }
 
-    @Override
-    public boolean checkApplies(X509Certificate certificate) {
+    private static boolean applies(X509Certificate certificate) {
         return PQCUtils.isPublicKeyMLKEM(certificate) && Utils.hasKeyUsageExtension(certificate);
     }
 
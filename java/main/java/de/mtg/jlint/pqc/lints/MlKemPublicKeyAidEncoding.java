@@ -10,6 +10,7 @@ import org.bouncycastle.asn1.ASN1Encoding;
 import org.bouncycastle.asn1.ASN1Sequence;
 import org.bouncycastle.util.encoders.Hex;
 
+import de.mtg.jlint.pqc.util.LintEvents;
 import de.mtg.jlint.pqc.util.PQCUtils;
 import de.mtg.jzlint.EffectiveDate;
 import de.mtg.jzlint.JavaLint;
@@ -29,6 +30,15 @@ public class MlKemPublicKeyAidEncoding implements JavaLint {
 
     @Override
     public LintResult execute(X509Certificate certificate) {
+        return LintEvents.execute(this, certificate, MlKemPublicKeyAidEncoding::lint);
+    }
+
+    @Override
+    public boolean checkApplies(X509Certificate certificate) {
+        return LintEvents.checkApplies(this, certificate, PQCUtils::isPublicKeyMLKEM);
+    }
+
+    private static LintResult lint(X509Certificate certificate) {
 
         final List<String> acceptedMLKEMPublicKeyAlgIDEncodings = Arrays.asList(
                 "300d060b2b0601040181b01a050601", //ID_ALG_KYBER_512
@@ -48,9 +58,4 @@ public class MlKemPublicKeyAidEncoding implements JavaLint {
         }
     }
 
-    @Override
-    public boolean checkApplies(X509Certificate certificate) {
-        return PQCUtils.isPublicKeyMLKEM(certificate);
-    }
-
 }
\ No newline at end of file
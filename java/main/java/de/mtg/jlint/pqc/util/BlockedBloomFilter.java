@@ -0,0 +1,82 @@
+package de.mtg.jlint.pqc.util;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+
+/**
+ * A split block Bloom filter of SHA-256 fingerprints.
+ * <p>
+ * The filter consists of blocks of eight longs, 64 bytes. The first long of a fingerprint selects the block and the
+ * second long selects one bit in each long of the block. So a lookup reads a single block, and most lookups of a
+ * fingerprint that was not added stop at the first long of it whose bit is not set. With 16 bits per fingerprint, about
+ * one in a thousand lookups of a fingerprint that was not added is a false positive.
+ * <p>
+ * A filter is thread-safe once all fingerprints are added and it is safely published.
+ */
+final class BlockedBloomFilter {
+
+    private static final int BLOCK_LONGS = 8;
+    private static final int BLOCK_BITS = BLOCK_LONGS * Long.SIZE;
+    private static final int MAX_BLOCKS = Integer.MAX_VALUE / BLOCK_LONGS;
+
+    private static final VarHandle LONG = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+
+    private final long[] blocks;
+    private final long blockCount;
+
+    /**
+     * @param fingerprints the number of fingerprints that will be added.
+     * @throws IllegalArgumentException if the filter would be too large for an array.
+     */
+    BlockedBloomFilter(long fingerprints, int bitsPerFingerprint) {
+        long count = (Math.max(1, fingerprints) * bitsPerFingerprint + BLOCK_BITS - 1) / BLOCK_BITS;
+        if (count > MAX_BLOCKS) {
+            throw new IllegalArgumentException("Too many fingerprints for a Bloom filter: %d".formatted(fingerprints));
+        }
+        this.blocks = new long[(int) count * BLOCK_LONGS];
+        this.blockCount = count;
+    }
+
+    /**
+     * Adds the fingerprint with the given first two longs.
+     */
+    void add(long first, long second) {
+        int position = getPosition(first);
+        for (int i = 0; i < BLOCK_LONGS; i++) {
+            blocks[position + i] |= getMask(second, i);
+        }
+    }
+
+    /**
+     * Returns false if the fingerprint was certainly not added, and true if it was probably added.
+     */
+    boolean mightContain(byte[] fingerprint) {
+        int position = getPosition((long) LONG.get(fingerprint, 0));
+        long second = (long) LONG.get(fingerprint, Long.BYTES);
+        for (int i = 0; i < BLOCK_LONGS; i++) {
+            long mask = getMask(second, i);
+            if ((blocks[position + i] & mask) != mask) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the size of the filter in bytes.
+     */
+    long getByteSize() {
+        return (long) blocks.length * Long.BYTES;
+    }
+
+    private int getPosition(long first) {
+        // maps the upper 32 bits uniformly to the blocks without a division
+        return (int) (((first >>> 32) * blockCount) >>> 32) * BLOCK_LONGS;
+    }
+
+    private static long getMask(long second, int i) {
+        return 1L << ((second >>> (i * 6)) & 63);
+    }
+
+}
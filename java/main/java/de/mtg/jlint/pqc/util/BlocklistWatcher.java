@@ -0,0 +1,103 @@
+package de.mtg.jlint.pqc.util;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches the blocklist files of the {@link KnownPublicKeys} and reloads them when they change.
+ * <p>
+ * The directories of the files are watched on a daemon thread, as a {@link WatchService} cannot watch single files.
+ * The changes of a burst, for example while a file is written, are collected until no change happened for
+ * {@value #SETTLE_MILLIS} milliseconds, and then the blocklists are reloaded once.
+ * <p>
+ * The files are memory-mapped, so they must be replaced atomically instead of being written in place, as
+ * {@link KnownPublicKeysCompiler} does.
+ */
+final class BlocklistWatcher implements Runnable {
+
+    static final long SETTLE_MILLIS = 500;
+
+    private final WatchService watchService;
+    private final Set<Path> files;
+    private final Runnable reload;
+
+    private BlocklistWatcher(WatchService watchService, Set<Path> files, Runnable reload) {
+        this.watchService = watchService;
+        this.files = files;
+        this.reload = reload;
+    }
+
+    /**
+     * Starts watching the files.
+     *
+     * @param files  the absolute paths of the files.
+     * @param reload called on the watching thread after a file changed.
+     * @throws IOException if a directory cannot be watched.
+     */
+    static void start(List<Path> files, Runnable reload) throws IOException {
+        WatchService watchService = FileSystems.getDefault().newWatchService();
+        try {
+            Set<Path> directories = new HashSet<>();
+            for (Path file : files) {
+                Path directory = file.getParent();
+                if (directories.add(directory)) {
+                    directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                            StandardWatchEventKinds.ENTRY_MODIFY);
+                }
+            }
+        } catch (IOException | RuntimeException ex) {
+            watchService.close();
+            throw ex;
+        }
+        Thread thread = new Thread(new BlocklistWatcher(watchService, Set.copyOf(files), reload),
+                "jlint-pqc-blocklist-watcher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public void run() {
+        try (watchService) {
+            while (true) {
+                boolean changed = isChanged(watchService.take());
+                WatchKey key;
+                while ((key = watchService.poll(SETTLE_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+                    changed |= isChanged(key);
+                }
+                if (changed) {
+                    reload.run();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException | IOException ex) {
+            // silently ignore, the blocklists are no longer reloaded
+        }
+    }
+
+    private boolean isChanged(WatchKey key) {
+        Path directory = (Path) key.watchable();
+        boolean changed = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                // events were lost, one of them may have been a change of a file
+                changed = true;
+            } else if (files.contains(directory.resolve((Path) event.context()))) {
+                changed = true;
+            }
+        }
+        key.reset();
+        return changed;
+    }
+
+}
@@ -0,0 +1,130 @@
+package de.mtg.jlint.pqc.util;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Evaluates lints with the external Rust implementation, either on a pool of long-lived workers or by starting one
+ * process per request that exchanges JSON files in the temporary directory.
+ */
+final class CliLintEngine implements LintEngine {
+
+    private static final long VERSION_CHECK_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private static final String TRANSPORT = "process";
+
+    private final String executablePath;
+    private final String tmpDirectory;
+    private final boolean deleteFiles;
+    private final long timeoutMillis;
+    private final LintWorkerPool workerPool;
+    private String version;
+    private long versionCheckedAt;
+
+    /**
+     * @param timeoutMillis the deadline of one request, or 0 if requests have no deadline.
+     * @param workerPool the pool of workers, or null to start one process per request.
+     */
+    CliLintEngine(String executablePath, String tmpDirectory, boolean deleteFiles, long timeoutMillis, LintWorkerPool workerPool) {
+        this.executablePath = executablePath;
+        this.tmpDirectory = tmpDirectory;
+        this.deleteFiles = deleteFiles;
+        this.timeoutMillis = timeoutMillis;
+        this.workerPool = workerPool;
+    }
+
+    @Override
+    public Map<String, String> evaluate(List<String> lintNames, String id, int rank, byte[] publicKey) throws IOException {
+
+        ExternalLintRequest externalLintRequest = new ExternalLintRequest(lintNames, id, rank, publicKey);
+
+        if (workerPool != null) {
+            return workerPool.execute(externalLintRequest).getResults();
+        }
+
+        // other processes may lint the same key in the same directory at the same time
+        String lintName = lintNames.get(0);
+        String requestId = UUID.randomUUID().toString();
+        Path tmpReq = Paths.get(tmpDirectory, "%s_%s_%s.req.json".formatted(lintName, id, requestId));
+        Path tmpResp = Paths.get(tmpDirectory, "%s_%s_%s.resp.json".formatted(lintName, id, requestId));
+
+        LintEvents.EngineEvent event = new LintEvents.EngineEvent();
+        event.begin();
+        long bytesWritten = 0;
+        long bytesRead = 0;
+        try {
+
+            long start = System.nanoTime();
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(tmpReq))) {
+                externalLintRequest.writeTo(out);
+            }
+            LintMetrics.record(LintMetrics.Phase.WRITE, start);
+            if (event.isEnabled()) {
+                bytesWritten = Files.size(tmpReq);
+            }
+
+            ExternalProcess.run(List.of(executablePath, "lint", "-f", tmpReq.toString(), "-r", tmpResp.toString()), timeoutMillis);
+
+            long received = System.nanoTime();
+            byte[] response = Files.readAllBytes(tmpResp);
+            bytesRead = response.length;
+            Map<String, String> results = ExternalLintResponse.parse(response, 0, response.length).getResults();
+            LintMetrics.record(LintMetrics.Phase.READ, received);
+            return results;
+        } catch (IOException ioException) {
+            event.error = ioException.getMessage();
+            throw ioException;
+        } finally {
+            if (deleteFiles) {
+                long start = System.nanoTime();
+                try {
+                    Files.delete(tmpReq);
+                    Files.delete(tmpResp);
+                } catch (IOException e) {
+                    // silently ignore
+                }
+                LintMetrics.record(LintMetrics.Phase.CLEANUP, start);
+            }
+            event.commit(TRANSPORT, LintEvents.PROTOCOL_JSON, lintNames, id, bytesWritten, bytesRead);
+        }
+    }
+
+    /**
+     * Returns the version of the executable, which changes whenever the executable is replaced. The executable is
+     * checked at most once per second. When it changed, the idle workers are restarted so that they run the new
+     * executable.
+     */
+    @Override
+    public synchronized String getVersion() {
+        long now = System.nanoTime();
+        if (version == null || now - versionCheckedAt > VERSION_CHECK_INTERVAL_NANOS) {
+            String currentVersion = getVersion(executablePath);
+            if (version != null && !version.equals(currentVersion) && workerPool != null) {
+                workerPool.restart();
+            }
+            version = currentVersion;
+            versionCheckedAt = now;
+        }
+        return version;
+    }
+
+    static String getVersion(String executablePath) {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(Paths.get(executablePath), BasicFileAttributes.class);
+            return "cli:%s:%d:%d".formatted(executablePath, attributes.lastModifiedTime().toMillis(), attributes.size());
+        } catch (IOException ex) {
+            // the executable is looked up on the PATH
+            return "cli:" + executablePath;
+        }
+    }
+
+}
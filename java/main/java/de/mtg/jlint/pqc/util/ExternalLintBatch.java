@@ -0,0 +1,161 @@
+package de.mtg.jlint.pqc.util;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.cert.X509Certificate;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+import org.bouncycastle.asn1.x509.SubjectPublicKeyInfo;
+
+/**
+ * Lints the ML-KEM keys of many certificates with one invocation of the external implementation.
+ * <p>
+ * The keys of all added certificates are written as one JSON-lines request file, and the external implementation
+ * lints them in parallel on all cores. The results are matched back to the keys by their id. After {@link #run()} the
+ * results are also put into the cache of the external lint results under the version of the executable that produced
+ * them. If that executable is also the engine of the lints and {@code lint.mode} sends the lints to it, linting the
+ * added certificates afterwards does not start any further external process as long as the cache holds their results. The results of another engine, for example
+ * the native one, are not reused. The cache is a bounded LRU cache, see {@code result.cache.size}, so a batch larger
+ * than the cache, or other lints between the batch and the lints of its certificates, evict results, which are then
+ * evaluated again. The returned results are not evicted.
+ * <p>
+ * Instances are not thread-safe.
+ */
+public final class ExternalLintBatch {
+
+    private static final String TRUE = "true";
+
+    private final Map<String, PublicKey> publicKeys = new LinkedHashMap<>();
+
+    /**
+     * Adds the public key of the certificate to this batch. Certificates with the same public key and algorithm are
+     * linted once.
+     */
+    public void add(X509Certificate certificate) {
+        byte[] encodedPublicKey = certificate.getPublicKey().getEncoded();
+        SubjectPublicKeyInfo subjectPublicKeyInfo = SubjectPublicKeyInfo.getInstance(encodedPublicKey);
+        publicKeys.put(PQCUtils.toHexDigest(encodedPublicKey), new PublicKey(
+                MlKemPublicKeyValidator.getRank(subjectPublicKeyInfo.getAlgorithm().getAlgorithm()),
+                subjectPublicKeyInfo.getPublicKeyData().getBytes()));
+    }
+
+    public int size() {
+        return publicKeys.size();
+    }
+
+    /**
+     * Lints all keys of this batch on a virtual thread if the runtime provides them, see {@link #runAsync(Executor)}.
+     */
+    public CompletableFuture<Map<String, Map<String, String>>> runAsync() {
+        return runAsync(LintExecutors.getTaskExecutor());
+    }
+
+    /**
+     * Lints all keys of this batch like {@link #run()} on the executor. The keys must not be changed until the future
+     * completed. Once it completed, {@link ExternalLintUtils#getLintResultAsync(String, X509Certificate,
+     * de.mtg.jzlint.LintResult)} answers the lints of the added certificates from the cache, as long as the cache holds
+     * their results, see {@link ExternalLintBatch}.
+     *
+     * @return the future results, which fails with the {@link IOException} of {@link #run()}.
+     */
+    public CompletableFuture<Map<String, Map<String, String>>> runAsync(Executor executor) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return run();
+            } catch (IOException ex) {
+                throw new CompletionException(ex);
+            }
+        }, executor);
+    }
+
+    /**
+     * Lints all keys of this batch.
+     *
+     * @return the result of every ML-KEM lint by lint name, by key id.
+     * @throws IOException if the external implementation could not be run or did not answer every key.
+     */
+    public Map<String, Map<String, String>> run() throws IOException {
+
+        Map<String, Map<String, String>> results = new LinkedHashMap<>();
+        if (publicKeys.isEmpty()) {
+            return results;
+        }
+
+        Properties properties = ExternalLintUtils.loadProperties();
+        String tmpDirectory = properties.getProperty(ExternalLintUtils.PROPERTY_NAME_TMP_DIR);
+        String executablePath = properties.getProperty(ExternalLintUtils.PROPERTY_NAME_EXECUTABLE_PATH);
+
+        String engineVersion;
+        String batchId = UUID.randomUUID().toString();
+        Path tmpReq = Paths.get(tmpDirectory, "batch_%s.req.jsonl".formatted(batchId));
+        Path tmpResp = Paths.get(tmpDirectory, "batch_%s.resp.jsonl".formatted(batchId));
+
+        try {
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(tmpReq))) {
+                for (Map.Entry<String, PublicKey> publicKey : publicKeys.entrySet()) {
+                    ExternalLintRequest externalLintRequest = new ExternalLintRequest(ExternalLintUtils.ML_KEM_LINT_NAMES,
+                            publicKey.getKey(), publicKey.getValue().rank(), publicKey.getValue().publicKey());
+                    externalLintRequest.writeTo(out);
+                    out.write('\n');
+                }
+            }
+
+            // the results belong to the executable that is run, even if it is replaced afterwards
+            engineVersion = CliLintEngine.getVersion(executablePath);
+            // the duration of a batch grows with its size, so it has no deadline
+            ExternalProcess.run(List.of(executablePath, "lint", "--batch", "-f", tmpReq.toString(), "-r", tmpResp.toString()), 0);
+
+            try (InputStream in = new BufferedInputStream(Files.newInputStream(tmpResp))) {
+                LineBuffer line = new LineBuffer();
+                while (line.readLine(in)) {
+                    if (line.isBlank()) {
+                        continue;
+                    }
+                    ExternalLintResponse response = ExternalLintResponse.parse(line.array(), 0, line.size());
+                    if (publicKeys.containsKey(response.getId())) {
+                        results.put(response.getId(), response.getResults());
+                    }
+                }
+            }
+        } finally {
+            if (TRUE.equalsIgnoreCase(properties.getProperty(ExternalLintUtils.PROPERTY_NAME_DELETE_FILES))) {
+                try {
+                    Files.deleteIfExists(tmpReq);
+                    Files.deleteIfExists(tmpResp);
+                } catch (IOException e) {
+                    // silently ignore
+                }
+            }
+        }
+
+        if (results.size() != publicKeys.size()) {
+            throw new IOException("Batch lint answered %d of %d keys".formatted(results.size(), publicKeys.size()));
+        }
+
+        for (Map.Entry<String, Map<String, String>> result : results.entrySet()) {
+            ExternalLintUtils.putResults(result.getKey(), engineVersion, result.getValue());
+        }
+        return Collections.unmodifiableMap(results);
+    }
+
+    /**
+     * The raw public key and the rank of the ML-KEM parameter set declared by its algorithm.
+     */
+    private record PublicKey(int rank, byte[] publicKey) {
+    }
+
+}
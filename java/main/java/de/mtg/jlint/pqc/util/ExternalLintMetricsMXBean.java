@@ -0,0 +1,66 @@
+package de.mtg.jlint.pqc.util;
+
+import java.util.Map;
+
+/**
+ * The metrics of the ML-KEM lints, registered as {@value LintMetrics#OBJECT_NAME} in the platform MBean server.
+ * <p>
+ * The phases of an evaluation are {@code connect} (starting a process or opening a connection), {@code write} (the
+ * request), {@code engine} (until the response arrived), {@code read} (the response) and {@code cleanup} (the
+ * temporary files), and {@code evaluate} covers the whole evaluation of the lints of one key. {@code in_process}
+ * covers one lint that runs in-process, also when it is cross-checked.
+ */
+public interface ExternalLintMetricsMXBean {
+
+    /**
+     * Returns the number of lint results, by lint name. A cross-checked lint counts the result of the engine.
+     */
+    Map<String, Long> getResults();
+
+    /**
+     * Returns the number of lint results that did not pass, by lint name. FATAL results are not included.
+     */
+    Map<String, Long> getNotPassResults();
+
+    /**
+     * Returns the number of FATAL lint results, by lint name.
+     */
+    Map<String, Long> getFatalResults();
+
+    /**
+     * Returns the number of lints whose evaluation missed its deadline, by lint name.
+     */
+    Map<String, Long> getTimeouts();
+
+    /**
+     * Returns the number of cross-checked lints whose in-process result differs from the result of the engine, by lint
+     * name.
+     */
+    Map<String, Long> getMismatches();
+
+    long getCacheHits();
+
+    long getCacheMisses();
+
+    long getSharedCacheHits();
+
+    /**
+     * Returns the share of lint results that were found in the cache or in the shared file.
+     */
+    double getCacheHitRatio();
+
+    /**
+     * Returns the number of measured executions, by phase.
+     */
+    Map<String, Long> getPhaseCounts();
+
+    Map<String, Double> getPhaseMeanMillis();
+
+    /**
+     * Returns the 99th percentile of the latency, by phase. It is the upper bound of a histogram bucket.
+     */
+    Map<String, Double> getPhaseP99Millis();
+
+    Map<String, Double> getPhaseMaxMillis();
+
+}
@@ -3,24 +3,195 @@
  */
 package de.mtg.jlint.pqc.util;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.bouncycastle.util.encoders.Base64;
+import org.bouncycastle.util.encoders.Hex;
+
+/**
+ * A JSON lint request for the external implementation. The request is written straight to a stream, see
+ * {@link #writeTo(OutputStream)}, the public key is Base64-encoded while it is written.
+ */
 public class ExternalLintRequest {
 
-    private String output;
+    private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+
+    private static final int VARIANT_PER_RANK = 256;
+
+    private final String lintName;
+    private final List<String> lintNames;
+    private final String id;
+    private final int rank;
+    private final String encodedPublicKey;
+    private final byte[] publicKey;
 
     public ExternalLintRequest(String lintName, String id, String publicKey) {
-        StringBuilder stringBuilder = new StringBuilder();
-        stringBuilder.append("{\"lintName\":\"");
-        stringBuilder.append(lintName);
-        stringBuilder.append("\",\"id\":\"");
-        stringBuilder.append(id);
-        stringBuilder.append("\",\"publicKey\":\"");
-        stringBuilder.append(publicKey);
-        stringBuilder.append("\"}");
-        this.output = stringBuilder.toString();
+        this(lintName, null, id, 0, publicKey, null);
+    }
+
+    /**
+     * Creates a request for several lints on the same public key. The external implementation decodes the key only
+     * once and returns one result per lint name.
+     */
+    public ExternalLintRequest(List<String> lintNames, String id, String publicKey) {
+        this(null, lintNames, id, 0, publicKey, null);
+    }
+
+    /**
+     * Creates a request for several lints on the same public key of the given ML-KEM parameter set.
+     *
+     * @param rank the rank k of the parameter set declared by the algorithm of the key, or 0 to let the external
+     *             implementation infer it from the length of the key.
+     */
+    public ExternalLintRequest(List<String> lintNames, String id, int rank, String publicKey) {
+        this(null, lintNames, id, rank, publicKey, null);
+    }
+
+    /**
+     * Creates a request for several lints on the same public key given by its raw bytes.
+     *
+     * @param rank the rank k of the parameter set declared by the algorithm of the key, or 0 to let the external
+     *             implementation infer it from the length of the key.
+     */
+    public ExternalLintRequest(List<String> lintNames, String id, int rank, byte[] publicKey) {
+        this(null, lintNames, id, rank, null, publicKey);
+    }
+
+    private ExternalLintRequest(String lintName, List<String> lintNames, String id, int rank, String encodedPublicKey,
+            byte[] publicKey) {
+        this.lintName = lintName;
+        this.lintNames = lintNames;
+        this.id = id;
+        this.rank = rank;
+        this.encodedPublicKey = encodedPublicKey;
+        this.publicKey = publicKey;
+    }
+
+    /**
+     * Writes this request as one line of JSON without the line break.
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        if (lintNames == null) {
+            writeAscii(out, "{\"lintName\":");
+            writeString(out, lintName);
+        } else {
+            writeAscii(out, "{\"lintNames\":[");
+            for (int i = 0; i < lintNames.size(); i++) {
+                if (i > 0) {
+                    out.write(',');
+                }
+                writeString(out, lintNames.get(i));
+            }
+            out.write(']');
+        }
+        writeAscii(out, ",\"id\":");
+        writeString(out, id);
+        if (rank != 0) {
+            // the variant of ML-KEM, 512, 768 or 1024
+            writeAscii(out, ",\"algorithm\":");
+            writeAscii(out, Integer.toString(rank * VARIANT_PER_RANK));
+        }
+        writeAscii(out, ",\"publicKey\":");
+        if (publicKey != null) {
+            out.write('"');
+            Base64.encode(publicKey, 0, publicKey.length, out);
+            out.write('"');
+        } else {
+            writeString(out, encodedPublicKey);
+        }
+        out.write('}');
+    }
+
+    /**
+     * Returns true if this request can be written as a binary frame, that is if it carries the raw key, its lints are
+     * known to the frame protocol and its id is a hex encoded SHA-256 digest.
+     */
+    boolean hasFrame() {
+        if (publicKey == null || lintNames == null || id.length() != 2 * LintProtocol.ID_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < id.length(); i++) {
+            if (Character.digit(id.charAt(i), 16) < 0) {
+                return false;
+            }
+        }
+        return LintProtocol.LINT_NAMES.containsAll(lintNames);
+    }
+
+    /**
+     * Writes this request as a binary frame, see {@link LintProtocol}. The body consists of
+     * <ul>
+     * <li>the parameter set, the rank of ML-KEM declared by the algorithm of the key, or 0 if it is not known,</li>
+     * <li>the 16-bit mask of the lints,</li>
+     * <li>the id,</li>
+     * <li>the raw key.</li>
+     * </ul>
+     */
+    void writeFrameTo(OutputStream out) throws IOException {
+        int lintMask = 0;
+        for (String name : lintNames) {
+            lintMask |= 1 << LintProtocol.LINT_NAMES.indexOf(name);
+        }
+        LintProtocol.writeHeader(out, LintProtocol.VERSION, 3 + LintProtocol.ID_LENGTH + publicKey.length);
+        out.write(rank);
+        out.write(lintMask >>> 8);
+        out.write(lintMask);
+        out.write(Hex.decode(id));
+        out.write(publicKey);
+    }
+
+    String getId() {
+        return id;
+    }
+
+    List<String> getLintNames() {
+        return lintNames != null ? lintNames : List.of(lintName);
     }
 
     public String getOutput() {
-        return output;
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            writeTo(out);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    private static void writeAscii(OutputStream out, String value) throws IOException {
+        for (int i = 0; i < value.length(); i++) {
+            out.write(value.charAt(i));
+        }
+    }
+
+    /**
+     * Writes the value as a JSON string. Quotes, backslashes, control characters and all characters outside of ASCII
+     * are escaped.
+     */
+    private static void writeString(OutputStream out, String value) throws IOException {
+        out.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                out.write('\\');
+                out.write(c);
+            } else if (c >= 0x20 && c < 0x7f) {
+                out.write(c);
+            } else {
+                out.write('\\');
+                out.write('u');
+                out.write(HEX[(c >>> 12) & 0xf]);
+                out.write(HEX[(c >>> 8) & 0xf]);
+                out.write(HEX[(c >>> 4) & 0xf]);
+                out.write(HEX[c & 0xf]);
+            }
+        }
+        out.write('"');
     }
 
 }
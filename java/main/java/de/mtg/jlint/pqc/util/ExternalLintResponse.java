@@ -1,18 +1,118 @@
 package de.mtg.jlint.pqc.util;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.bouncycastle.util.encoders.Hex;
+
+/**
+ * A JSON lint response of the external implementation, either the result of a single lint or the {@code results} of
+ * several lints on the same key.
+ * <p>
+ * Responses are parsed from bytes. The fields may appear in any order and unknown fields are skipped, but input that
+ * is not a single JSON object is rejected. The results and lint names of this project are not decoded, the parser
+ * returns the constant strings instead.
+ */
 public class ExternalLintResponse {
+
+    private static final byte[] LINT_NAME = ascii("lintName");
+    private static final byte[] ID = ascii("id");
+    private static final byte[] RESULT = ascii("result");
+    private static final byte[] RESULTS = ascii("results");
+    private static final byte[] METRIC = ascii("metric");
+
+    private static final int MAX_DEPTH = 32;
+
+    private static final List<String> KNOWN_VALUES = knownValues();
+    private static final byte[][] KNOWN_VALUE_BYTES = KNOWN_VALUES.stream().map(ExternalLintResponse::ascii).toArray(byte[][]::new);
+
     private String lintName;
     private String id;
 
     private String result;
 
+    private Map<String, String> results;
 
+    private Map<String, Long> metrics = Collections.emptyMap();
+
+    /**
+     * @throws IllegalArgumentException if the response is malformed.
+     */
     public ExternalLintResponse(String externalResponse) {
-        this.lintName = getValue(externalResponse, "\"lintName\"");
-        this.id = getValue(externalResponse, "\"id\"");
-        this.result = getValue(externalResponse, "\"result\"");
+        byte[] data = externalResponse.getBytes(StandardCharsets.UTF_8);
+        try {
+            new Parser(data, 0, data.length).parseResponse(this);
+        } catch (IOException ex) {
+            throw new IllegalArgumentException(ex.getMessage(), ex);
+        }
+    }
+
+    private ExternalLintResponse() {
+    }
+
+    /**
+     * Parses the response in the given bytes.
+     *
+     * @throws IOException if the response is malformed.
+     */
+    static ExternalLintResponse parse(byte[] data, int offset, int length) throws IOException {
+        ExternalLintResponse response = new ExternalLintResponse();
+        new Parser(data, offset, offset + length).parseResponse(response);
+        return response;
     }
 
+    /**
+     * Parses the result frame in the given bytes, see {@link LintProtocol}. The body consists of the id, the number of
+     * results and for every result the index of its lint, its status and its unsigned 32-bit metric.
+     *
+     * @throws IOException if the frame is malformed or the lint process rejected the version of the request.
+     */
+    static ExternalLintResponse parseFrame(byte[] data, int offset, int length) throws IOException {
+        if (length < LintProtocol.HEADER_SIZE || data[offset] != LintProtocol.VERSION_1) {
+            throw new IOException("Unsupported lint frame version");
+        }
+        int bodyLength = LintProtocol.getInt(data, offset + 1);
+        if (bodyLength == 0) {
+            throw new IOException("Lint process rejected the frame version");
+        }
+        int position = offset + LintProtocol.HEADER_SIZE;
+        int count = bodyLength < LintProtocol.ID_LENGTH + 1 ? -1 : data[position + LintProtocol.ID_LENGTH] & 0xff;
+        if (count < 0 || bodyLength != LintProtocol.ID_LENGTH + 1 + 6 * count || length != LintProtocol.HEADER_SIZE + bodyLength) {
+            throw new IOException("Malformed lint frame");
+        }
+
+        ExternalLintResponse response = new ExternalLintResponse();
+        response.id = Hex.toHexString(data, position, LintProtocol.ID_LENGTH);
+        position += LintProtocol.ID_LENGTH + 1;
+        Map<String, String> results = new LinkedHashMap<>();
+        Map<String, Long> metrics = new LinkedHashMap<>();
+        for (int i = 0; i < count; i++, position += 6) {
+            int index = data[position] & 0xff;
+            if (index >= LintProtocol.LINT_NAMES.size()) {
+                throw new IOException("Malformed lint frame: unknown lint %d".formatted(index));
+            }
+            String lintName = LintProtocol.LINT_NAMES.get(index);
+            String result = switch (data[position + 1]) {
+                case LintProtocol.STATUS_PASS -> LintEngine.PASS;
+                case LintProtocol.STATUS_ERROR -> LintEngine.ERROR;
+                default -> LintEngine.FATAL;
+            };
+            results.put(lintName, result);
+            metrics.put(lintName, LintProtocol.getInt(data, position + 2) & 0xffffffffL);
+            if (response.lintName == null) {
+                response.lintName = lintName;
+                response.result = result;
+            }
+        }
+        response.results = Collections.unmodifiableMap(results);
+        response.metrics = Collections.unmodifiableMap(metrics);
+        return response;
+    }
 
     public String getLintName() {
         return lintName;
@@ -26,12 +126,380 @@ public class ExternalLintResponse {
         return result;
     }
 
-    private static String getValue(String externalResponse, String name) {
-        int firstStart = externalResponse.indexOf(name);
-        int secondStart = firstStart + name.length();
-        int effectiveStart = externalResponse.indexOf("\"", secondStart);
-        int end = externalResponse.indexOf("\"", effectiveStart + 1);
-        return externalResponse.substring(effectiveStart + 1, end);
+    /**
+     * Returns the result of every lint contained in the response, by lint name. A response to a request for a single
+     * lint contains one entry.
+     */
+    public Map<String, String> getResults() {
+        return results;
+    }
+
+    /**
+     * Returns the numeric metric of every lint contained in the response that carries one, by lint name, for example
+     * the longest run of equal entries. Every lint of a result frame carries a metric, the lints of a JSON response
+     * only if they have a {@code metric} field.
+     */
+    public Map<String, Long> getMetrics() {
+        return metrics;
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static List<String> knownValues() {
+        List<String> knownValues = new ArrayList<>();
+        knownValues.add(LintEngine.PASS);
+        knownValues.add(LintEngine.ERROR);
+        knownValues.addAll(ExternalLintUtils.ML_KEM_LINT_NAMES);
+        return List.copyOf(knownValues);
+    }
+
+    private static final class Parser {
+
+        private final byte[] data;
+        private final int end;
+        private int position;
+
+        // the bounds of the last string token, without the quotes
+        private int tokenStart;
+        private int tokenEnd;
+        private boolean tokenEscaped;
+
+        private Parser(byte[] data, int offset, int end) {
+            this.data = data;
+            this.position = offset;
+            this.end = end;
+        }
+
+        private void parseResponse(ExternalLintResponse response) throws IOException {
+            Map<String, String> results = null;
+            Map<String, Long> metrics = new LinkedHashMap<>();
+            long metric = -1;
+            expect('{');
+            if (!consume('}')) {
+                do {
+                    readToken();
+                    expect(':');
+                    if (tokenEquals(LINT_NAME)) {
+                        response.lintName = readString();
+                    } else if (tokenEquals(ID)) {
+                        response.id = readString();
+                    } else if (tokenEquals(RESULT)) {
+                        response.result = readString();
+                    } else if (tokenEquals(RESULTS)) {
+                        results = readResults(metrics);
+                    } else if (tokenEquals(METRIC)) {
+                        metric = readMetric();
+                    } else {
+                        skipValue(0);
+                    }
+                } while (consume(','));
+                expect('}');
+            }
+            skipWhitespace();
+            if (position != end) {
+                throw malformed("trailing data");
+            }
+
+            if (results == null) {
+                if (response.lintName == null || response.result == null) {
+                    throw malformed("missing lint result");
+                }
+                results = Map.of(response.lintName, response.result);
+                if (metric != -1) {
+                    metrics.put(response.lintName, metric);
+                }
+            } else if (response.lintName == null && !results.isEmpty()) {
+                Map.Entry<String, String> first = results.entrySet().iterator().next();
+                response.lintName = first.getKey();
+                response.result = first.getValue();
+            }
+            response.results = results;
+            if (!metrics.isEmpty()) {
+                response.metrics = Collections.unmodifiableMap(metrics);
+            }
+        }
+
+        /**
+         * Reads the results array and adds the metrics of its results to {@code metrics}.
+         */
+        private Map<String, String> readResults(Map<String, Long> metrics) throws IOException {
+            Map<String, String> results = new LinkedHashMap<>();
+            expect('[');
+            if (consume(']')) {
+                return Collections.emptyMap();
+            }
+            do {
+                String lintName = null;
+                String result = null;
+                long metric = -1;
+                expect('{');
+                if (!consume('}')) {
+                    do {
+                        readToken();
+                        expect(':');
+                        if (tokenEquals(LINT_NAME)) {
+                            lintName = readString();
+                        } else if (tokenEquals(RESULT)) {
+                            result = readString();
+                        } else if (tokenEquals(METRIC)) {
+                            metric = readMetric();
+                        } else {
+                            skipValue(1);
+                        }
+                    } while (consume(','));
+                    expect('}');
+                }
+                if (lintName == null || result == null) {
+                    throw malformed("missing lint result");
+                }
+                results.put(lintName, result);
+                if (metric != -1) {
+                    metrics.put(lintName, metric);
+                }
+            } while (consume(','));
+            expect(']');
+            return Collections.unmodifiableMap(results);
+        }
+
+        private void skipValue(int depth) throws IOException {
+            if (depth > MAX_DEPTH) {
+                throw malformed("nesting too deep");
+            }
+            skipWhitespace();
+            if (position == end) {
+                throw malformed("missing value");
+            }
+            switch (data[position]) {
+                case '"' -> readToken();
+                case '{' -> {
+                    position++;
+                    if (!consume('}')) {
+                        do {
+                            readToken();
+                            expect(':');
+                            skipValue(depth + 1);
+                        } while (consume(','));
+                        expect('}');
+                    }
+                }
+                case '[' -> {
+                    position++;
+                    if (!consume(']')) {
+                        do {
+                            skipValue(depth + 1);
+                        } while (consume(','));
+                        expect(']');
+                    }
+                }
+                case 't' -> skipLiteral("true");
+                case 'f' -> skipLiteral("false");
+                case 'n' -> skipLiteral("null");
+                default -> skipNumber();
+            }
+        }
+
+        /**
+         * Reads a metric, a non-negative integer.
+         */
+        private long readMetric() throws IOException {
+            skipWhitespace();
+            int start = position;
+            long value = 0;
+            while (position < end && data[position] >= '0' && data[position] <= '9') {
+                if (value > (Long.MAX_VALUE - 9) / 10) {
+                    throw malformed("metric too large");
+                }
+                value = value * 10 + (data[position] - '0');
+                position++;
+            }
+            if (position == start) {
+                throw malformed("invalid metric");
+            }
+            return value;
+        }
+
+        private void skipLiteral(String literal) throws IOException {
+            if (end - position < literal.length()) {
+                throw malformed("invalid literal");
+            }
+            for (int i = 0; i < literal.length(); i++) {
+                if (data[position + i] != literal.charAt(i)) {
+                    throw malformed("invalid literal");
+                }
+            }
+            position += literal.length();
+        }
+
+        private void skipNumber() throws IOException {
+            int start = position;
+            if (position < end && data[position] == '-') {
+                position++;
+            }
+            int digits = 0;
+            while (position < end) {
+                byte b = data[position];
+                if (b >= '0' && b <= '9') {
+                    digits++;
+                } else if (b != '.' && b != 'e' && b != 'E' && b != '+' && b != '-') {
+                    break;
+                }
+                position++;
+            }
+            if (digits == 0) {
+                position = start;
+                throw malformed("invalid value");
+            }
+        }
+
+        /**
+         * Reads a string value. The known values are returned without decoding the bytes.
+         */
+        private String readString() throws IOException {
+            readToken();
+            if (!tokenEscaped) {
+                for (int i = 0; i < KNOWN_VALUE_BYTES.length; i++) {
+                    if (tokenEquals(KNOWN_VALUE_BYTES[i])) {
+                        return KNOWN_VALUES.get(i);
+                    }
+                }
+                return new String(data, tokenStart, tokenEnd - tokenStart, StandardCharsets.UTF_8);
+            }
+            return unescapeToken();
+        }
+
+        private void readToken() throws IOException {
+            skipWhitespace();
+            if (position == end || data[position] != '"') {
+                throw malformed("expected a string");
+            }
+            int i = position + 1;
+            boolean escaped = false;
+            while (true) {
+                if (i >= end) {
+                    throw malformed("unterminated string");
+                }
+                byte b = data[i];
+                if (b == '"') {
+                    break;
+                }
+                if ((b & 0xff) < 0x20) {
+                    throw malformed("control character in string");
+                }
+                if (b == '\\') {
+                    escaped = true;
+                    i += escapeLength(i + 1);
+                }
+                i++;
+            }
+            tokenStart = position + 1;
+            tokenEnd = i;
+            tokenEscaped = escaped;
+            position = i + 1;
+        }
+
+        /**
+         * Returns the length of the escape sequence after a backslash.
+         */
+        private int escapeLength(int index) throws IOException {
+            if (index >= end) {
+                throw malformed("unterminated string");
+            }
+            switch (data[index]) {
+                case '"', '\\', '/', 'b', 'f', 'n', 'r', 't' -> {
+                    return 1;
+                }
+                case 'u' -> {
+                    if (end - index < 5) {
+                        throw malformed("invalid escape");
+                    }
+                    for (int j = 1; j < 5; j++) {
+                        if (Character.digit(data[index + j], 16) < 0) {
+                            throw malformed("invalid escape");
+                        }
+                    }
+                    return 5;
+                }
+                default -> throw malformed("invalid escape");
+            }
+        }
+
+        private String unescapeToken() {
+            StringBuilder value = new StringBuilder(tokenEnd - tokenStart);
+            int runStart = tokenStart;
+            int i = tokenStart;
+            while (i < tokenEnd) {
+                if (data[i] != '\\') {
+                    i++;
+                    continue;
+                }
+                value.append(new String(data, runStart, i - runStart, StandardCharsets.UTF_8));
+                byte escape = data[i + 1];
+                i += 2;
+                switch (escape) {
+                    case '"', '\\', '/' -> value.append((char) escape);
+                    case 'b' -> value.append('\b');
+                    case 'f' -> value.append('\f');
+                    case 'n' -> value.append('\n');
+                    case 'r' -> value.append('\r');
+                    case 't' -> value.append('\t');
+                    case 'u' -> {
+                        int c = 0;
+                        for (int j = 0; j < 4; j++) {
+                            c = (c << 4) | Character.digit(data[i + j], 16);
+                        }
+                        value.append((char) c);
+                        i += 4;
+                    }
+                }
+                runStart = i;
+            }
+            value.append(new String(data, runStart, tokenEnd - runStart, StandardCharsets.UTF_8));
+            return value.toString();
+        }
+
+        private boolean tokenEquals(byte[] value) {
+            if (tokenEscaped || tokenEnd - tokenStart != value.length) {
+                return false;
+            }
+            for (int i = 0; i < value.length; i++) {
+                if (data[tokenStart + i] != value[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void expect(char c) throws IOException {
+            if (!consume(c)) {
+                throw malformed("expected '" + c + "'");
+            }
+        }
+
+        private boolean consume(char c) {
+            skipWhitespace();
+            if (position < end && data[position] == c) {
+                position++;
+                return true;
+            }
+            return false;
+        }
+
+        private void skipWhitespace() {
+            while (position < end) {
+                byte b = data[position];
+                if (b != ' ' && b != '\t' && b != '\n' && b != '\r') {
+                    return;
+                }
+                position++;
+            }
+        }
+
+        private IOException malformed(String reason) {
+            return new IOException("Malformed lint response at offset %d: %s".formatted(position, reason));
+        }
+
     }
 
 }
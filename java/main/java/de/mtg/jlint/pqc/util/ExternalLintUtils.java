@@ -1,92 +1,614 @@
 package de.mtg.jlint.pqc.util;
 
-import java.io.BufferedReader;
 import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.nio.file.Files;
-import java.nio.file.Path;
+import java.io.InterruptedIOException;
 import java.nio.file.Paths;
-import java.security.cert.CertificateEncodingException;
 import java.security.cert.X509Certificate;
+import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
 
+import org.bouncycastle.asn1.x509.SubjectPublicKeyInfo;
+
+import de.mtg.jzlint.JavaLint;
 import de.mtg.jzlint.LintResult;
 import de.mtg.jzlint.Status;
-import de.mtg.jzlint.utils.ASN1CertificateUtils;
 
 public class ExternalLintUtils {
 
     private static final String JZLINT_PROPERTIES = "jzlint.properties";
 
-    private static final String PROPERTY_NAME_TMP_DIR = "tmp.dir";
-    private static final String PROPERTY_NAME_EXECUTABLE_PATH = "executable.path";
-    private static final String PROPERTY_NAME_DELETE_FILES = "delete.files";
-    private static final String PASS = "Pass";
+    static final String PROPERTY_NAME_TMP_DIR = "tmp.dir";
+    static final String PROPERTY_NAME_EXECUTABLE_PATH = "executable.path";
+    static final String PROPERTY_NAME_DELETE_FILES = "delete.files";
+    private static final String PROPERTY_NAME_WORKER_POOL_SIZE = "worker.pool.size";
+    private static final String PROPERTY_NAME_ENGINE = "engine";
+    private static final String PROPERTY_NAME_NATIVE_LIBRARY_PATH = "native.library.path";
+    private static final String ENGINE_AUTO = "auto";
+    private static final String ENGINE_NATIVE = "native";
+    private static final String ENGINE_CLI = "cli";
+    private static final String ENGINE_SOCKET = "socket";
+    private static final String PROPERTY_NAME_SOCKET_PATH = "socket.path";
+    private static final String PROPERTY_NAME_SOCKET_POOL_SIZE = "socket.pool.size";
+    private static final String PROPERTY_NAME_RESULT_CACHE_SIZE = "result.cache.size";
+    private static final String PROPERTY_NAME_RESULT_CACHE_TTL = "result.cache.ttl";
+    private static final String PROPERTY_NAME_SHARED_CACHE_FILE = "shared.cache.file";
+    private static final String PROPERTY_NAME_SHARED_CACHE_SLOTS = "shared.cache.slots";
+    private static final String PROPERTY_NAME_TIMEOUT = "timeout.millis";
+    private static final String PROPERTY_NAME_PROTOCOL = "protocol";
+    private static final String PROTOCOL_JSON = "json";
+    private static final String PROPERTY_NAME_LINT_MODE = "lint.mode";
+    private static final String LINT_MODE_EXTERNAL = "external";
+    private static final String LINT_MODE_CROSSCHECK = "crosscheck";
     private static final String TRUE = "true";
 
+    /**
+     * The lints that are evaluated by the external implementation in a single request for the same public key. By
+     * default the ML-KEM lints of this project check the keys in-process, see {@link MlKemPublicKeyValidator},
+     * {@link MlKemSeedStatistics} and {@link MlKemMatrixStatistics}. {@code lint.mode} sends them to the engine
+     * instead, or to both to cross-check them, see {@link #route(JavaLint, Function)}.
+     */
+    static final List<String> ML_KEM_LINT_NAMES = List.of(
+            "e_ml_kem_ek_length",
+            "e_ml_kem_ek_encoding",
+            "e_ml_kem_ek_seed_entry_frequency",
+            "e_ml_kem_ek_seed_entry_run",
+            "e_ml_kem_ek_seed_sl_entries",
+            "e_ml_kem_ek_matrix_entry_frequency",
+            "e_ml_kem_ek_matrix_entry_run",
+            "e_ml_kem_ek_matrix_sl_entries");
+
+    private static final int DEFAULT_RESULT_CACHE_SIZE = 4096;
+    private static final int DEFAULT_SHARED_CACHE_SLOTS = 65536;
+    private static final long DEFAULT_TIMEOUT_MILLIS = 10000;
+    private static final int DEFAULT_SOCKET_POOL_SIZE = 4;
+
+    private static volatile Configuration configuration;
+
+    /**
+     * The evaluations that are running, by the first lint name and the id of the key. Concurrent lints of the same key
+     * wait for the running evaluation instead of starting their own.
+     */
+    private static final ConcurrentMap<String, CompletableFuture<Map<String, String>>> runningEvaluations =
+            new ConcurrentHashMap<>();
+
+    /**
+     * Returns the function that lints a certificate as configured by {@code lint.mode}: with the in-process
+     * implementation of the lint by default, with the engine if it is {@code external}, or with both if it is
+     * {@code crosscheck}. A cross-checked lint returns the in-process result if the engine agrees on its status,
+     * otherwise Fatal with both results. A lint that is not an ML-KEM lint always runs in-process. The results and the
+     * latency of the ML-KEM lints are recorded in the {@link LintMetrics} in every mode.
+     *
+     * @param lint the lint, whose {@link de.mtg.jzlint.Lint} annotation names the lint of the engine.
+     * @param inProcess the in-process implementation of the lint.
+     */
+    public static Function<X509Certificate, LintResult> route(JavaLint lint,
+            Function<X509Certificate, LintResult> inProcess) {
+        String lintName = LintEvents.getLintName(lint);
+        Mode mode = ML_KEM_LINT_NAMES.contains(lintName) ? getConfiguration().mode : Mode.IN_PROCESS;
+        return switch (mode) {
+            case IN_PROCESS -> ML_KEM_LINT_NAMES.contains(lintName)
+                    ? certificate -> LintMetrics.recordResult(lintName, lintInProcess(certificate, inProcess))
+                    : inProcess;
+            case EXTERNAL -> certificate -> getLintResult(lintName, certificate, LintResult.of(Status.ERROR));
+            case CROSSCHECK -> certificate -> crossCheck(lintName, certificate, inProcess);
+        };
+    }
+
+    private static LintResult crossCheck(String lintName, X509Certificate certificate,
+            Function<X509Certificate, LintResult> inProcess) {
+        LintResult inProcessResult = lintInProcess(certificate, inProcess);
+        // counts the result of the engine
+        LintResult engineResult = getLintResult(lintName, certificate, LintResult.of(Status.ERROR));
+        if (inProcessResult.getStatus() == engineResult.getStatus()) {
+            return inProcessResult;
+        }
+        LintMetrics.recordMismatch(lintName);
+        return LintResult.of(Status.FATAL, String.format("The in-process result %s differs from the result %s of the engine",
+                inProcessResult.getStatus(), engineResult.getStatus()));
+    }
+
+    private static LintResult lintInProcess(X509Certificate certificate,
+            Function<X509Certificate, LintResult> inProcess) {
+        long start = System.nanoTime();
+        LintResult lintResult = inProcess.apply(certificate);
+        LintMetrics.record(LintMetrics.Phase.IN_PROCESS, start);
+        return lintResult;
+    }
+
     public static LintResult getLintResult(String lintName, X509Certificate certificate, LintResult notPassResult) {
 
-        String encodedPublicKey;
+        byte[] encodedPublicKey = certificate.getPublicKey().getEncoded();
+        SubjectPublicKeyInfo subjectPublicKeyInfo = SubjectPublicKeyInfo.getInstance(encodedPublicKey);
+        byte[] publicKey = subjectPublicKeyInfo.getPublicKeyData().getBytes();
+        int rank = MlKemPublicKeyValidator.getRank(subjectPublicKeyInfo.getAlgorithm().getAlgorithm());
+        // the results depend on the declared parameter set, so the id covers the algorithm and the key
+        String id = PQCUtils.toHexDigest(encodedPublicKey);
+
+        Configuration current = getConfiguration();
+        LintEngine engine;
         try {
-            encodedPublicKey = ASN1CertificateUtils.getPublicKeySubjectPublicKeyBase64Encoded(certificate);
-        } catch (CertificateEncodingException ex) {
-            return LintResult.of(Status.FATAL);
+            engine = current.getEngine();
+        } catch (IOException ioException) {
+            return LintMetrics.recordResult(lintName, LintResult.of(Status.FATAL));
         }
-        String id = PQCUtils.toHexDigest(encodedPublicKey);
+        String engineVersion = engine.getVersion();
 
-        ExternalLintRequest externalLintRequest = new ExternalLintRequest(lintName, id, encodedPublicKey);
+        String result = getCachedResult(current, lintName, id, engineVersion);
+        if (result == null) {
+            // all ML-KEM lints are evaluated together, the other lints of the certificate will find their result cached
+            List<String> lintNames = ML_KEM_LINT_NAMES.contains(lintName) ? ML_KEM_LINT_NAMES : List.of(lintName);
+            Map<String, String> results;
+            try {
+                results = evaluate(current, engine, engineVersion, lintNames, id, rank, publicKey);
+            } catch (LintTimeoutException timeoutException) {
+                LintMetrics.recordTimeout(lintName);
+                return LintMetrics.recordResult(lintName, LintResult.of(Status.FATAL, timeoutException.getMessage()));
+            } catch (IOException ioException) {
+                return LintMetrics.recordResult(lintName, LintResult.of(Status.FATAL));
+            }
+            result = results.get(lintName);
+        }
 
-        Properties properties = new Properties();
+        return LintMetrics.recordResult(lintName, toLintResult(result, notPassResult));
+    }
 
+    /**
+     * Returns the result of the lint like {@link #getLintResult(String, X509Certificate, LintResult)}, but without
+     * waiting for the engine. Cached results complete the future immediately, evaluations run on virtual threads if
+     * the runtime provides them.
+     */
+    public static CompletableFuture<LintResult> getLintResultAsync(String lintName, X509Certificate certificate,
+            LintResult notPassResult) {
+        return getLintResultAsync(lintName, certificate, notPassResult, LintExecutors.getTaskExecutor());
+    }
 
-        try (FileInputStream fis = new FileInputStream(JZLINT_PROPERTIES)) {
-            properties.load(fis);
+    /**
+     * Returns the result of the lint like {@link #getLintResult(String, X509Certificate, LintResult)}, but without
+     * waiting for the engine.
+     * <p>
+     * Engines that block run on the executor, and the dependent stages of the returned future run on the executor as
+     * well. Lints of the same key share one evaluation with the synchronous lints, and the results of an
+     * {@link ExternalLintBatch} are found in the cache until they are evicted, so for example
+     * {@code batch.runAsync().thenCompose(...)} lints the certificates of a batch that fits into the cache without any
+     * further evaluation.
+     *
+     * @param executor the executor of the evaluation.
+     */
+    public static CompletableFuture<LintResult> getLintResultAsync(String lintName, X509Certificate certificate,
+            LintResult notPassResult, Executor executor) {
+
+        byte[] encodedPublicKey = certificate.getPublicKey().getEncoded();
+        SubjectPublicKeyInfo subjectPublicKeyInfo = SubjectPublicKeyInfo.getInstance(encodedPublicKey);
+        byte[] publicKey = subjectPublicKeyInfo.getPublicKeyData().getBytes();
+        int rank = MlKemPublicKeyValidator.getRank(subjectPublicKeyInfo.getAlgorithm().getAlgorithm());
+        // the results depend on the declared parameter set, so the id covers the algorithm and the key
+        String id = PQCUtils.toHexDigest(encodedPublicKey);
+
+        Configuration current = getConfiguration();
+        LintEngine engine;
+        try {
+            engine = current.getEngine();
         } catch (IOException ioException) {
+            return CompletableFuture.completedFuture(LintMetrics.recordResult(lintName, LintResult.of(Status.FATAL)));
+        }
+        String engineVersion = engine.getVersion();
+
+        String result = getCachedResult(current, lintName, id, engineVersion);
+        if (result != null) {
+            return CompletableFuture.completedFuture(LintMetrics.recordResult(lintName, toLintResult(result, notPassResult)));
+        }
+
+        List<String> lintNames = ML_KEM_LINT_NAMES.contains(lintName) ? ML_KEM_LINT_NAMES : List.of(lintName);
+        return evaluateAsync(current, engine, engineVersion, lintNames, id, rank, publicKey, executor)
+                .handleAsync((results, failure) -> {
+                    if (failure == null) {
+                        return LintMetrics.recordResult(lintName, toLintResult(results.get(lintName), notPassResult));
+                    }
+                    Throwable cause = LintExecutors.getCause(failure);
+                    if (cause instanceof LintTimeoutException) {
+                        LintMetrics.recordTimeout(lintName);
+                        return LintMetrics.recordResult(lintName, LintResult.of(Status.FATAL, cause.getMessage()));
+                    }
+                    return LintMetrics.recordResult(lintName, LintResult.of(Status.FATAL));
+                }, executor);
+    }
+
+    /**
+     * Returns the result of the lint from the cache, or from the file shared with the other processes of the host.
+     */
+    private static String getCachedResult(Configuration current, String lintName, String id, String engineVersion) {
+        LintResultCache cache = current.resultCache;
+        String result = cache.get(lintName, id, engineVersion);
+        SharedLintResultFile sharedFile = current.sharedResultFile;
+        if (result == null && sharedFile != null) {
+            result = sharedFile.get(lintName, id, engineVersion);
+            if (result != null) {
+                LintMetrics.recordSharedCacheHit();
+                cache.put(id, engineVersion, Map.of(lintName, result));
+            }
+        }
+        return result;
+    }
+
+    private static LintResult toLintResult(String result, LintResult notPassResult) {
+        if (result == null || LintEngine.FATAL.equalsIgnoreCase(result)) {
             return LintResult.of(Status.FATAL);
         }
+        if (LintEngine.PASS.equalsIgnoreCase(result)) {
+            return LintResult.of(Status.PASS);
+        }
+        return notPassResult;
+    }
 
-        String tmpDirectory = properties.getProperty(PROPERTY_NAME_TMP_DIR);
-        String executablePath = properties.getProperty(PROPERTY_NAME_EXECUTABLE_PATH);
+    /**
+     * Evaluates the lints with the engine and caches the results. If the same lints of the same key are already being
+     * evaluated, for example for a precertificate and its final certificate, waits for that evaluation instead.
+     */
+    private static Map<String, String> evaluate(Configuration current, LintEngine engine, String engineVersion,
+            List<String> lintNames, String id, int rank, byte[] publicKey) throws IOException {
 
-        Path tmpReq = Paths.get(tmpDirectory, "%s_%s.req.json".formatted(lintName, id));
-        Path tmpResp = Paths.get(tmpDirectory, "%s_%s.resp.json".formatted(lintName, id));
+        String key = lintNames.get(0) + ':' + id;
+        CompletableFuture<Map<String, String>> evaluation = new CompletableFuture<>();
+        CompletableFuture<Map<String, String>> runningEvaluation = runningEvaluations.putIfAbsent(key, evaluation);
+        if (runningEvaluation != null) {
+            return await(runningEvaluation);
+        }
 
         try {
+            long start = System.nanoTime();
+            Map<String, String> results = engine.evaluate(lintNames, id, rank, publicKey);
+            LintMetrics.record(LintMetrics.Phase.EVALUATE, start);
+            // cache before the evaluation is removed, such that later lints do not evaluate again
+            current.put(id, engineVersion, results);
+            evaluation.complete(results);
+            return results;
+        } catch (Throwable ex) {
+            // also an Error, the lints waiting for this evaluation must not wait forever
+            evaluation.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            runningEvaluations.remove(key, evaluation);
+        }
+    }
 
-            Files.writeString(tmpReq, externalLintRequest.getOutput());
+    /**
+     * Evaluates the lints like {@link #evaluate(Configuration, LintEngine, String, List, String, int, byte[])} without
+     * waiting for the engine.
+     */
+    private static CompletableFuture<Map<String, String>> evaluateAsync(Configuration current, LintEngine engine,
+            String engineVersion, List<String> lintNames, String id, int rank, byte[] publicKey, Executor executor) {
 
-            ProcessBuilder processBuilder = new ProcessBuilder(executablePath, "lint", "-f", tmpReq.toString(), "-r", tmpResp.toString());
-            Process process = processBuilder.start();
+        String key = lintNames.get(0) + ':' + id;
+        CompletableFuture<Map<String, String>> evaluation = new CompletableFuture<>();
+        CompletableFuture<Map<String, String>> runningEvaluation = runningEvaluations.putIfAbsent(key, evaluation);
+        if (runningEvaluation != null) {
+            return runningEvaluation;
+        }
+
+        long start = System.nanoTime();
+        CompletableFuture<Map<String, String>> engineEvaluation;
+        try {
+            engineEvaluation = engine.evaluateAsync(lintNames, id, rank, publicKey, executor);
+        } catch (Throwable ex) {
+            engineEvaluation = CompletableFuture.failedFuture(ex);
+        }
+        engineEvaluation.whenComplete((results, failure) -> {
+            try {
+                if (failure == null) {
+                    LintMetrics.record(LintMetrics.Phase.EVALUATE, start);
+                    current.put(id, engineVersion, results);
+                    evaluation.complete(results);
+                } else {
+                    evaluation.completeExceptionally(LintExecutors.getCause(failure));
+                }
+            } catch (Throwable ex) {
+                evaluation.completeExceptionally(ex);
+            } finally {
+                runningEvaluations.remove(key, evaluation);
+            }
+        });
+        return evaluation;
+    }
 
-            BufferedReader reader = new BufferedReader(new InputStreamReader(process.getErrorStream()));
-            StringBuilder builder = new StringBuilder();
-            String line;
-            while ((line = reader.readLine()) != null) {
-                builder.append(line);
-                builder.append(System.lineSeparator());
+    private static Map<String, String> await(CompletableFuture<Map<String, String>> evaluation) throws IOException {
+        try {
+            return evaluation.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a running lint evaluation");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException ioException) {
+                // a timeout of the running evaluation remains a timeout
+                throw ioException;
             }
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    static Properties loadProperties() throws IOException {
+        Properties properties = new Properties();
+        try (FileInputStream fis = new FileInputStream(JZLINT_PROPERTIES)) {
+            properties.load(fis);
+        }
+        return properties;
+    }
+
+    /**
+     * Makes results that were obtained outside of a lint, for example by an {@link ExternalLintBatch}, available to
+     * the lints of the certificates with the key of the given id.
+     * <p>
+     * The lints only look up results of the version of the engine selected by {@link Configuration#getEngine()}, so
+     * the results are only reused if they were produced by that engine and {@code lint.mode} sends the lints to it.
+     *
+     * @param engineVersion the version of the engine that produced the results, see {@link LintEngine#getVersion()}.
+     */
+    static void putResults(String id, String engineVersion, Map<String, String> results) {
+        getConfiguration().put(id, engineVersion, results);
+    }
 
-            ExternalLintResponse response = new ExternalLintResponse(Files.readString(tmpResp));
+    /**
+     * Drops all cached results, for example after the configuration of the external implementation changed.
+     * Replacing the executable is detected without calling this method.
+     */
+    public static void invalidateResults() {
+        Configuration current = configuration;
+        if (current != null) {
+            current.resultCache.invalidate();
+        }
+    }
 
-            if (PASS.equalsIgnoreCase(response.getResult())) {
-                return LintResult.of(Status.PASS);
+    /**
+     * Returns the number of lint results that were answered from the cache.
+     */
+    public static long getResultCacheHits() {
+        Configuration current = configuration;
+        return current == null ? 0 : current.resultCache.getHits();
+    }
+
+    /**
+     * Returns the number of lint results that were not cached and had to be evaluated by the engine.
+     */
+    public static long getResultCacheMisses() {
+        Configuration current = configuration;
+        return current == null ? 0 : current.resultCache.getMisses();
+    }
+
+    /**
+     * Returns the configuration of the lints, which is read from the properties on first use and lives as long as the
+     * JVM. It is published once, so that the lints read it without taking a lock.
+     */
+    private static Configuration getConfiguration() {
+        Configuration current = configuration;
+        if (current == null) {
+            synchronized (ExternalLintUtils.class) {
+                current = configuration;
+                if (current == null) {
+                    current = Configuration.load();
+                    configuration = current;
+                }
             }
+        }
+        return current;
+    }
 
-            return notPassResult;
-        } catch (IOException ioException) {
-            return LintResult.of(Status.FATAL);
-        } finally {
-            String deleteFiles = properties.getProperty(PROPERTY_NAME_DELETE_FILES);
-            if (TRUE.equalsIgnoreCase(deleteFiles)) {
+    /**
+     * Replaces the configuration by one of the properties whose lints are sent to the engine, for tests.
+     */
+    static void configure(Properties properties, LintEngine engine) {
+        configuration = new Configuration(properties, engine, null);
+    }
+
+    /**
+     * Creates the engine that evaluates the lints.
+     * <p>
+     * With {@code engine=auto} the in-process native engine is used if its library loads, otherwise the lint server
+     * at {@code socket.path} if it is set, otherwise the external executable. {@code engine=native},
+     * {@code engine=socket} and {@code engine=cli} force one of them.
+     */
+    private static LintEngine createLintEngine(Properties properties) throws IOException {
+        String engine = properties.getProperty(PROPERTY_NAME_ENGINE, ENGINE_AUTO).trim();
+        String socketPath = properties.getProperty(PROPERTY_NAME_SOCKET_PATH, "").trim();
+        boolean external = ENGINE_CLI.equalsIgnoreCase(engine) || ENGINE_SOCKET.equalsIgnoreCase(engine);
+        if (!external && NativeLintEngine.load(properties.getProperty(PROPERTY_NAME_NATIVE_LIBRARY_PATH))) {
+            return new NativeLintEngine();
+        } else if (ENGINE_NATIVE.equalsIgnoreCase(engine)) {
+            throw new IOException("Native lint engine could not be loaded");
+        } else if (ENGINE_SOCKET.equalsIgnoreCase(engine) && socketPath.isEmpty()) {
+            throw new IOException("Property %s is not set".formatted(PROPERTY_NAME_SOCKET_PATH));
+        } else if (!ENGINE_CLI.equalsIgnoreCase(engine) && !socketPath.isEmpty()) {
+            return createSocketLintEngine(properties, socketPath);
+        }
+        return createCliLintEngine(properties);
+    }
+
+    /**
+     * Creates the engine of the external implementation. If {@code worker.pool.size} is positive, it runs the lints on
+     * a pool of long-lived workers that is closed when the JVM shuts down. A request that takes longer than
+     * {@code timeout.millis} is aborted, unless it is 0.
+     */
+    private static CliLintEngine createCliLintEngine(Properties properties) {
+        String executablePath = properties.getProperty(PROPERTY_NAME_EXECUTABLE_PATH);
+        long timeoutMillis = Math.max(parseLong(properties.getProperty(PROPERTY_NAME_TIMEOUT), DEFAULT_TIMEOUT_MILLIS), 0);
+        long size = parseLong(properties.getProperty(PROPERTY_NAME_WORKER_POOL_SIZE), 0);
+        LintWorkerPool workerPool = null;
+        if (size > 0) {
+            workerPool = new LintWorkerPool(executablePath, (int) Math.min(size, Integer.MAX_VALUE), timeoutMillis,
+                    useFrames(properties));
+            Runtime.getRuntime().addShutdownHook(new Thread(workerPool::close));
+        }
+        return new CliLintEngine(executablePath,
+                properties.getProperty(PROPERTY_NAME_TMP_DIR),
+                TRUE.equalsIgnoreCase(properties.getProperty(PROPERTY_NAME_DELETE_FILES)),
+                timeoutMillis,
+                workerPool);
+    }
+
+    /**
+     * Creates the engine that sends the lints to the lint server of the host over {@code socket.pool.size}
+     * connections. The connections are closed when the JVM shuts down.
+     */
+    private static SocketLintEngine createSocketLintEngine(Properties properties, String socketPath) {
+        long timeoutMillis = Math.max(parseLong(properties.getProperty(PROPERTY_NAME_TIMEOUT), DEFAULT_TIMEOUT_MILLIS), 0);
+        long size = parseLong(properties.getProperty(PROPERTY_NAME_SOCKET_POOL_SIZE), DEFAULT_SOCKET_POOL_SIZE);
+        SocketLintEngine socketLintEngine = new SocketLintEngine(Paths.get(socketPath),
+                (int) Math.min(Math.max(size, 1), Integer.MAX_VALUE), timeoutMillis, useFrames(properties));
+        Runtime.getRuntime().addShutdownHook(new Thread(socketLintEngine::close));
+        return socketLintEngine;
+    }
+
+    /**
+     * Creates the cache of the lint results of at most {@code result.cache.size} keys that expire after
+     * {@code result.cache.ttl} seconds, or never if it is 0.
+     */
+    private static LintResultCache createResultCache(Properties properties) {
+        long size = parseLong(properties.getProperty(PROPERTY_NAME_RESULT_CACHE_SIZE), DEFAULT_RESULT_CACHE_SIZE);
+        long timeToLive = parseLong(properties.getProperty(PROPERTY_NAME_RESULT_CACHE_TTL), 0);
+        return new LintResultCache((int) Math.min(Math.max(size, 0), Integer.MAX_VALUE), Math.max(timeToLive, 0));
+    }
+
+    /**
+     * Opens the result file that is shared with the other processes on the host, or returns null if
+     * {@code shared.cache.file} is not set or the file cannot be opened. The file is closed when the JVM shuts down.
+     */
+    private static SharedLintResultFile openSharedResultFile(Properties properties) {
+        String path = properties.getProperty(PROPERTY_NAME_SHARED_CACHE_FILE);
+        if (path == null || path.isBlank()) {
+            return null;
+        }
+        long slots = parseLong(properties.getProperty(PROPERTY_NAME_SHARED_CACHE_SLOTS), DEFAULT_SHARED_CACHE_SLOTS);
+        try {
+            SharedLintResultFile sharedFile = SharedLintResultFile.open(Paths.get(path.trim()),
+                    (int) Math.min(Math.max(slots, 0), Integer.MAX_VALUE));
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
                 try {
-                    Files.delete(tmpReq);
-                    Files.delete(tmpResp);
+                    sharedFile.close();
                 } catch (IOException e) {
                     // silently ignore
                 }
+            }));
+            return sharedFile;
+        } catch (IOException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * Returns false if {@code protocol=json} requests JSON lines also from processes that speak the binary frame
+     * protocol, for example to read the traffic while debugging.
+     */
+    private static boolean useFrames(Properties properties) {
+        return !PROTOCOL_JSON.equalsIgnoreCase(properties.getProperty(PROPERTY_NAME_PROTOCOL, "").trim());
+    }
+
+    private static long parseLong(String value, long defaultValue) {
+        try {
+            return value == null ? defaultValue : Long.parseLong(value.trim());
+        } catch (NumberFormatException ex) {
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Where the ML-KEM lints are evaluated, see {@link #route(JavaLint, Function)}.
+     */
+    private enum Mode {
+        IN_PROCESS, EXTERNAL, CROSSCHECK;
+
+        /**
+         * Returns the mode of {@code lint.mode}, in-process if it is neither {@code external} nor {@code crosscheck}.
+         */
+        private static Mode of(Properties properties) {
+            String mode = properties.getProperty(PROPERTY_NAME_LINT_MODE, "").trim();
+            if (LINT_MODE_EXTERNAL.equalsIgnoreCase(mode)) {
+                return EXTERNAL;
+            }
+            if (LINT_MODE_CROSSCHECK.equalsIgnoreCase(mode)) {
+                return CROSSCHECK;
+            }
+            return IN_PROCESS;
+        }
+    }
+
+    /**
+     * The mode of the lints, the cache of the lint results and the engine, which is only created when a lint is first
+     * sent to it. Without properties the lints run in-process and the engine cannot be created. If the engine cannot
+     * be created, the lints sent to it fail until the JVM is restarted.
+     */
+    private static final class Configuration {
+
+        private final Properties properties;
+        private final Mode mode;
+        private final LintResultCache resultCache;
+        private final SharedLintResultFile sharedResultFile;
+        private volatile LintEngine engine;
+        private volatile IOException engineFailure;
+
+        private Configuration(Properties properties, LintEngine engine, IOException engineFailure) {
+            this.properties = properties;
+            this.mode = Mode.of(properties);
+            this.resultCache = createResultCache(properties);
+            this.sharedResultFile = openSharedResultFile(properties);
+            this.engine = engine;
+            this.engineFailure = engineFailure;
+            LintMetrics.start(properties);
+        }
+
+        private static Configuration load() {
+            try {
+                return new Configuration(loadProperties(), null, null);
+            } catch (IOException ex) {
+                return new Configuration(new Properties(), null, ex);
+            }
+        }
+
+        private LintEngine getEngine() throws IOException {
+            LintEngine current = engine;
+            if (current != null) {
+                return current;
+            }
+            if (engineFailure == null) {
+                synchronized (this) {
+                    if (engine == null && engineFailure == null) {
+                        try {
+                            engine = createLintEngine(properties);
+                        } catch (IOException ex) {
+                            engineFailure = ex;
+                        }
+                    }
+                    if (engine != null) {
+                        return engine;
+                    }
+                }
             }
+            IOException failure = engineFailure;
+            throw new IOException(failure.getMessage(), failure);
         }
+
+        /**
+         * Caches the results and shares them with the other processes of the host.
+         */
+        private void put(String id, String engineVersion, Map<String, String> results) {
+            resultCache.put(id, engineVersion, results);
+            if (sharedResultFile != null) {
+                sharedResultFile.put(id, engineVersion, results);
+            }
+        }
+
     }
 
 }
@@ -0,0 +1,124 @@
+package de.mtg.jlint.pqc.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Runs one external process with a deadline.
+ * <p>
+ * stdout and stderr are drained concurrently, so the process never blocks on a full pipe. The calling thread only
+ * waits for the exit of the process, at most until the deadline. A process that misses the deadline is terminated
+ * together with all of its descendants.
+ */
+final class ExternalProcess {
+
+    private static final int MAX_DIAGNOSTICS_LENGTH = 4096;
+
+    private ExternalProcess() {
+        // empty
+    }
+
+    /**
+     * Runs the command and waits for it to exit successfully.
+     *
+     * @param timeoutMillis the deadline, or 0 to wait as long as the process runs.
+     * @throws LintTimeoutException if the process did not exit before the deadline.
+     * @throws IOException if the process could not be started or exited with a non-zero exit code.
+     */
+    static void run(List<String> command, long timeoutMillis) throws IOException {
+        LintEvents.ProcessEvent event = new LintEvents.ProcessEvent();
+        event.begin();
+        event.exitCode = -1;
+        long start = System.nanoTime();
+        Process process;
+        try {
+            process = new ProcessBuilder(command).start();
+        } catch (IOException ioException) {
+            commit(event, command);
+            throw ioException;
+        }
+        long started = System.nanoTime();
+        LintMetrics.record(LintMetrics.Phase.CONNECT, start);
+        Future<?> stdout = LintExecutors.getTaskExecutor().submit(() -> drain(process.getInputStream()));
+        Future<String> stderr = LintExecutors.getTaskExecutor().submit(() -> drain(process.getErrorStream()));
+        try {
+            if (timeoutMillis > 0) {
+                if (!process.waitFor(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                    event.timedOut = true;
+                    destroyTree(process.toHandle());
+                    throw new LintTimeoutException(timeoutMillis);
+                }
+            } else {
+                process.waitFor();
+            }
+            LintMetrics.record(LintMetrics.Phase.ENGINE, started);
+            int exitCode = process.exitValue();
+            event.exitCode = exitCode;
+            if (exitCode != 0) {
+                throw new IOException("External lint failed with exit code %d: %s".formatted(exitCode, getDiagnostics(stderr)));
+            }
+        } catch (InterruptedException e) {
+            destroyTree(process.toHandle());
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the external lint");
+        } finally {
+            stdout.cancel(true);
+            stderr.cancel(true);
+            commit(event, command);
+        }
+    }
+
+    private static void commit(LintEvents.ProcessEvent event, List<String> command) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.command = String.join(" ", command);
+            event.commit();
+        }
+    }
+
+    /**
+     * Terminates the process and all of its descendants.
+     */
+    static void destroyTree(ProcessHandle process) {
+        process.descendants().forEach(ProcessHandle::destroyForcibly);
+        process.destroyForcibly();
+    }
+
+    /**
+     * Reads the stream until its end and returns its last characters.
+     */
+    private static String drain(InputStream inputStream) throws IOException {
+        byte[] buffer = new byte[MAX_DIAGNOSTICS_LENGTH];
+        byte[] tail = new byte[MAX_DIAGNOSTICS_LENGTH];
+        int tailLength = 0;
+        try (InputStream stream = inputStream) {
+            int read;
+            while ((read = stream.read(buffer)) != -1) {
+                int kept = Math.min(tailLength, MAX_DIAGNOSTICS_LENGTH - read);
+                System.arraycopy(tail, tailLength - kept, tail, 0, kept);
+                System.arraycopy(buffer, 0, tail, kept, read);
+                tailLength = kept + read;
+            }
+        }
+        return new String(tail, 0, tailLength, StandardCharsets.UTF_8).trim();
+    }
+
+    private static String getDiagnostics(Future<String> stderr) {
+        try {
+            return stderr.get(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return "";
+        } catch (ExecutionException | TimeoutException e) {
+            return "";
+        }
+    }
+
+}
@@ -0,0 +1,124 @@
+package de.mtg.jlint.pqc.util;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.util.Collection;
+
+import org.bouncycastle.crypto.digests.SHA256Digest;
+
+/**
+ * A set of SHA-256 fingerprints in an open-addressed hash table.
+ * <p>
+ * Every slot of the table consists of four longs, the 64-bit prefix of the fingerprint followed by the rest of it. A
+ * lookup probes the prefixes and compares the rest of the fingerprint only if a prefix matches, so its cost does not
+ * grow with the number of fingerprints. The table is at most half full, and a slot whose longs are all zero is empty.
+ * <p>
+ * Instances are immutable and thread-safe. Lookups do not allocate.
+ */
+final class FingerprintIndex implements FingerprintSet {
+
+    static final int FINGERPRINT_LENGTH = 32;
+
+    private static final int SLOT_LONGS = FINGERPRINT_LENGTH / Long.BYTES;
+
+    private static final VarHandle LONG = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+
+    private static final ThreadLocal<Fingerprinter> FINGERPRINTER = ThreadLocal.withInitial(Fingerprinter::new);
+
+    private final long[] table;
+    private final int mask;
+    private final int size;
+
+    /**
+     * Indexes the given fingerprints. Duplicates are indexed once.
+     */
+    FingerprintIndex(Collection<byte[]> fingerprints) {
+        int slots = Integer.highestOneBit(Math.max(1, fingerprints.size()) * 2 - 1) << 1;
+        this.table = new long[slots * SLOT_LONGS];
+        this.mask = slots - 1;
+        int inserted = 0;
+        for (byte[] fingerprint : fingerprints) {
+            if (insert(fingerprint)) {
+                inserted++;
+            }
+        }
+        this.size = inserted;
+    }
+
+    /**
+     * Returns the SHA-256 fingerprint of the data in a buffer of the current thread, which is overwritten by the next
+     * call on the same thread.
+     */
+    static byte[] fingerprint(byte[] data) {
+        return FINGERPRINTER.get().fingerprint(data);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean contains(byte[] fingerprint) {
+        long prefix = (long) LONG.get(fingerprint, 0);
+        for (int slot = (int) prefix & mask; ; slot = (slot + 1) & mask) {
+            int position = slot * SLOT_LONGS;
+            long stored = table[position];
+            if (stored == prefix && matches(position, fingerprint)) {
+                return true;
+            }
+            if (stored == 0 && isEmpty(position)) {
+                return false;
+            }
+        }
+    }
+
+    private boolean insert(byte[] fingerprint) {
+        long prefix = (long) LONG.get(fingerprint, 0);
+        for (int slot = (int) prefix & mask; ; slot = (slot + 1) & mask) {
+            int position = slot * SLOT_LONGS;
+            if (table[position] == prefix && matches(position, fingerprint)) {
+                return false;
+            }
+            if (table[position] == 0 && isEmpty(position)) {
+                for (int i = 0; i < SLOT_LONGS; i++) {
+                    table[position + i] = (long) LONG.get(fingerprint, i * Long.BYTES);
+                }
+                return true;
+            }
+        }
+    }
+
+    private boolean matches(int position, byte[] fingerprint) {
+        for (int i = 1; i < SLOT_LONGS; i++) {
+            if (table[position + i] != (long) LONG.get(fingerprint, i * Long.BYTES)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean isEmpty(int position) {
+        for (int i = 1; i < SLOT_LONGS; i++) {
+            if (table[position + i] != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static final class Fingerprinter {
+
+        private final SHA256Digest digest = new SHA256Digest();
+        private final byte[] fingerprint = new byte[FINGERPRINT_LENGTH];
+
+        private byte[] fingerprint(byte[] data) {
+            digest.update(data, 0, data.length);
+            digest.doFinal(fingerprint, 0);
+            return fingerprint;
+        }
+
+    }
+
+}
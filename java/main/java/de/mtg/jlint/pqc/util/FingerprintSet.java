@@ -0,0 +1,15 @@
+package de.mtg.jlint.pqc.util;
+
+/**
+ * A set of SHA-256 fingerprints, for example of DER encoded public keys.
+ */
+interface FingerprintSet {
+
+    int size();
+
+    /**
+     * Returns whether the fingerprint is in this set.
+     */
+    boolean contains(byte[] fingerprint);
+
+}
@@ -1,9 +1,13 @@
 package de.mtg.jlint.pqc.util;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.net.URISyntaxException;
+import java.net.URL;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.security.KeyFactory;
 import java.security.NoSuchAlgorithmException;
 import java.security.NoSuchProviderException;
@@ -12,58 +16,245 @@ import java.security.interfaces.RSAPrivateCrtKey;
 import java.security.spec.InvalidKeySpecException;
 import java.security.spec.PKCS8EncodedKeySpec;
 import java.security.spec.RSAPublicKeySpec;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
 
 import org.bouncycastle.jce.provider.BouncyCastleProvider;
 import org.bouncycastle.util.encoders.Base64;
+import org.bouncycastle.util.encoders.DecoderException;
 
+/**
+ * The public keys whose private keys are known, for example because they are published as examples.
+ * <p>
+ * The keys are indexed by the SHA-256 fingerprint of their DER encoded SubjectPublicKeyInfo, see
+ * {@link FingerprintSet}, so that a lookup takes the same time regardless of the number of known keys and does not
+ * allocate.
+ * <p>
+ * The source of the keys is the PEM resource {@code knownPublicKeys.dat}. {@link KnownPublicKeysCompiler} compiles it
+ * to the committed binary resource {@code knownPublicKeys.bin}, which is loaded without parsing and without
+ * cryptography other than hashing the PEM resource to check that the binary one is up to date, see
+ * {@link SortedFingerprintFile}. Without an up to date binary resource, the PEM resource is parsed.
+ * <p>
+ * Additionally, the fingerprint files in the property {@code known.keys.files} of {@code jzlint.properties} are
+ * blocklists of known keys, for example large datasets of weak keys. They are compiled with
+ * {@link KnownPublicKeysCompiler} as well, and memory-mapped behind a Bloom filter, see
+ * {@link PrefilteredFingerprintSet}. The blocklists are reloaded when their files change, see
+ * {@link BlocklistWatcher}. A reload builds a new immutable snapshot of the blocklists and replaces the previous one
+ * atomically, so lookups neither lock nor see a partially loaded snapshot. The state of the blocklists is registered as
+ * an MXBean, see {@link KnownPublicKeysMXBean}.
+ */
 public class KnownPublicKeys {
 
-    private static KnownPublicKeys knownPublicKeys;
+    static final String RESOURCE_NAME = "knownPublicKeys.dat";
+    static final String COMPILED_RESOURCE_NAME = "knownPublicKeys.bin";
+    static final String PROPERTY_NAME_BLOCKLIST_FILES = "known.keys.files";
+    static final String OBJECT_NAME = "de.mtg.jlint.pqc:type=KnownPublicKeys";
+
+    private static volatile KnownPublicKeys knownPublicKeys;
+
+    private List<String> bas64EncodedPublicKeys;
+
+    private final FingerprintSet index;
+    private final List<Path> blocklistFiles;
+    private final AtomicLong reloads = new AtomicLong();
+    private final AtomicLong failedReloads = new AtomicLong();
 
-    private final List<String> bas64EncodedPublicKeys;
+    private volatile Blocklists blocklists;
 
-    private KnownPublicKeys(List<String> bas64EncodedPublicKeys) {
+    private KnownPublicKeys(FingerprintSet index, List<Path> blocklistFiles, Blocklists blocklists,
+                            List<String> bas64EncodedPublicKeys) {
+        this.index = index;
+        this.blocklistFiles = blocklistFiles;
+        this.blocklists = blocklists;
         this.bas64EncodedPublicKeys = bas64EncodedPublicKeys;
     }
 
-    public static synchronized KnownPublicKeys getInstance() throws NoSuchAlgorithmException, InvalidKeySpecException, NoSuchProviderException {
+    /**
+     * Returns the known public keys. Only the first call loads them and may block, later calls do not lock.
+     *
+     * @throws IOException if a configured blocklist file cannot be read or is not a fingerprint file.
+     */
+    public static KnownPublicKeys getInstance() throws NoSuchAlgorithmException, InvalidKeySpecException, NoSuchProviderException, IOException {
+        KnownPublicKeys instance = knownPublicKeys;
+        if (instance != null) {
+            return instance;
+        }
+        synchronized (KnownPublicKeys.class) {
+            if (knownPublicKeys == null) {
+                knownPublicKeys = load();
+                knownPublicKeys.start();
+            }
+            return knownPublicKeys;
+        }
+    }
 
-        if (knownPublicKeys == null) {
-            List<String> bas64EncodedPublicKeys = new ArrayList<>();
-            String content = getContent();
-            String[] keys = content.split("-----END");
+    private static KnownPublicKeys load() throws NoSuchAlgorithmException, InvalidKeySpecException, NoSuchProviderException, IOException {
+        LintEvents.KnownPublicKeysLoadEvent event = new LintEvents.KnownPublicKeysLoadEvent();
+        event.begin();
+        byte[] content = getContent();
+        SortedFingerprintFile compiled = loadCompiled(content);
+        List<Path> blocklistFiles = getBlocklistFiles();
+        Blocklists blocklists = Blocklists.load(blocklistFiles);
+        KnownPublicKeys loaded;
+        if (compiled != null) {
+            loaded = new KnownPublicKeys(compiled, blocklistFiles, blocklists, null);
+        } else {
+            if (content == null) {
+                throw new IllegalStateException("Resource %s not found".formatted(RESOURCE_NAME));
+            }
+            List<String> bas64EncodedPublicKeys = parse(content);
+            loaded = new KnownPublicKeys(new FingerprintIndex(getFingerprints(bas64EncodedPublicKeys)),
+                    blocklistFiles, blocklists, bas64EncodedPublicKeys);
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.keys = loaded.index.size();
+            event.size = compiled != null ? compiled.getByteSize() : content.length;
+            event.compiled = compiled != null;
+            event.blocklistKeys = blocklists.keys();
+            event.commit();
+        }
+        return loaded;
+    }
 
-            for (int i = 0; i < keys.length - 1; i++) {
-                String base64EncodedPublicKey = getBase64EncodedPublicKey(keys[i]);
-                bas64EncodedPublicKeys.add(base64EncodedPublicKey);
+    /**
+     * Registers the MXBean and watches the blocklist files. The blocklists are an addition to the resource, so
+     * failures are ignored.
+     */
+    private void start() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(
+                    new StandardMBean(new Metrics(), KnownPublicKeysMXBean.class, true), new ObjectName(OBJECT_NAME));
+        } catch (JMException ex) {
+            // silently ignore, for example if another class loader registered the MXBean already
+        }
+        if (!blocklistFiles.isEmpty()) {
+            try {
+                BlocklistWatcher.start(blocklistFiles, this::reload);
+            } catch (IOException | RuntimeException ex) {
+                // silently ignore, the blocklists are not reloaded
             }
-            knownPublicKeys = new KnownPublicKeys(bas64EncodedPublicKeys);
         }
+    }
 
-        return knownPublicKeys;
+    /**
+     * Loads the blocklist files again and replaces the snapshot of the blocklists. If a file cannot be loaded, for
+     * example because it is being replaced, the previous snapshot remains.
+     */
+    void reload() {
+        LintEvents.KnownPublicKeysReloadEvent event = new LintEvents.KnownPublicKeysReloadEvent();
+        event.begin();
+        boolean failed = false;
+        try {
+            this.blocklists = Blocklists.load(blocklistFiles);
+            reloads.incrementAndGet();
+        } catch (IOException | RuntimeException ex) {
+            failed = true;
+            failedReloads.incrementAndGet();
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.blocklistKeys = this.blocklists.keys();
+            event.failed = failed;
+            event.commit();
+        }
     }
 
-    private static String getContent() {
-        byte[] buffer = new byte[1024];
-        byte[] file;
-        int length;
+    /**
+     * Returns the content of the PEM resource, or null if it does not exist.
+     */
+    private static byte[] getContent() {
         ClassLoader classLoader = KnownPublicKeys.class.getClassLoader();
-        try (InputStream inputStream = classLoader.getResourceAsStream("knownPublicKeys.dat");
-                ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
+        try (InputStream inputStream = classLoader.getResourceAsStream(RESOURCE_NAME)) {
+            return inputStream != null ? inputStream.readAllBytes() : null;
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
 
-            while ((length = inputStream.read(buffer)) != -1) {
-                baos.write(buffer, 0, length);
+    /**
+     * Loads the binary resource. It is memory-mapped if it is a file and read if it is in a jar.
+     *
+     * @param content the content of the PEM resource, or null if it does not exist.
+     * @return the binary resource, or null if it does not exist, cannot be read or was not compiled from the content.
+     */
+    private static SortedFingerprintFile loadCompiled(byte[] content) {
+        URL url = KnownPublicKeys.class.getClassLoader().getResource(COMPILED_RESOURCE_NAME);
+        if (url == null) {
+            return null;
+        }
+        SortedFingerprintFile compiled;
+        try {
+            if ("file".equals(url.getProtocol())) {
+                compiled = SortedFingerprintFile.map(Paths.get(url.toURI()));
+            } else {
+                try (InputStream inputStream = url.openStream()) {
+                    compiled = SortedFingerprintFile.read(inputStream);
+                }
             }
+        } catch (IOException | URISyntaxException | RuntimeException ex) {
+            // fall back to the PEM resource
+            return null;
+        }
+        if (content != null && !compiled.isCompiledFrom(FingerprintIndex.fingerprint(content))) {
+            return null;
+        }
+        return compiled;
+    }
 
-            file = baos.toByteArray();
+    /**
+     * Returns the absolute paths of the blocklist files configured in jzlint.properties.
+     */
+    private static List<Path> getBlocklistFiles() {
+        Properties properties;
+        try {
+            properties = ExternalLintUtils.loadProperties();
         } catch (IOException e) {
-            throw new RuntimeException(e);
+            // without jzlint.properties there are no blocklists
+            return List.of();
+        }
+        List<Path> files = new ArrayList<>();
+        for (String file : properties.getProperty(PROPERTY_NAME_BLOCKLIST_FILES, "").split(",")) {
+            if (!file.isBlank()) {
+                files.add(Paths.get(file.trim()).toAbsolutePath().normalize());
+            }
+        }
+        return List.copyOf(files);
+    }
+
+    /**
+     * Parses the PEM encoded keys and returns their base64 encoded public keys. A key that is neither a public key nor
+     * an RSA private key is returned as null.
+     */
+    static List<String> parse(byte[] content) throws NoSuchAlgorithmException, InvalidKeySpecException, NoSuchProviderException {
+        List<String> bas64EncodedPublicKeys = new ArrayList<>();
+        String[] keys = new String(content, StandardCharsets.UTF_8).split("-----END");
+
+        for (int i = 0; i < keys.length - 1; i++) {
+            String base64EncodedPublicKey = getBase64EncodedPublicKey(keys[i]);
+            bas64EncodedPublicKeys.add(base64EncodedPublicKey);
         }
+        return bas64EncodedPublicKeys;
+    }
 
-        String content = new String(file, StandardCharsets.UTF_8);
-        return content;
+    /**
+     * Returns the SHA-256 fingerprints of the DER encodings of the base64 encoded public keys, skipping null.
+     */
+    static List<byte[]> getFingerprints(List<String> bas64EncodedPublicKeys) {
+        List<byte[]> fingerprints = new ArrayList<>(bas64EncodedPublicKeys.size());
+        for (String base64EncodedPublicKey : bas64EncodedPublicKeys) {
+            if (base64EncodedPublicKey != null) {
+                fingerprints.add(FingerprintIndex.fingerprint(Base64.decode(base64EncodedPublicKey)).clone());
+            }
+        }
+        return fingerprints;
     }
 
     private static String getBase64EncodedPublicKey(String content)
@@ -118,16 +309,121 @@ public class KnownPublicKeys {
                 line.trim().startsWith("-----END RSA PRIVATE KEY-----");
     }
 
-    public List<String> getEncodedPublicKeys() {
+    /**
+     * Returns the base64 encoded public keys. If they were loaded from the binary resource, the PEM resource is parsed
+     * on the first call.
+     */
+    public synchronized List<String> getEncodedPublicKeys() {
+        if (this.bas64EncodedPublicKeys == null) {
+            byte[] content = getContent();
+            try {
+                this.bas64EncodedPublicKeys = content != null ? parse(content) : List.of();
+            } catch (NoSuchAlgorithmException | InvalidKeySpecException | NoSuchProviderException ex) {
+                throw new IllegalStateException(ex);
+            }
+        }
         return this.bas64EncodedPublicKeys;
     }
 
+    /**
+     * Returns whether the base64 encoded public key is known. Prefer {@link #contains(byte[])}, which does not need to
+     * decode the key.
+     */
     public boolean contains(String publicKey) {
-        return this.bas64EncodedPublicKeys.contains(publicKey);
+        byte[] encodedPublicKey;
+        try {
+            encodedPublicKey = Base64.decode(publicKey);
+        } catch (DecoderException ex) {
+            // a key that cannot be decoded is not known
+            return false;
+        }
+        return contains(encodedPublicKey);
     }
 
+    /**
+     * Returns whether the DER encoded SubjectPublicKeyInfo is known, either from the resource or from a blocklist.
+     */
     public boolean contains(byte[] publicKey) {
-        return this.bas64EncodedPublicKeys.contains(Base64.toBase64String(publicKey));
+        LintEvents.KnownPublicKeysLookupEvent event = new LintEvents.KnownPublicKeysLookupEvent();
+        event.begin();
+        byte[] fingerprint = FingerprintIndex.fingerprint(publicKey);
+        boolean found = index.contains(fingerprint);
+        FingerprintSet[] sets = blocklists.sets();
+        for (int i = 0; !found && i < sets.length; i++) {
+            found = sets[i].contains(fingerprint);
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.found = found;
+            event.commit();
+        }
+        return found;
+    }
+
+    /**
+     * An immutable snapshot of the blocklists.
+     *
+     * @param loadTime   the time when the loading started.
+     * @param loadMillis how long the loading took.
+     */
+    private record Blocklists(FingerprintSet[] sets, long keys, Instant loadTime, double loadMillis) {
+
+        /**
+         * Memory-maps the blocklist files.
+         *
+         * @throws IOException if a file cannot be read or is not a fingerprint file.
+         */
+        static Blocklists load(List<Path> files) throws IOException {
+            Instant loadTime = Instant.now();
+            long start = System.nanoTime();
+            FingerprintSet[] sets = new FingerprintSet[files.size()];
+            long keys = 0;
+            for (int i = 0; i < sets.length; i++) {
+                sets[i] = PrefilteredFingerprintSet.map(files.get(i));
+                keys += sets[i].size();
+            }
+            return new Blocklists(sets, keys, loadTime, (System.nanoTime() - start) / 1e6);
+        }
+
+    }
+
+    private final class Metrics implements KnownPublicKeysMXBean {
+
+        @Override
+        public int getResourceKeys() {
+            return index.size();
+        }
+
+        @Override
+        public long getBlocklistKeys() {
+            return blocklists.keys();
+        }
+
+        @Override
+        public List<String> getBlocklistFiles() {
+            return blocklistFiles.stream().map(Path::toString).toList();
+        }
+
+        @Override
+        public String getBlocklistLoadTime() {
+            return blocklists.loadTime().toString();
+        }
+
+        @Override
+        public double getBlocklistLoadMillis() {
+            return blocklists.loadMillis();
+        }
+
+        @Override
+        public long getReloads() {
+            return reloads.get();
+        }
+
+        @Override
+        public long getFailedReloads() {
+            return failedReloads.get();
+        }
+
     }
 
 }
@@ -0,0 +1,134 @@
+package de.mtg.jlint.pqc.util;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.GeneralSecurityException;
+import java.security.Security;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.bouncycastle.crypto.digests.SHA256Digest;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.bouncycastle.util.encoders.DecoderException;
+import org.bouncycastle.util.encoders.Hex;
+
+/**
+ * Compiles the PEM resource of the known public keys to the binary resource, see {@link KnownPublicKeys} and
+ * {@link SortedFingerprintFile}.
+ * <p>
+ * Both resources are committed. Whenever the PEM resource changes, compile the binary resource again and commit it
+ * too:
+ * <pre>
+ * java -cp classes:bcprov.jar de.mtg.jlint.pqc.util.KnownPublicKeysCompiler java/main/resources/knownPublicKeys.dat java/main/resources/knownPublicKeys.bin
+ * </pre>
+ * The binary resource records the digest of the PEM resource, so that a binary resource that was not compiled again
+ * after the PEM resource changed is ignored at runtime, and the tests fail until it is compiled again.
+ * <p>
+ * With the option {@code --fingerprints}, it compiles a text file of hex encoded SHA-256 fingerprints of DER encoded
+ * SubjectPublicKeyInfos, one per line, to a blocklist file for the property {@code known.keys.files}. Empty lines and
+ * lines starting with {@code #} are skipped. A blocklist can also be compiled from PEM encoded keys.
+ */
+public final class KnownPublicKeysCompiler {
+
+    private static final String FINGERPRINTS_OPTION = "--fingerprints";
+
+    private KnownPublicKeysCompiler() {
+        // empty
+    }
+
+    public static void main(String[] args) throws IOException, GeneralSecurityException {
+        boolean fingerprints = args.length == 3 && FINGERPRINTS_OPTION.equals(args[0]);
+        if (args.length != 2 && !fingerprints) {
+            System.err.println("Usage: KnownPublicKeysCompiler [" + FINGERPRINTS_OPTION + "] <knownPublicKeys.dat> <knownPublicKeys.bin>");
+            System.exit(2);
+        }
+        Path source = Paths.get(args[args.length - 2]);
+        Path target = Paths.get(args[args.length - 1]);
+        int keys = fingerprints ? compileFingerprints(source, target) : compile(source, target);
+        System.out.printf("Compiled %d known public keys to %s%n", keys, target);
+    }
+
+    /**
+     * Compiles the PEM file to the binary file. The binary file is replaced atomically, such that a running lint never
+     * maps a partially written file.
+     *
+     * @return the number of distinct public keys.
+     */
+    public static int compile(Path pemFile, Path binaryFile) throws IOException, GeneralSecurityException {
+        if (Security.getProvider(BouncyCastleProvider.PROVIDER_NAME) == null) {
+            Security.addProvider(new BouncyCastleProvider());
+        }
+        byte[] content = Files.readAllBytes(pemFile);
+        List<byte[]> fingerprints = KnownPublicKeys.getFingerprints(KnownPublicKeys.parse(content));
+        return write(binaryFile, fingerprints, FingerprintIndex.fingerprint(content).clone());
+    }
+
+    /**
+     * Compiles the text file of hex encoded fingerprints to the binary file. The binary file is replaced atomically.
+     *
+     * @return the number of distinct fingerprints.
+     * @throws IOException if the text file cannot be read or a line is not a hex encoded SHA-256 fingerprint.
+     */
+    public static int compileFingerprints(Path textFile, Path binaryFile) throws IOException {
+        List<byte[]> fingerprints = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(textFile, StandardCharsets.US_ASCII)) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                byte[] fingerprint;
+                try {
+                    fingerprint = Hex.decode(line);
+                } catch (DecoderException ex) {
+                    fingerprint = null;
+                }
+                if (fingerprint == null || fingerprint.length != FingerprintIndex.FINGERPRINT_LENGTH) {
+                    throw new IOException("Line %d of %s is not a SHA-256 fingerprint".formatted(lineNumber, textFile));
+                }
+                fingerprints.add(fingerprint);
+            }
+        }
+        return write(binaryFile, fingerprints, digest(textFile));
+    }
+
+    private static byte[] digest(Path file) throws IOException {
+        SHA256Digest digest = new SHA256Digest();
+        byte[] buffer = new byte[8192];
+        try (InputStream in = Files.newInputStream(file)) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        byte[] result = new byte[digest.getDigestSize()];
+        digest.doFinal(result, 0);
+        return result;
+    }
+
+    private static int write(Path binaryFile, List<byte[]> fingerprints, byte[] sourceDigest) throws IOException {
+        Path tmpFile = binaryFile.resolveSibling(binaryFile.getFileName() + ".tmp");
+        try {
+            int keys;
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(tmpFile))) {
+                keys = SortedFingerprintFile.write(out, fingerprints, sourceDigest);
+            }
+            Files.move(tmpFile, binaryFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return keys;
+        } finally {
+            Files.deleteIfExists(tmpFile);
+        }
+    }
+
+}
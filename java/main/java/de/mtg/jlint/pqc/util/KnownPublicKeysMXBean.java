@@ -0,0 +1,45 @@
+package de.mtg.jlint.pqc.util;
+
+import java.util.List;
+
+/**
+ * The state of the {@link KnownPublicKeys}, registered as {@value KnownPublicKeys#OBJECT_NAME} in the platform MBean
+ * server.
+ * <p>
+ * The blocklists are the fingerprint files configured in {@code known.keys.files}. They are reloaded when they change.
+ */
+public interface KnownPublicKeysMXBean {
+
+    /**
+     * Returns the number of known public keys of the resource.
+     */
+    int getResourceKeys();
+
+    /**
+     * Returns the number of known public keys of the loaded blocklists.
+     */
+    long getBlocklistKeys();
+
+    List<String> getBlocklistFiles();
+
+    /**
+     * Returns the time when the loaded blocklists were loaded, in ISO-8601 format.
+     */
+    String getBlocklistLoadTime();
+
+    /**
+     * Returns how long loading the loaded blocklists took.
+     */
+    double getBlocklistLoadMillis();
+
+    /**
+     * Returns the number of times the blocklists were reloaded after a change.
+     */
+    long getReloads();
+
+    /**
+     * Returns the number of reloads that failed. After a failed reload, the previous blocklists remain loaded.
+     */
+    long getFailedReloads();
+
+}
@@ -0,0 +1,108 @@
+package de.mtg.jlint.pqc.util;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock-free histogram of latencies. The upper bounds of the 21 buckets double from the first bound, by default
+ * from 10 microseconds up to about 10 seconds, longer latencies are counted in an overflow bucket.
+ */
+final class LatencyHistogram {
+
+    private static final long DEFAULT_FIRST_BOUND_NANOS = 10_000;
+    private static final int BOUNDS = 21;
+
+    private final long firstBoundNanos;
+    private final LongAdder[] counts = new LongAdder[BOUNDS + 1];
+    private final LongAdder sumNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+    LatencyHistogram() {
+        this(DEFAULT_FIRST_BOUND_NANOS);
+    }
+
+    /**
+     * @param firstBoundNanos the upper bound of the first bucket.
+     */
+    LatencyHistogram(long firstBoundNanos) {
+        this.firstBoundNanos = firstBoundNanos;
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = new LongAdder();
+        }
+    }
+
+    void record(long nanos) {
+        long latency = Math.max(nanos, 0);
+        int bucket = latency <= firstBoundNanos
+                ? 0
+                : 64 - Long.numberOfLeadingZeros((latency - 1) / firstBoundNanos);
+        counts[Math.min(bucket, BOUNDS)].increment();
+        sumNanos.add(latency);
+        maxNanos.accumulate(latency);
+    }
+
+    /**
+     * Returns the upper bound of bucket i in nanoseconds, or {@link Long#MAX_VALUE} for the overflow bucket.
+     */
+    long getBoundNanos(int bucket) {
+        return bucket < BOUNDS ? firstBoundNanos << bucket : Long.MAX_VALUE;
+    }
+
+    static int getBuckets() {
+        return BOUNDS + 1;
+    }
+
+    /**
+     * Returns the number of latencies in each bucket. The counts are read one after the other while latencies may be
+     * recorded, so they are not an atomic snapshot.
+     */
+    long[] getCounts() {
+        long[] snapshot = new long[counts.length];
+        for (int i = 0; i < counts.length; i++) {
+            snapshot[i] = counts[i].sum();
+        }
+        return snapshot;
+    }
+
+    long getCount() {
+        long count = 0;
+        for (LongAdder bucket : counts) {
+            count += bucket.sum();
+        }
+        return count;
+    }
+
+    long getSumNanos() {
+        return sumNanos.sum();
+    }
+
+    long getMaxNanos() {
+        return maxNanos.get();
+    }
+
+    /**
+     * Returns the upper bound of the bucket that holds the given quantile, or the maximum for the overflow bucket.
+     *
+     * @param quantile between 0 and 1.
+     */
+    long getQuantileNanos(double quantile) {
+        long[] snapshot = getCounts();
+        long total = 0;
+        for (long count : snapshot) {
+            total += count;
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(quantile * total);
+        long seen = 0;
+        for (int i = 0; i < snapshot.length; i++) {
+            seen += snapshot[i];
+            if (seen >= rank && snapshot[i] > 0) {
+                return i < BOUNDS ? Math.min(getBoundNanos(i), getMaxNanos()) : getMaxNanos();
+            }
+        }
+        return getMaxNanos();
+    }
+
+}
@@ -0,0 +1,60 @@
+package de.mtg.jlint.pqc.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * A reusable buffer for one line of the external lint protocol. Lines are read and written as bytes, without decoding
+ * them to strings.
+ */
+final class LineBuffer extends ByteArrayOutputStream {
+
+    LineBuffer() {
+        super(1024);
+    }
+
+    /**
+     * Replaces the content of this buffer with the next line of the stream, without the line break.
+     *
+     * @param in a buffered stream.
+     * @return false if the stream ended before a line started.
+     */
+    boolean readLine(InputStream in) throws IOException {
+        reset();
+        int b = in.read();
+        if (b == -1) {
+            return false;
+        }
+        while (b != -1 && b != '\n') {
+            write(b);
+            b = in.read();
+        }
+        return true;
+    }
+
+    /**
+     * Removes the first bytes of this buffer, for example the responses that were parsed.
+     */
+    void discard(int length) {
+        System.arraycopy(buf, length, buf, 0, count - length);
+        count -= length;
+    }
+
+    /**
+     * Returns the internal array, which is valid up to {@link #size()} until this buffer is changed.
+     */
+    byte[] array() {
+        return buf;
+    }
+
+    boolean isBlank() {
+        for (int i = 0; i < count; i++) {
+            if (buf[i] != ' ' && buf[i] != '\t' && buf[i] != '\r') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+}
@@ -0,0 +1,276 @@
+package de.mtg.jlint.pqc.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A connection to the lint server of the Rust implementation on a Unix domain socket.
+ * <p>
+ * Requests are pipelined: any number of threads may send requests without waiting for the responses of earlier
+ * ones. The server answers the requests of a connection in order, so a reader task parses the responses and
+ * completes them in the order their requests were written. Requests are sent as binary frames if the server speaks
+ * the frame protocol, see {@link LintProtocol}, and as JSON lines otherwise.
+ */
+final class LintConnection implements Closeable {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private static final String TRANSPORT = "socket";
+
+    private final SocketChannel channel;
+    private final Queue<PendingResponse> pendingResponses = new ArrayDeque<>();
+    private final LineBuffer requestBuffer = new LineBuffer();
+    private final int protocolVersion;
+    private boolean closed;
+
+    private LintConnection(SocketChannel channel, int protocolVersion) {
+        this.channel = channel;
+        this.protocolVersion = protocolVersion;
+    }
+
+    /**
+     * Opens a connection.
+     *
+     * @param frames true to negotiate the binary frame protocol with the server.
+     * @param timeoutMillis the deadline of the negotiation, or 0 to wait as long as the connection is open.
+     */
+    static LintConnection open(UnixDomainSocketAddress address, boolean frames, long timeoutMillis) throws IOException {
+        long start = System.nanoTime();
+        SocketChannel channel = SocketChannel.open(StandardProtocolFamily.UNIX);
+        int protocolVersion = LintProtocol.VERSION_JSON;
+        try {
+            channel.connect(address);
+            if (frames) {
+                protocolVersion = negotiate(channel, timeoutMillis);
+            }
+        } catch (IOException ex) {
+            channel.close();
+            throw ex;
+        }
+        LintConnection connection = new LintConnection(channel, protocolVersion);
+        LintExecutors.getTaskExecutor().execute(connection::readResponses);
+        LintMetrics.record(LintMetrics.Phase.CONNECT, start);
+        return connection;
+    }
+
+    private static int negotiate(SocketChannel channel, long timeoutMillis) throws IOException {
+        ScheduledFuture<?> watchdog = null;
+        if (timeoutMillis > 0) {
+            watchdog = LintExecutors.getWatchdog().schedule(() -> {
+                try {
+                    channel.close();
+                } catch (IOException e) {
+                    // silently ignore
+                }
+            }, timeoutMillis, TimeUnit.MILLISECONDS);
+        }
+        try {
+            // the channel streams do not buffer, so nothing after the answer is consumed
+            LintProtocol.writeHello(Channels.newOutputStream(channel));
+            return LintProtocol.readHello(Channels.newInputStream(channel));
+        } catch (IOException ioException) {
+            if (!channel.isOpen()) {
+                throw new LintTimeoutException(timeoutMillis);
+            }
+            throw ioException;
+        } finally {
+            if (watchdog != null) {
+                watchdog.cancel(false);
+            }
+        }
+    }
+
+    /**
+     * Sends one request to the server.
+     *
+     * @return the future response, which fails if the server answers malformed data.
+     * @throws IOException if the connection is closed or the request could not be written.
+     */
+    CompletableFuture<ExternalLintResponse> send(ExternalLintRequest request) throws IOException {
+        CompletableFuture<ExternalLintResponse> response = new CompletableFuture<>();
+        synchronized (this) {
+            if (closed) {
+                throw new IOException("Lint connection is closed");
+            }
+            long start = System.nanoTime();
+            requestBuffer.reset();
+            boolean frame = protocolVersion != LintProtocol.VERSION_JSON && request.hasFrame();
+            if (frame) {
+                request.writeFrameTo(requestBuffer);
+            } else {
+                request.writeTo(requestBuffer);
+                requestBuffer.write('\n');
+            }
+            PendingResponse pendingResponse = new PendingResponse(response);
+            LintEvents.EngineEvent event = new LintEvents.EngineEvent();
+            if (event.isEnabled()) {
+                // the event ends on the reader when the response arrives
+                event.begin();
+                pendingResponse.event = event;
+                pendingResponse.request = request;
+                pendingResponse.protocol = frame ? LintEvents.PROTOCOL_FRAME : LintEvents.PROTOCOL_JSON;
+                pendingResponse.bytesWritten = requestBuffer.size();
+            }
+            pendingResponses.add(pendingResponse);
+            ByteBuffer buffer = ByteBuffer.wrap(requestBuffer.array(), 0, requestBuffer.size());
+            try {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            } catch (IOException ioException) {
+                close();
+                throw ioException;
+            }
+            pendingResponse.sentNanos = System.nanoTime();
+            LintMetrics.record(LintMetrics.Phase.WRITE, start);
+        }
+        return response;
+    }
+
+    synchronized boolean isOpen() {
+        return !closed;
+    }
+
+    private void readResponses() {
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        LineBuffer input = new LineBuffer();
+        try {
+            while (channel.read(buffer) != -1) {
+                input.write(buffer.array(), 0, buffer.position());
+                buffer.clear();
+                int offset = 0;
+                int size;
+                while ((size = getMessageSize(input.array(), offset, input.size())) > 0) {
+                    complete(input.array(), offset, size);
+                    offset += size;
+                }
+                input.discard(offset);
+            }
+        } catch (IOException e) {
+            // the connection is closed below
+        }
+        close();
+    }
+
+    /**
+     * Returns the size of the complete response at the offset, a frame or a JSON line including its line break, or -1
+     * if the response is not complete yet.
+     */
+    private static int getMessageSize(byte[] data, int offset, int end) throws IOException {
+        if (offset == end) {
+            return -1;
+        }
+        if (LintProtocol.isFrame(data[offset])) {
+            int size = LintProtocol.getFrameSize(data, offset, end);
+            return size != -1 && end - offset >= size ? size : -1;
+        }
+        for (int i = offset; i < end; i++) {
+            if (data[i] == '\n') {
+                return i - offset + 1;
+            }
+        }
+        return -1;
+    }
+
+    private void complete(byte[] data, int offset, int size) {
+        boolean frame = LintProtocol.isFrame(data[offset]);
+        if (!frame && isBlank(data, offset, size)) {
+            return;
+        }
+        PendingResponse pendingResponse;
+        long received = System.nanoTime();
+        synchronized (this) {
+            pendingResponse = pendingResponses.poll();
+            if (pendingResponse != null) {
+                LintMetrics.record(LintMetrics.Phase.ENGINE, pendingResponse.sentNanos);
+            }
+        }
+        if (pendingResponse == null) {
+            return;
+        }
+        try {
+            ExternalLintResponse response = frame
+                    ? ExternalLintResponse.parseFrame(data, offset, size)
+                    : ExternalLintResponse.parse(data, offset, size - 1);
+            LintMetrics.record(LintMetrics.Phase.READ, received);
+            pendingResponse.commitEvent(size, null);
+            pendingResponse.response.complete(response);
+        } catch (IOException ex) {
+            pendingResponse.commitEvent(size, ex);
+            pendingResponse.response.completeExceptionally(ex);
+        }
+    }
+
+    private static boolean isBlank(byte[] data, int offset, int size) {
+        for (int i = offset; i < offset + size; i++) {
+            if (data[i] != ' ' && data[i] != '\t' && data[i] != '\r' && data[i] != '\n') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Closes the connection. Requests that were not answered yet fail.
+     */
+    @Override
+    public void close() {
+        Queue<PendingResponse> unanswered;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            unanswered = new ArrayDeque<>(pendingResponses);
+            pendingResponses.clear();
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // silently ignore
+        }
+        for (PendingResponse pending : unanswered) {
+            IOException closedException = new IOException("Lint connection closed");
+            pending.commitEvent(0, closedException);
+            pending.response.completeExceptionally(closedException);
+        }
+    }
+
+    private static final class PendingResponse {
+
+        private final CompletableFuture<ExternalLintResponse> response;
+        // written under the lock of the connection before the response can be read
+        private long sentNanos;
+        // only set while the engine event is enabled
+        private LintEvents.EngineEvent event;
+        private ExternalLintRequest request;
+        private String protocol;
+        private long bytesWritten;
+
+        private PendingResponse(CompletableFuture<ExternalLintResponse> response) {
+            this.response = response;
+        }
+
+        private void commitEvent(long bytesRead, IOException failure) {
+            if (event == null) {
+                return;
+            }
+            if (failure != null) {
+                event.error = failure.getMessage();
+            }
+            event.commit(TRANSPORT, protocol, request.getLintNames(), request.getId(), bytesWritten, bytesRead);
+        }
+
+    }
+
+}
@@ -0,0 +1,64 @@
+package de.mtg.jlint.pqc.util;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Evaluates lints on the encapsulation key of a certificate.
+ */
+interface LintEngine {
+
+    String PASS = "Pass";
+    String ERROR = "Error";
+    String FATAL = "Fatal";
+
+    /**
+     * Evaluates all given lints on one public key.
+     *
+     * @param lintNames the names of the lints to evaluate.
+     * @param id the hex encoded SHA-256 digest of the SubjectPublicKeyInfo, which includes the algorithm of the key.
+     * @param rank the rank k of the ML-KEM parameter set declared by the algorithm of the key, see
+     *             {@link MlKemPublicKeyValidator#getRank(org.bouncycastle.asn1.ASN1ObjectIdentifier)}. A key whose
+     *             length does not match it fails the length lint.
+     * @param publicKey the raw public key, the content of the subjectPublicKey bit string.
+     * @return the result of every lint by lint name.
+     * @throws IOException if the engine could not evaluate the lints.
+     */
+    Map<String, String> evaluate(List<String> lintNames, String id, int rank, byte[] publicKey) throws IOException;
+
+    /**
+     * Evaluates all given lints on one public key without blocking the calling thread. By default
+     * {@link #evaluate(List, String, int, byte[])} runs on the executor, engines that can wait for results without a thread
+     * override this method.
+     *
+     * @return the future result of every lint by lint name, which fails with the {@link IOException} of the engine, or
+     *         with any other exception or error it threw.
+     */
+    default CompletableFuture<Map<String, String>> evaluateAsync(List<String> lintNames, String id, int rank,
+            byte[] publicKey, Executor executor) {
+        CompletableFuture<Map<String, String>> results = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                try {
+                    results.complete(evaluate(lintNames, id, rank, publicKey));
+                } catch (Throwable ex) {
+                    // also an Error, which would otherwise leave the future incomplete
+                    results.completeExceptionally(ex);
+                }
+            });
+        } catch (Throwable ex) {
+            results.completeExceptionally(ex);
+        }
+        return results;
+    }
+
+    /**
+     * Returns the version of this engine. Results of different versions may differ, so a result is only reused while
+     * the engine reports the version that produced it.
+     */
+    String getVersion();
+
+}
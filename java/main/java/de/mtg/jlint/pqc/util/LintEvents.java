@@ -0,0 +1,285 @@
+package de.mtg.jlint.pqc.util;
+
+import java.security.cert.X509Certificate;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+import de.mtg.jzlint.JavaLint;
+import de.mtg.jzlint.Lint;
+import de.mtg.jzlint.LintResult;
+
+/**
+ * The Java Flight Recorder events of the PQC lints.
+ * <p>
+ * Every lint runs its {@code checkApplies} and {@code execute} through this class, which emits a
+ * {@code de.mtg.jlint.pqc.Lint} event with the name of the lint, the algorithm family of the public key and the
+ * result. The engines of the external lints, external processes and the known public keys emit their own events. The
+ * events are only recorded while a flight recording runs that enables them. Otherwise, neither their fields are
+ * computed nor the events are committed. If {@link LintProfiler} is enabled, the lints are also profiled here.
+ */
+public final class LintEvents {
+
+    static final String CATEGORY = "PQC Lints";
+
+    static final String PROTOCOL_JSON = "json";
+    static final String PROTOCOL_FRAME = "frame";
+    static final String PROTOCOL_JNI = "jni";
+
+    private static final String STATUS_EXCEPTION = "exception";
+    private static final String STATUS_APPLIES = "applies";
+    private static final String STATUS_NOT_APPLICABLE = "notApplicable";
+
+    private static final ClassValue<String> LINT_NAMES = new ClassValue<>() {
+        @Override
+        protected String computeValue(Class<?> type) {
+            Lint lint = type.getAnnotation(Lint.class);
+            return lint != null ? lint.name() : type.getSimpleName();
+        }
+    };
+
+    private LintEvents() {
+        // empty
+    }
+
+    /**
+     * Executes the lint and emits an event with its result.
+     *
+     * @param lint the lint, whose {@link Lint} annotation names the event.
+     * @param execute the implementation of {@link JavaLint#execute(X509Certificate)}.
+     */
+    public static LintResult execute(JavaLint lint, X509Certificate certificate,
+            Function<X509Certificate, LintResult> execute) {
+        LintEvent event = new LintEvent();
+        if (!event.isEnabled() && !LintProfiler.isEnabled()) {
+            return execute.apply(certificate);
+        }
+        return observe(event, lint, LintProfiler.Operation.EXECUTE, certificate, execute,
+                result -> result.getStatus().name());
+    }
+
+    /**
+     * Checks whether the lint applies to the certificate and emits an event with the answer.
+     *
+     * @param lint the lint, whose {@link Lint} annotation names the event.
+     * @param checkApplies the implementation of {@link JavaLint#checkApplies(X509Certificate)}.
+     */
+    public static boolean checkApplies(JavaLint lint, X509Certificate certificate,
+            Predicate<X509Certificate> checkApplies) {
+        LintEvent event = new LintEvent();
+        if (!event.isEnabled() && !LintProfiler.isEnabled()) {
+            return checkApplies.test(certificate);
+        }
+        return observe(event, lint, LintProfiler.Operation.CHECK_APPLIES, certificate, checkApplies::test,
+                applies -> applies ? STATUS_APPLIES : STATUS_NOT_APPLICABLE);
+    }
+
+    /**
+     * Returns the name of the lint from its {@link Lint} annotation.
+     */
+    static String getLintName(JavaLint lint) {
+        return LINT_NAMES.get(lint.getClass());
+    }
+
+    /**
+     * Runs the operation of the lint, records it in the {@link LintProfiler} if profiling is enabled and commits the
+     * event if it is enabled.
+     */
+    private static <T> T observe(LintEvent event, JavaLint lint, LintProfiler.Operation operation,
+            X509Certificate certificate, Function<X509Certificate, T> body, Function<T, String> status) {
+        boolean profile = LintProfiler.isEnabled();
+        long cpuNanos = profile ? LintProfiler.getCpuTime() : 0;
+        long allocatedBytes = profile ? LintProfiler.getAllocatedBytes() : 0;
+        event.begin();
+        T result = null;
+        try {
+            result = body.apply(certificate);
+            return result;
+        } finally {
+            event.end();
+            if (profile) {
+                LintProfiler.record(LINT_NAMES.get(lint.getClass()), operation, cpuNanos, allocatedBytes);
+            }
+            if (event.shouldCommit()) {
+                event.lintName = LINT_NAMES.get(lint.getClass());
+                event.operation = operation.getLabel();
+                event.algorithm = getAlgorithmFamily(certificate);
+                event.status = result != null ? status.apply(result) : STATUS_EXCEPTION;
+                event.commit();
+            }
+        }
+    }
+
+    private static String getAlgorithmFamily(X509Certificate certificate) {
+        try {
+            if (PQCUtils.isPublicKeyMLKEM(certificate)) {
+                return "ML-KEM";
+            }
+            if (PQCUtils.isPublicKeyMLDSA(certificate)) {
+                return "ML-DSA";
+            }
+            if (PQCUtils.isPublicKeySLHDSA(certificate)) {
+                return "SLH-DSA";
+            }
+            return certificate.getPublicKey().getAlgorithm();
+        } catch (RuntimeException ex) {
+            // the lint itself reports certificates that cannot be parsed
+            return "unknown";
+        }
+    }
+
+    @Name("de.mtg.jlint.pqc.Lint")
+    @Label("PQC Lint")
+    @Description("checkApplies or execute of one PQC lint on one certificate")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    static final class LintEvent extends Event {
+
+        @Label("Lint")
+        String lintName;
+
+        @Label("Operation")
+        String operation;
+
+        @Label("Algorithm Family")
+        String algorithm;
+
+        @Label("Status")
+        @Description("The status of the result of execute, or whether the lint applies")
+        String status;
+
+    }
+
+    @Name("de.mtg.jlint.pqc.ExternalLintEngine")
+    @Label("External Lint Engine Call")
+    @Description("One evaluation of the lints of one public key by an external lint engine")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    static final class EngineEvent extends Event {
+
+        @Label("Transport")
+        @Description("process, worker, socket or native")
+        String transport;
+
+        @Label("Protocol")
+        @Description("json, frame or jni, the encoding of the request")
+        String protocol;
+
+        @Label("Lints")
+        String lintNames;
+
+        @Label("Key Id")
+        String keyId;
+
+        @Label("Bytes Written")
+        @DataAmount
+        long bytesWritten;
+
+        @Label("Bytes Read")
+        @DataAmount
+        long bytesRead;
+
+        @Label("Error")
+        String error;
+
+        /**
+         * Ends the event and commits it if it is enabled.
+         *
+         * @param protocol json or frame, the encoding of the request.
+         */
+        void commit(String transport, String protocol, List<String> lintNames, String id, long bytesWritten,
+                long bytesRead) {
+            end();
+            if (shouldCommit()) {
+                this.transport = transport;
+                this.protocol = protocol;
+                this.lintNames = String.join(",", lintNames);
+                this.keyId = id;
+                this.bytesWritten = bytesWritten;
+                this.bytesRead = bytesRead;
+                commit();
+            }
+        }
+
+    }
+
+    @Name("de.mtg.jlint.pqc.ExternalProcess")
+    @Label("External Lint Process")
+    @Description("One run of the external lint executable")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    static final class ProcessEvent extends Event {
+
+        @Label("Command")
+        String command;
+
+        @Label("Exit Code")
+        @Description("The exit code of the process, or -1 if it did not exit by itself")
+        int exitCode;
+
+        @Label("Timed Out")
+        boolean timedOut;
+
+    }
+
+    @Name("de.mtg.jlint.pqc.KnownPublicKeysLoad")
+    @Label("Known Public Keys Load")
+    @Description("Loading of the known public keys")
+    @Category(CATEGORY)
+    static final class KnownPublicKeysLoadEvent extends Event {
+
+        @Label("Keys")
+        int keys;
+
+        @Label("Size")
+        @DataAmount
+        long size;
+
+        @Label("Compiled")
+        @Description("Whether the binary resource was loaded instead of the PEM resource")
+        boolean compiled;
+
+        @Label("Blocklist Keys")
+        @Description("Number of keys in the blocklist files configured in jzlint.properties")
+        long blocklistKeys;
+
+    }
+
+    @Name("de.mtg.jlint.pqc.KnownPublicKeysReload")
+    @Label("Known Public Keys Reload")
+    @Description("Reloading of the blocklists of known public keys after their files changed")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    static final class KnownPublicKeysReloadEvent extends Event {
+
+        @Label("Blocklist Keys")
+        @Description("Number of keys in the blocklists that are loaded after the reload")
+        long blocklistKeys;
+
+        @Label("Failed")
+        @Description("Whether the reload failed and the previous blocklists remain loaded")
+        boolean failed;
+
+    }
+
+    @Name("de.mtg.jlint.pqc.KnownPublicKeysLookup")
+    @Label("Known Public Keys Lookup")
+    @Description("Lookup of one public key in the known public keys")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    static final class KnownPublicKeysLookupEvent extends Event {
+
+        @Label("Found")
+        boolean found;
+
+    }
+
+}
@@ -0,0 +1,77 @@
+package de.mtg.jlint.pqc.util;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The executors of the blocking tasks around external lints, for example draining the output of a process.
+ * <p>
+ * Tasks run on virtual threads if the runtime provides them. The project targets Java 17, so they are looked up
+ * reflectively, and on older runtimes a cached pool of daemon threads is used instead.
+ */
+final class LintExecutors {
+
+    private static final ExecutorService TASK_EXECUTOR = newTaskExecutor("jlint-pqc-task");
+
+    private static final ScheduledExecutorService WATCHDOG =
+            Executors.newSingleThreadScheduledExecutor(newDaemonThreadFactory("jlint-pqc-watchdog"));
+
+    private LintExecutors() {
+        // empty
+    }
+
+    /**
+     * Returns the shared executor of short blocking tasks.
+     */
+    static ExecutorService getTaskExecutor() {
+        return TASK_EXECUTOR;
+    }
+
+    /**
+     * Returns the scheduler that enforces the deadlines of external calls.
+     */
+    static ScheduledExecutorService getWatchdog() {
+        return WATCHDOG;
+    }
+
+    /**
+     * Creates an executor that starts a virtual thread per task if available, otherwise a cached pool of daemon
+     * threads.
+     */
+    static ExecutorService newTaskExecutor(String name) {
+        try {
+            Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) method.invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException ex) {
+            return Executors.newCachedThreadPool(newDaemonThreadFactory(name));
+        }
+    }
+
+    /**
+     * Returns the exception that failed a future, without the wrappers of {@link CompletionException} and
+     * {@link ExecutionException}.
+     */
+    static Throwable getCause(Throwable failure) {
+        Throwable cause = failure;
+        while ((cause instanceof CompletionException || cause instanceof ExecutionException) && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause;
+    }
+
+    private static ThreadFactory newDaemonThreadFactory(String name) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+}
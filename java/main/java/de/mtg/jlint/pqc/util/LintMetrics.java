@@ -0,0 +1,353 @@
+package de.mtg.jlint.pqc.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToLongFunction;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import de.mtg.jzlint.LintResult;
+import de.mtg.jzlint.Status;
+
+/**
+ * The metrics of the ML-KEM lints: the latency of every phase of an external evaluation and of the in-process lints,
+ * the results of every lint and the use of the caches.
+ * <p>
+ * Every execution of a lint counts one result, wherever {@code lint.mode} evaluates it. A cross-checked lint counts
+ * the result of the engine and, if the in-process result differs, a mismatch.
+ * <p>
+ * The metrics are kept for the life of the JVM. They are registered as an MXBean on first use of the engine, see
+ * {@link ExternalLintMetricsMXBean}, and if {@code metrics.http.port} is set they are also served in the Prometheus
+ * text format at {@code /metrics} on the loopback interface.
+ */
+final class LintMetrics {
+
+    static final String OBJECT_NAME = "de.mtg.jlint.pqc:type=ExternalLintMetrics";
+
+    private static final String PROPERTY_NAME_HTTP_PORT = "metrics.http.port";
+    private static final String METRICS_PATH = "/metrics";
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+    private static final String PREFIX = "jlint_pqc_";
+    private static final double NANOS_PER_SECOND = 1e9;
+    private static final double NANOS_PER_MILLI = 1e6;
+
+    enum Phase {
+        CONNECT, WRITE, ENGINE, READ, CLEANUP, EVALUATE, IN_PROCESS;
+
+        String getLabel() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private static final LatencyHistogram[] PHASES = new LatencyHistogram[Phase.values().length];
+    private static final ConcurrentMap<String, LongAdder[]> RESULTS = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<String, LongAdder> TIMEOUTS = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<String, LongAdder> MISMATCHES = new ConcurrentHashMap<>();
+    private static final LongAdder SHARED_CACHE_HITS = new LongAdder();
+
+    static {
+        for (int i = 0; i < PHASES.length; i++) {
+            PHASES[i] = new LatencyHistogram();
+        }
+    }
+
+    private static boolean started;
+    private static HttpServer httpServer;
+
+    private LintMetrics() {
+        // empty
+    }
+
+    /**
+     * Records the latency of a phase that started at the given {@link System#nanoTime()}.
+     */
+    static void record(Phase phase, long startNanos) {
+        PHASES[phase.ordinal()].record(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Counts the result of a lint and returns it.
+     */
+    static LintResult recordResult(String lintName, LintResult lintResult) {
+        LongAdder[] counts = RESULTS.computeIfAbsent(lintName, name -> {
+            LongAdder[] adders = new LongAdder[Status.values().length];
+            for (int i = 0; i < adders.length; i++) {
+                adders[i] = new LongAdder();
+            }
+            return adders;
+        });
+        counts[lintResult.getStatus().ordinal()].increment();
+        return lintResult;
+    }
+
+    static void recordTimeout(String lintName) {
+        TIMEOUTS.computeIfAbsent(lintName, name -> new LongAdder()).increment();
+    }
+
+    /**
+     * Counts a cross-checked lint whose in-process result differs from the result of the engine.
+     */
+    static void recordMismatch(String lintName) {
+        MISMATCHES.computeIfAbsent(lintName, name -> new LongAdder()).increment();
+    }
+
+    static void recordSharedCacheHit() {
+        SHARED_CACHE_HITS.increment();
+    }
+
+    /**
+     * Registers the MXBean and starts the HTTP endpoint if it is configured. Only the first call has an effect. The
+     * metrics are an aid for operation, so failures are ignored.
+     */
+    static synchronized void start(Properties properties) {
+        if (started) {
+            return;
+        }
+        started = true;
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(
+                    new StandardMBean(new Metrics(), ExternalLintMetricsMXBean.class, true), new ObjectName(OBJECT_NAME));
+        } catch (JMException ex) {
+            // silently ignore, for example if another class loader registered the metrics already
+        }
+        String port = properties.getProperty(PROPERTY_NAME_HTTP_PORT, "").trim();
+        if (!port.isEmpty()) {
+            try {
+                startHttpServer(Integer.parseInt(port));
+            } catch (IOException | IllegalArgumentException ex) {
+                // silently ignore, the metrics remain available through JMX
+            }
+        }
+    }
+
+    private static void startHttpServer(int port) throws IOException {
+        httpServer = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        httpServer.createContext(METRICS_PATH, LintMetrics::handle);
+        httpServer.setExecutor(Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "jlint-pqc-metrics");
+            thread.setDaemon(true);
+            return thread;
+        }));
+        // the dispatcher thread inherits the daemon status of the starting thread, it must not keep the JVM alive
+        Thread starter = new Thread(httpServer::start, "jlint-pqc-metrics-start");
+        starter.setDaemon(true);
+        starter.start();
+        try {
+            starter.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            byte[] body = toPrometheusText().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+    }
+
+    /**
+     * Returns all metrics in the Prometheus text exposition format.
+     */
+    static String toPrometheusText() {
+        StringBuilder text = new StringBuilder();
+
+        header(text, "lint_results_total", "counter", "Lint results by lint and status.");
+        for (Map.Entry<String, LongAdder[]> results : new TreeMap<>(RESULTS).entrySet()) {
+            for (Status status : Status.values()) {
+                long count = results.getValue()[status.ordinal()].sum();
+                if (count > 0) {
+                    text.append(PREFIX).append("lint_results_total{lint=\"").append(escape(results.getKey()))
+                            .append("\",status=\"").append(status.name().toLowerCase(Locale.ROOT)).append("\"} ")
+                            .append(count).append('\n');
+                }
+            }
+        }
+
+        header(text, "lint_timeouts_total", "counter", "Lints whose evaluation missed its deadline.");
+        for (Map.Entry<String, LongAdder> timeouts : new TreeMap<>(TIMEOUTS).entrySet()) {
+            text.append(PREFIX).append("lint_timeouts_total{lint=\"").append(escape(timeouts.getKey())).append("\"} ")
+                    .append(timeouts.getValue().sum()).append('\n');
+        }
+
+        header(text, "lint_mismatches_total", "counter", "Cross-checked lints whose in-process and engine results differ.");
+        for (Map.Entry<String, LongAdder> mismatches : new TreeMap<>(MISMATCHES).entrySet()) {
+            text.append(PREFIX).append("lint_mismatches_total{lint=\"").append(escape(mismatches.getKey()))
+                    .append("\"} ").append(mismatches.getValue().sum()).append('\n');
+        }
+
+        header(text, "cache_hits_total", "counter", "Lint results found in the cache.");
+        text.append(PREFIX).append("cache_hits_total{cache=\"memory\"} ")
+                .append(ExternalLintUtils.getResultCacheHits()).append('\n');
+        text.append(PREFIX).append("cache_hits_total{cache=\"shared\"} ").append(SHARED_CACHE_HITS.sum()).append('\n');
+        header(text, "cache_misses_total", "counter", "Lint results not found in the cache.");
+        text.append(PREFIX).append("cache_misses_total{cache=\"memory\"} ")
+                .append(ExternalLintUtils.getResultCacheMisses()).append('\n');
+
+        header(text, "phase_duration_seconds", "histogram", "Latency of the phases of lint evaluations.");
+        for (Phase phase : Phase.values()) {
+            LatencyHistogram histogram = PHASES[phase.ordinal()];
+            long[] counts = histogram.getCounts();
+            long cumulative = 0;
+            for (int i = 0; i < counts.length; i++) {
+                cumulative += counts[i];
+                long bound = histogram.getBoundNanos(i);
+                String le = bound == Long.MAX_VALUE ? "+Inf" : Double.toString(bound / NANOS_PER_SECOND);
+                text.append(PREFIX).append("phase_duration_seconds_bucket{phase=\"").append(phase.getLabel())
+                        .append("\",le=\"").append(le).append("\"} ").append(cumulative).append('\n');
+            }
+            text.append(PREFIX).append("phase_duration_seconds_sum{phase=\"").append(phase.getLabel()).append("\"} ")
+                    .append(histogram.getSumNanos() / NANOS_PER_SECOND).append('\n');
+            text.append(PREFIX).append("phase_duration_seconds_count{phase=\"").append(phase.getLabel()).append("\"} ")
+                    .append(cumulative).append('\n');
+        }
+        return text.toString();
+    }
+
+    private static void header(StringBuilder text, String name, String type, String help) {
+        text.append("# HELP ").append(PREFIX).append(name).append(' ').append(help).append('\n');
+        text.append("# TYPE ").append(PREFIX).append(name).append(' ').append(type).append('\n');
+    }
+
+    private static String escape(String label) {
+        return label.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    private static Map<String, Long> sum(ConcurrentMap<String, LongAdder> counts) {
+        Map<String, Long> sums = new TreeMap<>();
+        counts.forEach((lintName, count) -> sums.put(lintName, count.sum()));
+        return sums;
+    }
+
+    private static Map<String, Long> sumResults(ToLongFunction<LongAdder[]> sum) {
+        Map<String, Long> sums = new TreeMap<>();
+        RESULTS.forEach((lintName, counts) -> sums.put(lintName, sum.applyAsLong(counts)));
+        return sums;
+    }
+
+    private static Map<String, Double> byPhase(ToLongFunction<LatencyHistogram> nanos) {
+        Map<String, Double> millis = new TreeMap<>();
+        for (Phase phase : Phase.values()) {
+            millis.put(phase.getLabel(), nanos.applyAsLong(PHASES[phase.ordinal()]) / NANOS_PER_MILLI);
+        }
+        return millis;
+    }
+
+    private static final class Metrics implements ExternalLintMetricsMXBean {
+
+        @Override
+        public Map<String, Long> getResults() {
+            return sumResults(counts -> {
+                long sum = 0;
+                for (LongAdder count : counts) {
+                    sum += count.sum();
+                }
+                return sum;
+            });
+        }
+
+        @Override
+        public Map<String, Long> getNotPassResults() {
+            return sumResults(counts -> {
+                long sum = 0;
+                for (Status status : Status.values()) {
+                    if (status != Status.PASS && status != Status.FATAL) {
+                        sum += counts[status.ordinal()].sum();
+                    }
+                }
+                return sum;
+            });
+        }
+
+        @Override
+        public Map<String, Long> getFatalResults() {
+            return sumResults(counts -> counts[Status.FATAL.ordinal()].sum());
+        }
+
+        @Override
+        public Map<String, Long> getTimeouts() {
+            return sum(TIMEOUTS);
+        }
+
+        @Override
+        public Map<String, Long> getMismatches() {
+            return sum(MISMATCHES);
+        }
+
+        @Override
+        public long getCacheHits() {
+            return ExternalLintUtils.getResultCacheHits();
+        }
+
+        @Override
+        public long getCacheMisses() {
+            return ExternalLintUtils.getResultCacheMisses();
+        }
+
+        @Override
+        public long getSharedCacheHits() {
+            return SHARED_CACHE_HITS.sum();
+        }
+
+        @Override
+        public double getCacheHitRatio() {
+            long hits = getCacheHits();
+            long total = hits + getCacheMisses();
+            return total == 0 ? 0 : (double) (hits + getSharedCacheHits()) / total;
+        }
+
+        @Override
+        public Map<String, Long> getPhaseCounts() {
+            Map<String, Long> counts = new TreeMap<>();
+            for (Phase phase : Phase.values()) {
+                counts.put(phase.getLabel(), PHASES[phase.ordinal()].getCount());
+            }
+            return counts;
+        }
+
+        @Override
+        public Map<String, Double> getPhaseMeanMillis() {
+            return byPhase(histogram -> {
+                long count = histogram.getCount();
+                return count == 0 ? 0 : histogram.getSumNanos() / count;
+            });
+        }
+
+        @Override
+        public Map<String, Double> getPhaseP99Millis() {
+            return byPhase(histogram -> histogram.getQuantileNanos(0.99));
+        }
+
+        @Override
+        public Map<String, Double> getPhaseMaxMillis() {
+            return byPhase(LatencyHistogram::getMaxNanos);
+        }
+
+    }
+
+}
@@ -0,0 +1,207 @@
+package de.mtg.jlint.pqc.util;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * An opt-in profile of the thread CPU time and the allocated bytes of every PQC lint.
+ * <p>
+ * Profiling is enabled with {@code profile.enabled=true} in {@code jzlint.properties}. Then every
+ * {@code checkApplies} and {@code execute} of a lint, see {@link LintEvents}, measures the CPU time and the bytes
+ * allocated by the current thread, and the measurements are aggregated by lint name. Work that a lint waits for on
+ * other threads or processes, for example an external engine, is not included.
+ * <p>
+ * The report lists the count, the median, the 99th percentile, the maximum and the total of the CPU time and the
+ * total and the maximum of the allocated bytes of every lint, the lints that took the most CPU time first. It is
+ * written when the JVM exits, to the file {@code profile.report.file} or to stderr if it is not set, and at any time
+ * with {@link #writeReport(Appendable)}.
+ */
+public final class LintProfiler {
+
+    private static final String PROPERTY_NAME_ENABLED = "profile.enabled";
+    private static final String PROPERTY_NAME_REPORT_FILE = "profile.report.file";
+    private static final String TRUE = "true";
+
+    private static final long FIRST_BOUND_NANOS = 1_000;
+    private static final double NANOS_PER_MICRO = 1e3;
+    private static final double NANOS_PER_MILLI = 1e6;
+
+    enum Operation {
+        CHECK_APPLIES("checkApplies"), EXECUTE("execute");
+
+        private final String label;
+
+        Operation(String label) {
+            this.label = label;
+        }
+
+        String getLabel() {
+            return label;
+        }
+    }
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+    private static final ConcurrentMap<String, Profile[]> PROFILES = new ConcurrentHashMap<>();
+    private static final com.sun.management.ThreadMXBean ALLOCATIONS = getAllocations();
+    private static final boolean ENABLED = start();
+
+    private LintProfiler() {
+        // empty
+    }
+
+    public static boolean isEnabled() {
+        return ENABLED;
+    }
+
+    private static com.sun.management.ThreadMXBean getAllocations() {
+        if (THREADS instanceof com.sun.management.ThreadMXBean threads && threads.isThreadAllocatedMemorySupported()) {
+            return threads;
+        }
+        return null;
+    }
+
+    private static boolean start() {
+        Properties properties;
+        try {
+            properties = ExternalLintUtils.loadProperties();
+        } catch (IOException e) {
+            // without jzlint.properties profiling is disabled
+            return false;
+        }
+        if (!TRUE.equalsIgnoreCase(properties.getProperty(PROPERTY_NAME_ENABLED, "").trim())
+                || !THREADS.isCurrentThreadCpuTimeSupported()) {
+            return false;
+        }
+        THREADS.setThreadCpuTimeEnabled(true);
+        if (ALLOCATIONS != null) {
+            ALLOCATIONS.setThreadAllocatedMemoryEnabled(true);
+        }
+        String reportFile = properties.getProperty(PROPERTY_NAME_REPORT_FILE, "").trim();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> writeReportOnExit(reportFile), "jlint-pqc-profile"));
+        return true;
+    }
+
+    /**
+     * Returns the CPU time of the current thread in nanoseconds, or -1 if it is not available, for example on a
+     * virtual thread.
+     */
+    static long getCpuTime() {
+        return THREADS.getCurrentThreadCpuTime();
+    }
+
+    /**
+     * Returns the bytes allocated by the current thread so far, or -1 if they are not available.
+     */
+    static long getAllocatedBytes() {
+        return ALLOCATIONS != null ? ALLOCATIONS.getCurrentThreadAllocatedBytes() : -1;
+    }
+
+    /**
+     * Records one run of a lint that started at the given CPU time and allocated bytes of the current thread.
+     */
+    static void record(String lintName, Operation operation, long startCpuNanos, long startAllocatedBytes) {
+        long cpuNanos = getCpuTime();
+        long allocatedBytes = getAllocatedBytes();
+        if (startCpuNanos == -1 || cpuNanos == -1) {
+            return;
+        }
+        Profile profile = PROFILES.computeIfAbsent(lintName, name -> newProfiles())[operation.ordinal()];
+        profile.record(cpuNanos - startCpuNanos,
+                startAllocatedBytes == -1 || allocatedBytes == -1 ? 0 : allocatedBytes - startAllocatedBytes);
+    }
+
+    private static Profile[] newProfiles() {
+        Profile[] profiles = new Profile[Operation.values().length];
+        for (int i = 0; i < profiles.length; i++) {
+            profiles[i] = new Profile();
+        }
+        return profiles;
+    }
+
+    /**
+     * Discards all measurements, for example to profile each run of a long-lived process separately.
+     */
+    public static void reset() {
+        PROFILES.clear();
+    }
+
+    /**
+     * Writes the report of all measurements so far as a text table. The percentiles are the upper bounds of
+     * histogram buckets whose bounds double from one microsecond, so they are exact up to a factor of two.
+     */
+    public static void writeReport(Appendable out) throws IOException {
+        List<Map.Entry<String, Profile>> rows = new ArrayList<>();
+        for (Map.Entry<String, Profile[]> profiles : PROFILES.entrySet()) {
+            for (Operation operation : Operation.values()) {
+                Profile profile = profiles.getValue()[operation.ordinal()];
+                if (profile.cpuNanos.getCount() > 0) {
+                    rows.add(Map.entry(profiles.getKey() + " " + operation.getLabel(), profile));
+                }
+            }
+        }
+        rows.sort(Comparator.comparingLong((Map.Entry<String, Profile> row) -> row.getValue().cpuNanos.getSumNanos())
+                .reversed());
+
+        out.append("PQC lint profile: thread CPU time in microseconds, allocated bytes\n");
+        out.append(String.format(Locale.ROOT, "%-56s %10s %10s %10s %10s %14s %16s %14s%n", "lint", "count",
+                "cpu p50", "cpu p99", "cpu max", "cpu total ms", "allocated total", "allocated max"));
+        for (Map.Entry<String, Profile> row : rows) {
+            LatencyHistogram cpu = row.getValue().cpuNanos;
+            out.append(String.format(Locale.ROOT, "%-56s %10d %10.1f %10.1f %10.1f %14.3f %16d %14d%n", row.getKey(),
+                    cpu.getCount(),
+                    cpu.getQuantileNanos(0.5) / NANOS_PER_MICRO,
+                    cpu.getQuantileNanos(0.99) / NANOS_PER_MICRO,
+                    cpu.getMaxNanos() / NANOS_PER_MICRO,
+                    cpu.getSumNanos() / NANOS_PER_MILLI,
+                    row.getValue().allocatedBytes.sum(),
+                    row.getValue().maxAllocatedBytes.get()));
+        }
+    }
+
+    private static void writeReportOnExit(String reportFile) {
+        try {
+            if (reportFile.isEmpty()) {
+                StringBuilder report = new StringBuilder();
+                writeReport(report);
+                System.err.print(report);
+                System.err.flush();
+            } else {
+                try (Writer writer = Files.newBufferedWriter(Paths.get(reportFile), StandardCharsets.UTF_8)) {
+                    writeReport(writer);
+                }
+            }
+        } catch (IOException e) {
+            // silently ignore, the JVM exits anyway
+        }
+    }
+
+    private static final class Profile {
+
+        private final LatencyHistogram cpuNanos = new LatencyHistogram(FIRST_BOUND_NANOS);
+        private final LongAdder allocatedBytes = new LongAdder();
+        private final LongAccumulator maxAllocatedBytes = new LongAccumulator(Math::max, 0);
+
+        private void record(long cpuNanos, long allocatedBytes) {
+            this.cpuNanos.record(cpuNanos);
+            this.allocatedBytes.add(allocatedBytes);
+            this.maxAllocatedBytes.accumulate(allocatedBytes);
+        }
+
+    }
+
+}
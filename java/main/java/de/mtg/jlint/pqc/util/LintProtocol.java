@@ -0,0 +1,142 @@
+package de.mtg.jlint.pqc.util;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+
+/**
+ * The binary frame protocol between the lint engines and the long-lived processes of the external implementation,
+ * see {@code worker} and {@code serve} of the CLI.
+ * <p>
+ * A frame starts with a version byte and the big-endian 32-bit length of its body. The body of a request frame holds
+ * the parameter set, a bitmask of the lints by their index in {@link ExternalLintUtils#ML_KEM_LINT_NAMES}, the
+ * 32-byte id and the raw key. The body of a result frame holds the id and for every lint its index, a status and a
+ * numeric metric. See {@link ExternalLintRequest#writeFrameTo(OutputStream)} and
+ * {@link ExternalLintResponse#parseFrame(byte[], int, int)}.
+ * <p>
+ * Frames and JSON lines may be mixed on the same stream, JSON lines start with a character instead of a version byte.
+ * The version is negotiated once per stream: the client sends a hello frame whose body is a line break, which a
+ * server without frame support answers with a JSON line, and a server with frame support with an empty frame of the
+ * version it speaks.
+ */
+final class LintProtocol {
+
+    static final int VERSION_JSON = 0;
+    static final int VERSION_1 = 1;
+    static final int VERSION = VERSION_1;
+
+    static final int HEADER_SIZE = 5;
+    static final int MAX_BODY_SIZE = 1 << 20;
+    static final int ID_LENGTH = 32;
+
+    static final int STATUS_PASS = 0;
+    static final int STATUS_ERROR = 1;
+    static final int STATUS_FATAL = 2;
+
+    /**
+     * The lints that can be requested in a frame, bit i of the mask is the lint at index i.
+     */
+    static final List<String> LINT_NAMES = ExternalLintUtils.ML_KEM_LINT_NAMES;
+
+    private LintProtocol() {
+        // empty
+    }
+
+    /**
+     * Returns true if a message that starts with the byte is a frame. Versions are small numbers below the whitespace
+     * characters that may precede a JSON line.
+     */
+    static boolean isFrame(byte first) {
+        return first >= VERSION_1 && first < '\t';
+    }
+
+    static void writeHello(OutputStream out) throws IOException {
+        writeHeader(out, VERSION, 1);
+        out.write('\n');
+        out.flush();
+    }
+
+    /**
+     * Reads the answer to a hello frame.
+     *
+     * @return the version both sides speak, or {@link #VERSION_JSON} if the server only understands JSON lines.
+     */
+    static int readHello(InputStream in) throws IOException {
+        int first = in.read();
+        if (first == -1) {
+            throw new EOFException("Lint process closed the stream during the handshake");
+        }
+        if (!isFrame((byte) first)) {
+            // the hello frame was answered as a malformed JSON lint
+            int b = first;
+            while (b != '\n' && b != -1) {
+                b = in.read();
+            }
+            return VERSION_JSON;
+        }
+        int length = readInt(in);
+        in.skipNBytes(length);
+        return Math.min(first, VERSION);
+    }
+
+    static void writeHeader(OutputStream out, int version, int length) throws IOException {
+        out.write(version);
+        out.write(length >>> 24);
+        out.write(length >>> 16);
+        out.write(length >>> 8);
+        out.write(length);
+    }
+
+    /**
+     * Reads a complete frame.
+     *
+     * @param frame the buffer that receives the header and the body.
+     */
+    static void readFrame(InputStream in, LineBuffer frame) throws IOException {
+        frame.reset();
+        int version = in.read();
+        if (version == -1) {
+            throw new EOFException("Lint process closed the stream");
+        }
+        int length = readInt(in);
+        writeHeader(frame, version, length);
+        byte[] body = in.readNBytes(length);
+        if (body.length != length) {
+            throw new EOFException("Lint process closed the stream within a frame");
+        }
+        frame.write(body, 0, length);
+    }
+
+    /**
+     * Returns the size of the frame at the offset including its header, or -1 if the header is not complete yet.
+     */
+    static int getFrameSize(byte[] data, int offset, int end) throws IOException {
+        if (end - offset < HEADER_SIZE) {
+            return -1;
+        }
+        return HEADER_SIZE + checkLength(getInt(data, offset + 1));
+    }
+
+    static int getInt(byte[] data, int offset) {
+        return (data[offset] & 0xff) << 24 | (data[offset + 1] & 0xff) << 16 | (data[offset + 2] & 0xff) << 8
+                | (data[offset + 3] & 0xff);
+    }
+
+    private static int readInt(InputStream in) throws IOException {
+        byte[] bytes = in.readNBytes(4);
+        if (bytes.length != 4) {
+            throw new EOFException("Lint process closed the stream within a frame header");
+        }
+        return checkLength(getInt(bytes, 0));
+    }
+
+    private static int checkLength(int length) throws IOException {
+        if (length < 0 || length > MAX_BODY_SIZE) {
+            throw new IOException("Invalid frame length %d".formatted(length));
+        }
+        return length;
+    }
+
+}
@@ -0,0 +1,171 @@
+package de.mtg.jlint.pqc.util;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded LRU cache of the results of external lints, keyed by key id and engine version.
+ * <p>
+ * An entry holds the results of all lints of one key, so the size of the cache is the number of keys, whatever the
+ * number of lints evaluated on them.
+ * <p>
+ * The engine version identifies the implementation that produced a result, so results of an engine that has been
+ * replaced are never returned, they are evicted as the least recently used ones. Entries expire after the configured
+ * time to live.
+ * <p>
+ * The keys are spread over up to 16 stripes by their hash, each an LRU cache of its share of the size with its own
+ * lock, so that concurrent lints of different keys rarely wait for each other. The least recently used entry is
+ * evicted per stripe.
+ */
+final class LintResultCache {
+
+    private static final char SEPARATOR = '\u0000';
+    private static final int MAX_STRIPES = 16;
+
+    private final long timeToLiveNanos;
+    private final Stripe[] stripes;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * @param maxSize the maximal number of keys whose results are cached.
+     * @param timeToLiveSeconds the time after which a result expires, or 0 if results do not expire.
+     */
+    LintResultCache(int maxSize, long timeToLiveSeconds) {
+        this.timeToLiveNanos = TimeUnit.SECONDS.toNanos(timeToLiveSeconds);
+        // a power of two, such that every stripe holds at least one key
+        int stripeCount = Integer.highestOneBit(Math.max(Math.min(maxSize, MAX_STRIPES), 1));
+        this.stripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new Stripe(maxSize / stripeCount + (i < maxSize % stripeCount ? 1 : 0));
+        }
+    }
+
+    /**
+     * Returns the cached result of the lint for the key, or null if it is not cached or has expired.
+     */
+    String get(String lintName, String id, String engineVersion) {
+        String key = getKey(id, engineVersion);
+        Stripe stripe = getStripe(key);
+        Entry entry;
+        synchronized (stripe) {
+            entry = stripe.getEntry(key, System.nanoTime());
+        }
+        String result = entry == null ? null : entry.results.get(lintName);
+        if (result == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return result;
+    }
+
+    /**
+     * Stores the results of the lints for the key, in addition to its results that are already cached.
+     */
+    void put(String id, String engineVersion, Map<String, String> results) {
+        String key = getKey(id, engineVersion);
+        long now = System.nanoTime();
+        long expiresAt = timeToLiveNanos == 0 ? 0 : now + timeToLiveNanos;
+        Stripe stripe = getStripe(key);
+        synchronized (stripe) {
+            Entry entry = stripe.getEntry(key, now);
+            if (entry == null) {
+                stripe.put(key, new Entry(Map.copyOf(results), expiresAt));
+            } else {
+                // the added results expire with the cached ones, so that none outlives its time to live
+                Map<String, String> merged = new HashMap<>(entry.results);
+                merged.putAll(results);
+                stripe.put(key, new Entry(Map.copyOf(merged), entry.expiresAt));
+            }
+        }
+    }
+
+    void invalidate() {
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                stripe.clear();
+            }
+        }
+    }
+
+    int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.size();
+            }
+        }
+        return size;
+    }
+
+    long getHits() {
+        return hits.sum();
+    }
+
+    long getMisses() {
+        return misses.sum();
+    }
+
+    private Stripe getStripe(String key) {
+        int hash = key.hashCode();
+        return stripes[(hash ^ (hash >>> 16)) & (stripes.length - 1)];
+    }
+
+    private static String getKey(String id, String engineVersion) {
+        return id + SEPARATOR + engineVersion;
+    }
+
+    /**
+     * An LRU cache of a share of the keys, whose methods must be called while holding its lock.
+     */
+    private static final class Stripe extends LinkedHashMap<String, Entry> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int maxSize;
+
+        private Stripe(int maxSize) {
+            super(Math.min(maxSize, 1 << 12), 0.75f, true);
+            this.maxSize = maxSize;
+        }
+
+        /**
+         * Returns the entry of the key, or null if it is not cached or has expired.
+         */
+        private Entry getEntry(String key, long now) {
+            Entry entry = get(key);
+            if (entry != null && entry.isExpired(now)) {
+                remove(key);
+                return null;
+            }
+            return entry;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            return size() > maxSize;
+        }
+
+    }
+
+    private static final class Entry {
+
+        private final Map<String, String> results;
+        private final long expiresAt;
+
+        private Entry(Map<String, String> results, long expiresAt) {
+            this.results = results;
+            this.expiresAt = expiresAt;
+        }
+
+        private boolean isExpired(long now) {
+            return expiresAt != 0 && now - expiresAt > 0;
+        }
+
+    }
+
+}
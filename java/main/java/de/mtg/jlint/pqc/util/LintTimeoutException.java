@@ -0,0 +1,17 @@
+package de.mtg.jlint.pqc.util;
+
+import java.io.IOException;
+
+/**
+ * Signals that an external lint did not answer before its deadline. The process that was running it, if any, has been
+ * terminated.
+ */
+final class LintTimeoutException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    LintTimeoutException(long timeoutMillis) {
+        super("External lint timed out after %d ms".formatted(timeoutMillis));
+    }
+
+}
@@ -0,0 +1,163 @@
+package de.mtg.jlint.pqc.util;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A long-lived Rust lint process started in {@code worker} mode.
+ * <p>
+ * The worker reads one lint request at a time from its stdin and answers every request with exactly one response on
+ * its stdout, either as a JSON line or as a binary frame, see {@link LintProtocol}. A worker is not thread-safe, it is
+ * used by one thread at a time through {@link LintWorkerPool}.
+ * <p>
+ * A worker that does not answer before the deadline of a request is terminated with all of its descendants, which
+ * unblocks the waiting thread.
+ */
+final class LintWorker implements Closeable {
+
+    private static final String WORKER_COMMAND = "worker";
+
+    private static final String TRANSPORT = "worker";
+
+    private final Process process;
+    private final OutputStream out;
+    private final InputStream in;
+    private final LineBuffer requestBuffer = new LineBuffer();
+    private final LineBuffer line = new LineBuffer();
+    private int protocolVersion = LintProtocol.VERSION_JSON;
+    private volatile boolean timedOut;
+
+    private LintWorker(Process process) {
+        this.process = process;
+        this.out = new BufferedOutputStream(process.getOutputStream());
+        this.in = new BufferedInputStream(process.getInputStream());
+    }
+
+    /**
+     * Starts a worker.
+     *
+     * @param frames true to negotiate the binary frame protocol with the worker.
+     * @param timeoutMillis the deadline of the negotiation, or 0 to wait as long as the worker runs.
+     */
+    static LintWorker start(String executablePath, boolean frames, long timeoutMillis) throws IOException {
+        long start = System.nanoTime();
+        ProcessBuilder processBuilder = new ProcessBuilder(executablePath, WORKER_COMMAND);
+        // nobody reads the diagnostics of the worker, they must not fill up the pipe
+        processBuilder.redirectError(ProcessBuilder.Redirect.DISCARD);
+        LintWorker worker = new LintWorker(processBuilder.start());
+        if (frames) {
+            try {
+                worker.protocolVersion = worker.exchange(timeoutMillis, () -> {
+                    LintProtocol.writeHello(worker.out);
+                    return LintProtocol.readHello(worker.in);
+                });
+            } catch (IOException ioException) {
+                worker.close();
+                throw ioException;
+            }
+        }
+        LintMetrics.record(LintMetrics.Phase.CONNECT, start);
+        return worker;
+    }
+
+    /**
+     * Sends one request to the worker and waits for its response. The request is sent as a frame if the worker
+     * speaks the frame protocol and the request can be written as a frame, otherwise as a JSON line.
+     *
+     * @param timeoutMillis the deadline of the request, or 0 to wait as long as the worker runs.
+     * @throws LintTimeoutException if the worker did not answer before the deadline.
+     * @throws IOException if the worker cannot be reached, terminated before answering or answered malformed data.
+     */
+    ExternalLintResponse execute(ExternalLintRequest request, long timeoutMillis) throws IOException {
+        boolean frame = protocolVersion != LintProtocol.VERSION_JSON && request.hasFrame();
+        LintEvents.EngineEvent event = new LintEvents.EngineEvent();
+        event.begin();
+        requestBuffer.reset();
+        line.reset();
+        try {
+            return exchange(timeoutMillis, () -> {
+                long start = System.nanoTime();
+                if (frame) {
+                    request.writeFrameTo(requestBuffer);
+                } else {
+                    request.writeTo(requestBuffer);
+                    requestBuffer.write('\n');
+                }
+                out.write(requestBuffer.array(), 0, requestBuffer.size());
+                out.flush();
+                long written = System.nanoTime();
+                LintMetrics.record(LintMetrics.Phase.WRITE, start);
+                if (frame) {
+                    LintProtocol.readFrame(in, line);
+                } else if (!line.readLine(in)) {
+                    throw new IOException("Lint worker terminated unexpectedly");
+                }
+                long received = System.nanoTime();
+                LintMetrics.record(LintMetrics.Phase.ENGINE, written);
+                ExternalLintResponse response = frame
+                        ? ExternalLintResponse.parseFrame(line.array(), 0, line.size())
+                        : ExternalLintResponse.parse(line.array(), 0, line.size());
+                LintMetrics.record(LintMetrics.Phase.READ, received);
+                return response;
+            });
+        } catch (IOException ioException) {
+            event.error = ioException.getMessage();
+            throw ioException;
+        } finally {
+            event.commit(TRANSPORT, frame ? LintEvents.PROTOCOL_FRAME : LintEvents.PROTOCOL_JSON, request.getLintNames(),
+                    request.getId(), requestBuffer.size(), line.size());
+        }
+    }
+
+    private <T> T exchange(long timeoutMillis, Exchange<T> exchange) throws IOException {
+        ScheduledFuture<?> watchdog = null;
+        if (timeoutMillis > 0) {
+            watchdog = LintExecutors.getWatchdog().schedule(this::terminate, timeoutMillis, TimeUnit.MILLISECONDS);
+        }
+        try {
+            return exchange.run();
+        } catch (IOException ioException) {
+            if (timedOut) {
+                throw new LintTimeoutException(timeoutMillis);
+            }
+            throw ioException;
+        } finally {
+            if (watchdog != null) {
+                watchdog.cancel(false);
+            }
+        }
+    }
+
+    private void terminate() {
+        timedOut = true;
+        ExternalProcess.destroyTree(process.toHandle());
+    }
+
+    boolean isAlive() {
+        return process.isAlive();
+    }
+
+    @Override
+    public void close() {
+        try {
+            out.close();
+        } catch (IOException e) {
+            // silently ignore, the process is destroyed anyway
+        }
+        process.destroy();
+    }
+
+    @FunctionalInterface
+    private interface Exchange<T> {
+
+        T run() throws IOException;
+
+    }
+
+}
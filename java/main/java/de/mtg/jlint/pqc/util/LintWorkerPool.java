@@ -0,0 +1,163 @@
+package de.mtg.jlint.pqc.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A bounded pool of {@link LintWorker} processes that stays warm for the life of the JVM.
+ * <p>
+ * Workers are started lazily. A worker that died is replaced before it is used, and a worker that fails during a
+ * request is destroyed and the request is retried once on a freshly started worker. A request has one deadline that
+ * covers waiting for a worker, starting it, the request and its retry, so that its latency stays bounded by the
+ * deadline. A request that timed out, or failed when no time was left, is not retried.
+ * <p>
+ * Every worker belongs to the generation of the pool it was started in. {@link #restart()} starts a new generation, so
+ * workers of an older one are stopped when they are returned or found idle, also those that were busy during the
+ * restart.
+ */
+final class LintWorkerPool implements Closeable {
+
+    private final String executablePath;
+    private final long timeoutMillis;
+    private final boolean frames;
+    private final Semaphore permits;
+    private final BlockingQueue<PooledWorker> idleWorkers = new LinkedBlockingQueue<>();
+    private final AtomicInteger generation = new AtomicInteger();
+    private volatile boolean closed;
+
+    /**
+     * @param timeoutMillis the deadline of one request, or 0 if requests have no deadline.
+     * @param frames true to send binary frames to workers that speak the frame protocol, false to send JSON lines.
+     */
+    LintWorkerPool(String executablePath, int size, long timeoutMillis, boolean frames) {
+        this.executablePath = executablePath;
+        this.timeoutMillis = timeoutMillis;
+        this.frames = frames;
+        this.permits = new Semaphore(size, true);
+    }
+
+    ExternalLintResponse execute(ExternalLintRequest request) throws IOException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        acquirePermit(deadline);
+        try {
+            PooledWorker worker = borrowWorker(deadline);
+            ExternalLintResponse response;
+            try {
+                response = worker.worker().execute(request, getRemainingMillis(deadline));
+            } catch (LintTimeoutException timeoutException) {
+                worker.worker().close();
+                throw timeoutException;
+            } catch (IOException ioException) {
+                worker.worker().close();
+                if (timeoutMillis > 0 && deadline - System.nanoTime() <= 0) {
+                    throw ioException;
+                }
+                worker = startWorker(deadline);
+                try {
+                    response = worker.worker().execute(request, getRemainingMillis(deadline));
+                } catch (IOException retryException) {
+                    worker.worker().close();
+                    throw retryException;
+                }
+            }
+            returnWorker(worker);
+            return response;
+        } catch (LintTimeoutException timeoutException) {
+            // the worker was given the time that was left, the request had the whole timeout
+            throw new LintTimeoutException(timeoutMillis);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void acquirePermit(long deadline) throws IOException {
+        try {
+            if (timeoutMillis == 0) {
+                permits.acquire();
+            } else if (!permits.tryAcquire(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                throw new LintTimeoutException(timeoutMillis);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a lint worker");
+        }
+    }
+
+    /**
+     * Returns the milliseconds left until the deadline of the request, or 0 if requests have no deadline.
+     *
+     * @throws LintTimeoutException if the deadline has passed.
+     */
+    private long getRemainingMillis(long deadline) throws LintTimeoutException {
+        if (timeoutMillis == 0) {
+            return 0;
+        }
+        long remainingNanos = deadline - System.nanoTime();
+        if (remainingNanos <= 0) {
+            throw new LintTimeoutException(timeoutMillis);
+        }
+        // rounded up, 0 would mean no deadline
+        return TimeUnit.NANOSECONDS.toMillis(remainingNanos + TimeUnit.MILLISECONDS.toNanos(1) - 1);
+    }
+
+    private PooledWorker borrowWorker(long deadline) throws IOException {
+        PooledWorker worker;
+        while ((worker = idleWorkers.poll()) != null) {
+            if (worker.generation() == generation.get() && worker.worker().isAlive()) {
+                return worker;
+            }
+            worker.worker().close();
+        }
+        return startWorker(deadline);
+    }
+
+    private PooledWorker startWorker(long deadline) throws IOException {
+        int currentGeneration = generation.get();
+        return new PooledWorker(LintWorker.start(executablePath, frames, getRemainingMillis(deadline)),
+                currentGeneration);
+    }
+
+    private void returnWorker(PooledWorker worker) {
+        if (worker.generation() != generation.get()) {
+            worker.worker().close();
+            return;
+        }
+        // a worker returned during a restart is stopped by the next borrow
+        idleWorkers.offer(worker);
+        if (closed) {
+            close();
+        }
+    }
+
+    /**
+     * Stops all workers, such that the next requests start new ones, for example after the executable changed. The
+     * idle workers are stopped now, the busy ones when their request is done.
+     */
+    void restart() {
+        generation.incrementAndGet();
+        List<PooledWorker> workers = new ArrayList<>();
+        idleWorkers.drainTo(workers);
+        workers.forEach(worker -> worker.worker().close());
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        restart();
+    }
+
+    /**
+     * A worker and the generation of the pool it was started in.
+     */
+    private record PooledWorker(LintWorker worker, int generation) {
+    }
+
+}
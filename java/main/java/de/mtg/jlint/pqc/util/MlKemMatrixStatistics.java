@@ -0,0 +1,259 @@
+package de.mtg.jlint.pqc.util;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.bouncycastle.crypto.digests.SHAKEDigest;
+import org.bouncycastle.util.encoders.Hex;
+
+/**
+ * Statistics of the entries of the matrix &Acirc; that is expanded from the seed &rho; of an ML-KEM encapsulation
+ * key, see FIPS 203, algorithms 7 (SampleNTT) and 13 (K-PKE.KeyGen).
+ * <p>
+ * Every entry &Acirc;[i][j] = SampleNTT(&rho; || j || i) is sampled by rejection from SHAKE128 and analyzed before the
+ * next one is sampled, so the matrix is never stored. The buffers of the expansion are reused per thread. As the matrix only
+ * depends on &rho; and the rank, the statistics of the most recent seeds are cached, so that the matrix lints of one
+ * certificate expand the matrix only once.
+ * <p>
+ * The entries of an honestly generated matrix are uniformly distributed in [0, q). The bounds below are chosen such
+ * that such a matrix violates any of them with a probability of less than 10^-5.
+ */
+public final class MlKemMatrixStatistics {
+
+    /**
+     * An entry must not occur more often in the matrix. The expected number of occurrences is at most 256 * 16 / q.
+     */
+    public static final int MAX_ENTRY_FREQUENCY = 12;
+
+    /**
+     * Two consecutive coefficients of a polynomial are equal with a probability of 1 / q, so a run of this length is
+     * not expected in any matrix.
+     */
+    public static final int MAX_ENTRY_RUN = 3;
+
+    /**
+     * The difference between the numbers of small entries, below (q + 1) / 2, and large entries must not exceed this
+     * multiple of its standard deviation, the square root of the number of entries.
+     */
+    public static final int MAX_SL_DEVIATION = 6;
+
+    private static final int Q = 3329;
+    private static final int N = 256;
+    private static final int SEED_LENGTH = 32;
+    private static final int SHAKE128_RATE = 168;
+    private static final int HALF_Q = (Q + 1) / 2;
+
+    private static final int RECENT_STATISTICS_SIZE = 1024;
+
+    private static final Map<String, MlKemMatrixStatistics> RECENT_STATISTICS = Collections.synchronizedMap(
+            new LinkedHashMap<>(RECENT_STATISTICS_SIZE, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, MlKemMatrixStatistics> eldest) {
+                    return size() > RECENT_STATISTICS_SIZE;
+                }
+            });
+
+    private static final ThreadLocal<Expansion> EXPANSION = ThreadLocal.withInitial(Expansion::new);
+
+    private final int entries;
+    private final int maxEntryFrequency;
+    private final int mostFrequentEntry;
+    private final int longestRun;
+    private final int smallEntries;
+    private final int largeEntries;
+
+    private MlKemMatrixStatistics(int entries, int maxEntryFrequency, int mostFrequentEntry, int longestRun,
+            int smallEntries) {
+        this.entries = entries;
+        this.maxEntryFrequency = maxEntryFrequency;
+        this.mostFrequentEntry = mostFrequentEntry;
+        this.longestRun = longestRun;
+        this.smallEntries = smallEntries;
+        this.largeEntries = entries - smallEntries;
+    }
+
+    /**
+     * Returns the statistics of the matrix of the parameter set with rank k that is expanded from the seed &rho;, the
+     * last 32 bytes of the encapsulation key.
+     *
+     * @throws IllegalArgumentException if the rank is not the one of an ML-KEM parameter set or the key is too short
+     *                                  to contain a seed.
+     */
+    public static MlKemMatrixStatistics of(int rank, byte[] publicKey) {
+        if (rank < 2 || rank > 4 || publicKey.length < SEED_LENGTH) {
+            throw new IllegalArgumentException("Not an ML-KEM encapsulation key");
+        }
+        int seedOffset = publicKey.length - SEED_LENGTH;
+        String key = rank + Hex.toHexString(publicKey, seedOffset, SEED_LENGTH);
+        MlKemMatrixStatistics statistics = RECENT_STATISTICS.get(key);
+        if (statistics == null) {
+            statistics = EXPANSION.get().analyze(rank, publicKey, seedOffset);
+            RECENT_STATISTICS.put(key, statistics);
+        }
+        return statistics;
+    }
+
+    public int getEntries() {
+        return entries;
+    }
+
+    public int getMaxEntryFrequency() {
+        return maxEntryFrequency;
+    }
+
+    public int getMostFrequentEntry() {
+        return mostFrequentEntry;
+    }
+
+    public int getLongestRun() {
+        return longestRun;
+    }
+
+    public int getSmallEntries() {
+        return smallEntries;
+    }
+
+    public int getLargeEntries() {
+        return largeEntries;
+    }
+
+    public boolean isEntryFrequencyValid() {
+        return maxEntryFrequency <= MAX_ENTRY_FREQUENCY;
+    }
+
+    public boolean isEntryRunValid() {
+        return longestRun <= MAX_ENTRY_RUN;
+    }
+
+    public boolean isSlEntriesValid() {
+        long difference = smallEntries - largeEntries;
+        return difference * difference <= (long) MAX_SL_DEVIATION * MAX_SL_DEVIATION * entries;
+    }
+
+    /**
+     * Returns the statistics of the given entries, 256 coefficients in [0, q) each, instead of the entries of a matrix
+     * expanded from a seed.
+     */
+    static MlKemMatrixStatistics of(short[]... entries) {
+        Expansion expansion = new Expansion();
+        expansion.reset();
+        int coefficients = 0;
+        for (short[] entry : entries) {
+            expansion.analyzeEntry(entry);
+            coefficients += entry.length;
+        }
+        return expansion.getStatistics(coefficients);
+    }
+
+    /**
+     * Returns the 256 coefficients of the entry &Acirc;[i][j] expanded from the seed &rho;, the 32 bytes at the
+     * offset.
+     */
+    static short[] sampleNTT(byte[] seed, int offset, int i, int j) {
+        Expansion expansion = new Expansion();
+        expansion.absorb(seed, offset, i, j);
+        expansion.sampleNTT();
+        return expansion.entry.clone();
+    }
+
+    /**
+     * The reusable state of the expansion of one thread.
+     */
+    private static final class Expansion {
+
+        private final SHAKEDigest shake = new SHAKEDigest(128);
+        private final byte[] block = new byte[SHAKE128_RATE];
+        private final short[] histogram = new short[Q];
+        private final short[] entry = new short[N];
+
+        private int longestRun;
+        private int smallEntries;
+
+        private MlKemMatrixStatistics analyze(int rank, byte[] publicKey, int seedOffset) {
+            reset();
+            for (int i = 0; i < rank; i++) {
+                for (int j = 0; j < rank; j++) {
+                    absorb(publicKey, seedOffset, i, j);
+                    sampleNTT();
+                    analyzeEntry(entry);
+                }
+            }
+            return getStatistics(rank * rank * N);
+        }
+
+        private void reset() {
+            Arrays.fill(histogram, (short) 0);
+            longestRun = 0;
+            smallEntries = 0;
+        }
+
+        /**
+         * Returns the statistics of the analyzed entries, which have the given number of coefficients.
+         */
+        private MlKemMatrixStatistics getStatistics(int coefficients) {
+            int maxEntryFrequency = 0;
+            int mostFrequentEntry = 0;
+            for (int value = 0; value < Q; value++) {
+                if (histogram[value] > maxEntryFrequency) {
+                    maxEntryFrequency = histogram[value];
+                    mostFrequentEntry = value;
+                }
+            }
+            return new MlKemMatrixStatistics(coefficients, maxEntryFrequency, mostFrequentEntry, longestRun, smallEntries);
+        }
+
+        /**
+         * Absorbs the input &rho; || j || i of the entry &Acirc;[i][j] into the SHAKE128 state.
+         */
+        private void absorb(byte[] seed, int offset, int i, int j) {
+            shake.reset();
+            shake.update(seed, offset, SEED_LENGTH);
+            shake.update((byte) j);
+            shake.update((byte) i);
+        }
+
+        /**
+         * Samples the 256 coefficients of one entry from the absorbed SHAKE128 state.
+         */
+        private void sampleNTT() {
+            int sampled = 0;
+            while (sampled < N) {
+                shake.doOutput(block, 0, SHAKE128_RATE);
+                for (int b = 0; b < SHAKE128_RATE && sampled < N; b += 3) {
+                    int b1 = block[b + 1] & 0xFF;
+                    int d1 = (block[b] & 0xFF) | (b1 & 0x0F) << 8;
+                    int d2 = b1 >>> 4 | (block[b + 2] & 0xFF) << 4;
+                    if (d1 < Q) {
+                        entry[sampled++] = (short) d1;
+                    }
+                    if (d2 < Q && sampled < N) {
+                        entry[sampled++] = (short) d2;
+                    }
+                }
+            }
+        }
+
+        /**
+         * Adds the coefficients of an entry to the statistics. A run does not continue into the next entry.
+         */
+        private void analyzeEntry(short[] entry) {
+            int previous = -1;
+            int run = 0;
+            for (int coefficient : entry) {
+                histogram[coefficient]++;
+                if (coefficient < HALF_Q) {
+                    smallEntries++;
+                }
+                run = coefficient == previous ? run + 1 : 1;
+                previous = coefficient;
+                if (run > longestRun) {
+                    longestRun = run;
+                }
+            }
+        }
+
+    }
+
+}
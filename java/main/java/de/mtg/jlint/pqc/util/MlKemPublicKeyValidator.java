@@ -0,0 +1,92 @@
+package de.mtg.jlint.pqc.util;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+
+import org.bouncycastle.asn1.ASN1ObjectIdentifier;
+
+/**
+ * Checks the length and the modulus of ML-KEM encapsulation keys in-process, see FIPS 203, section 7.2.
+ * <p>
+ * An encapsulation key is the ByteEncode12 encoding of the k polynomials of t&#770; followed by the 32 bytes of the
+ * seed &rho;. The modulus check decodes every 12-bit coefficient of t&#770; and verifies that it is smaller than q,
+ * which is the same as checking that ByteEncode12(ByteDecode12(t&#770;)) reproduces the key, as libcrux does. Four
+ * coefficients are checked at once in the 16-bit lanes of a long, so the check does neither branch per coefficient
+ * nor allocate.
+ */
+public final class MlKemPublicKeyValidator {
+
+    private static final int Q = 3329;
+    private static final int POLYNOMIAL_LENGTH = 384;
+    private static final int SEED_LENGTH = 32;
+
+    private static final VarHandle LONG_LE = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final long COEFFICIENT_MASK = 0xFFFL;
+    private static final long LANE_OFFSET = 0x8000L - Q;
+    // adding 2^15 - q to a lane sets the top bit of the lane exactly if the coefficient is at least q
+    private static final long LANES_OFFSET = LANE_OFFSET | LANE_OFFSET << 16 | LANE_OFFSET << 32 | LANE_OFFSET << 48;
+    private static final long LANES_TOP_BITS = 0x8000800080008000L;
+
+    private MlKemPublicKeyValidator() {
+        // empty
+    }
+
+    /**
+     * Returns the rank k of the ML-KEM parameter set of the algorithm, or 0 if it is not ML-KEM.
+     */
+    public static int getRank(ASN1ObjectIdentifier algorithm) {
+        if (PQCUtils.ID_ALG_KYBER_512.equals(algorithm)) {
+            return 2;
+        }
+        if (PQCUtils.ID_ALG_KYBER_768.equals(algorithm)) {
+            return 3;
+        }
+        if (PQCUtils.ID_ALG_KYBER_1024.equals(algorithm)) {
+            return 4;
+        }
+        return 0;
+    }
+
+    /**
+     * Returns the length of an encapsulation key of the parameter set with rank k.
+     */
+    public static int getEncodedLength(int rank) {
+        return POLYNOMIAL_LENGTH * rank + SEED_LENGTH;
+    }
+
+    public static boolean isLengthValid(int rank, int length) {
+        return rank != 0 && length == getEncodedLength(rank);
+    }
+
+    /**
+     * Returns true if the key has the length of the parameter set and all coefficients of t&#770; are smaller than q.
+     */
+    public static boolean isValid(int rank, byte[] publicKey) {
+        return isValid(rank, publicKey, 0, publicKey.length);
+    }
+
+    public static boolean isValid(int rank, byte[] publicKey, int offset, int length) {
+        return isLengthValid(rank, length) && isModulusValid(publicKey, offset, POLYNOMIAL_LENGTH * rank);
+    }
+
+    /**
+     * Checks the coefficients of the encoded t&#770; of the given length in bytes. The encoding must be followed by
+     * at least two more bytes, which the seed always provides.
+     */
+    private static boolean isModulusValid(byte[] publicKey, int offset, int length) {
+        long invalidLanes = 0;
+        int end = offset + length;
+        for (int i = offset; i < end; i += 6) {
+            // six bytes hold four coefficients, the two bytes after them are masked out
+            long bits = (long) LONG_LE.get(publicKey, i);
+            long lanes = (bits & COEFFICIENT_MASK)
+                    | (bits >>> 12 & COEFFICIENT_MASK) << 16
+                    | (bits >>> 24 & COEFFICIENT_MASK) << 32
+                    | (bits >>> 36 & COEFFICIENT_MASK) << 48;
+            invalidLanes |= lanes + LANES_OFFSET;
+        }
+        return (invalidLanes & LANES_TOP_BITS) == 0;
+    }
+
+}
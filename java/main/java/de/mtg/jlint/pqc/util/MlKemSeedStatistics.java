@@ -0,0 +1,135 @@
+package de.mtg.jlint.pqc.util;
+
+import java.security.cert.X509Certificate;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Statistics of the bytes of the seed &rho; of an ML-KEM encapsulation key, see FIPS 203, algorithm 13 (K-PKE.KeyGen).
+ * <p>
+ * The seed is the last 32 bytes of the encapsulation key. As the subjectPublicKey bit string is the last element of
+ * the SubjectPublicKeyInfo, the seed is read from the end of its encoding without decoding or copying the key. All
+ * statistics are computed in one pass over the seed and cached per certificate.
+ * <p>
+ * The bytes of an honestly generated seed are uniformly distributed. The bounds below are chosen such that such a
+ * seed violates any of them with a probability of less than 10^-3.
+ */
+public final class MlKemSeedStatistics {
+
+    /**
+     * A byte value must not occur more often in the seed.
+     */
+    public static final int MAX_ENTRY_FREQUENCY = 4;
+
+    /**
+     * The seed must not contain a longer run of the same byte value.
+     */
+    public static final int MAX_ENTRY_RUN = 2;
+
+    /**
+     * The seed must not contain more small bytes, below 0x80, or more large bytes.
+     */
+    public static final int MAX_SL_ENTRIES = 25;
+
+    private static final int SEED_LENGTH = 32;
+    private static final int SMALL_BOUND = 0x80;
+
+    private static final Map<X509Certificate, MlKemSeedStatistics> CERTIFICATE_STATISTICS =
+            Collections.synchronizedMap(new WeakHashMap<>());
+
+    private final int maxEntryFrequency;
+    private final int mostFrequentEntry;
+    private final int longestRun;
+    private final int smallEntries;
+    private final int largeEntries;
+
+    private MlKemSeedStatistics(int maxEntryFrequency, int mostFrequentEntry, int longestRun, int smallEntries) {
+        this.maxEntryFrequency = maxEntryFrequency;
+        this.mostFrequentEntry = mostFrequentEntry;
+        this.longestRun = longestRun;
+        this.smallEntries = smallEntries;
+        this.largeEntries = SEED_LENGTH - smallEntries;
+    }
+
+    /**
+     * Returns the statistics of the seed of the ML-KEM encapsulation key of the certificate.
+     *
+     * @throws IllegalArgumentException if the public key is too short to contain a seed.
+     */
+    public static MlKemSeedStatistics of(X509Certificate certificate) {
+        MlKemSeedStatistics statistics = CERTIFICATE_STATISTICS.get(certificate);
+        if (statistics == null) {
+            byte[] subjectPublicKeyInfo = certificate.getPublicKey().getEncoded();
+            statistics = of(subjectPublicKeyInfo, subjectPublicKeyInfo.length - SEED_LENGTH);
+            CERTIFICATE_STATISTICS.put(certificate, statistics);
+        }
+        return statistics;
+    }
+
+    /**
+     * Returns the statistics of the 32 bytes of the seed starting at the offset.
+     */
+    public static MlKemSeedStatistics of(byte[] data, int offset) {
+        if (offset < 0 || offset + SEED_LENGTH > data.length) {
+            throw new IllegalArgumentException("Not an ML-KEM encapsulation key");
+        }
+        byte[] frequencies = new byte[256];
+        int maxEntryFrequency = 0;
+        int mostFrequentEntry = 0;
+        int longestRun = 0;
+        int run = 0;
+        int previous = -1;
+        int smallEntries = 0;
+        for (int i = offset; i < offset + SEED_LENGTH; i++) {
+            int entry = data[i] & 0xFF;
+            int entryFrequency = ++frequencies[entry];
+            if (entryFrequency > maxEntryFrequency) {
+                maxEntryFrequency = entryFrequency;
+                mostFrequentEntry = entry;
+            }
+            run = entry == previous ? run + 1 : 1;
+            previous = entry;
+            if (run > longestRun) {
+                longestRun = run;
+            }
+            if (entry < SMALL_BOUND) {
+                smallEntries++;
+            }
+        }
+        return new MlKemSeedStatistics(maxEntryFrequency, mostFrequentEntry, longestRun, smallEntries);
+    }
+
+    public int getMaxEntryFrequency() {
+        return maxEntryFrequency;
+    }
+
+    public int getMostFrequentEntry() {
+        return mostFrequentEntry;
+    }
+
+    public int getLongestRun() {
+        return longestRun;
+    }
+
+    public int getSmallEntries() {
+        return smallEntries;
+    }
+
+    public int getLargeEntries() {
+        return largeEntries;
+    }
+
+    public boolean isEntryFrequencyValid() {
+        return maxEntryFrequency <= MAX_ENTRY_FREQUENCY;
+    }
+
+    public boolean isEntryRunValid() {
+        return longestRun <= MAX_ENTRY_RUN;
+    }
+
+    public boolean isSlEntriesValid() {
+        return smallEntries <= MAX_SL_ENTRIES && largeEntries <= MAX_SL_ENTRIES;
+    }
+
+}
@@ -0,0 +1,107 @@
+package de.mtg.jlint.pqc.util;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Validates ML-KEM encapsulation keys in-process with the C extraction of libcrux in {@code rust/c}.
+ * <p>
+ * The native library {@code jlint_pqc} is built from {@code rust/c/jni} with the CMake project in {@code rust/c}. The
+ * key bytes are passed directly to {@code validate_public_key} of the declared parameter set, so neither a temporary
+ * file, nor a process, nor base64 is involved.
+ * <p>
+ * Every lint is answered with its own check: the length lint checks the length against the declared parameter set, the
+ * encoding lint is answered by the native validation, and the lints on the seed and the matrix use
+ * {@link MlKemSeedStatistics} and {@link MlKemMatrixStatistics} with the same bounds as the Java lints. Lints that are
+ * not in {@link ExternalLintUtils#ML_KEM_LINT_NAMES} are answered with {@link #FATAL}.
+ */
+final class NativeLintEngine implements LintEngine {
+
+    private static final String LIBRARY_NAME = "jlint_pqc";
+
+    private static final int VALID = 1;
+
+    private static final int SEED_LENGTH = 32;
+
+    // changes when the results change, so that results of an older version are not reused
+    private static final String VERSION = "native-2";
+
+    private static final String TRANSPORT = "native";
+
+    private static Boolean loaded;
+
+    private static native int validatePublicKey(int rank, byte[] publicKey);
+
+    /**
+     * Loads the native library once per JVM.
+     *
+     * @param libraryPath the absolute path of the library, or null to look it up in {@code java.library.path}.
+     * @return true if the library is available.
+     */
+    static synchronized boolean load(String libraryPath) {
+        if (loaded == null) {
+            try {
+                if (libraryPath == null || libraryPath.isBlank()) {
+                    System.loadLibrary(LIBRARY_NAME);
+                } else {
+                    System.load(libraryPath);
+                }
+                loaded = Boolean.TRUE;
+            } catch (UnsatisfiedLinkError | SecurityException ex) {
+                loaded = Boolean.FALSE;
+            }
+        }
+        return loaded;
+    }
+
+    @Override
+    public Map<String, String> evaluate(List<String> lintNames, String id, int rank, byte[] publicKey) {
+        LintEvents.EngineEvent event = new LintEvents.EngineEvent();
+        event.begin();
+        long start = System.nanoTime();
+        Map<String, String> results = new LinkedHashMap<>();
+        for (String lintName : lintNames) {
+            results.put(lintName, evaluate(lintName, rank, publicKey));
+        }
+        LintMetrics.record(LintMetrics.Phase.ENGINE, start);
+        event.commit(TRANSPORT, LintEvents.PROTOCOL_JNI, lintNames, id, publicKey.length, 0);
+        return results;
+    }
+
+    private static String evaluate(String lintName, int rank, byte[] publicKey) {
+        return switch (lintName) {
+            case "e_ml_kem_ek_length" -> toResult(MlKemPublicKeyValidator.isLengthValid(rank, publicKey.length));
+            // a key whose length does not match the declared parameter set is not valid
+            case "e_ml_kem_ek_encoding" -> toResult(validatePublicKey(rank, publicKey) == VALID);
+            case "e_ml_kem_ek_seed_entry_frequency" -> toResult(publicKey.length >= SEED_LENGTH
+                    && seedStatistics(publicKey).isEntryFrequencyValid());
+            case "e_ml_kem_ek_seed_entry_run" -> toResult(publicKey.length >= SEED_LENGTH
+                    && seedStatistics(publicKey).isEntryRunValid());
+            case "e_ml_kem_ek_seed_sl_entries" -> toResult(publicKey.length >= SEED_LENGTH
+                    && seedStatistics(publicKey).isSlEntriesValid());
+            case "e_ml_kem_ek_matrix_entry_frequency" -> toResult(MlKemPublicKeyValidator.isLengthValid(rank,
+                    publicKey.length) && MlKemMatrixStatistics.of(rank, publicKey).isEntryFrequencyValid());
+            case "e_ml_kem_ek_matrix_entry_run" -> toResult(MlKemPublicKeyValidator.isLengthValid(rank,
+                    publicKey.length) && MlKemMatrixStatistics.of(rank, publicKey).isEntryRunValid());
+            case "e_ml_kem_ek_matrix_sl_entries" -> toResult(MlKemPublicKeyValidator.isLengthValid(rank,
+                    publicKey.length) && MlKemMatrixStatistics.of(rank, publicKey).isSlEntriesValid());
+            default -> FATAL;
+        };
+    }
+
+    private static MlKemSeedStatistics seedStatistics(byte[] publicKey) {
+        return MlKemSeedStatistics.of(publicKey, publicKey.length - SEED_LENGTH);
+    }
+
+    private static String toResult(boolean valid) {
+        return valid ? PASS : ERROR;
+    }
+
+    @Override
+    public String getVersion() {
+        // a loaded library cannot be replaced during the life of the JVM
+        return VERSION;
+    }
+
+}
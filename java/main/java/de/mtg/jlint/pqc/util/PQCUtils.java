@@ -129,6 +129,15 @@ public final class PQCUtils {
         return signatureOIDs.stream().anyMatch(oidMatches);
     }
 
+    public static String toHexDigest(byte[] input) {
+        try {
+            MessageDigest messageDigest = MessageDigest.getInstance("SHA256", BouncyCastleProvider.PROVIDER_NAME);
+            return new String(Hex.encode(messageDigest.digest(input)));
+        } catch (NoSuchAlgorithmException | NoSuchProviderException ex) {
+            return new String(Hex.encode(input));
+        }
+    }
+
     public static String toHexDigest(String inputBase64) {
         try {
             MessageDigest messageDigest = MessageDigest.getInstance("SHA256", BouncyCastleProvider.PROVIDER_NAME);
@@ -0,0 +1,50 @@
+package de.mtg.jlint.pqc.util;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * A memory-mapped {@link SortedFingerprintFile} behind a {@link BlockedBloomFilter}, for blocklists with millions of
+ * fingerprints.
+ * <p>
+ * Most fingerprints that are not in the file are rejected by the filter, which reads one block of 64 bytes, so that
+ * only the remaining lookups search the file. The filter takes 2 bytes per fingerprint on the heap, while the file
+ * itself is paged in by the operating system on demand.
+ * <p>
+ * Instances are immutable and thread-safe. Lookups do not allocate.
+ */
+final class PrefilteredFingerprintSet implements FingerprintSet {
+
+    private static final int BITS_PER_FINGERPRINT = 16;
+
+    private final BlockedBloomFilter filter;
+    private final SortedFingerprintFile fingerprints;
+
+    private PrefilteredFingerprintSet(BlockedBloomFilter filter, SortedFingerprintFile fingerprints) {
+        this.filter = filter;
+        this.fingerprints = fingerprints;
+    }
+
+    /**
+     * Memory-maps the fingerprint file and builds its filter.
+     *
+     * @throws IOException if the file cannot be read or is not a fingerprint file.
+     */
+    static PrefilteredFingerprintSet map(Path path) throws IOException {
+        SortedFingerprintFile fingerprints = SortedFingerprintFile.map(path);
+        BlockedBloomFilter filter = new BlockedBloomFilter(fingerprints.size(), BITS_PER_FINGERPRINT);
+        fingerprints.addTo(filter);
+        return new PrefilteredFingerprintSet(filter, fingerprints);
+    }
+
+    @Override
+    public int size() {
+        return fingerprints.size();
+    }
+
+    @Override
+    public boolean contains(byte[] fingerprint) {
+        return filter.mightContain(fingerprint) && fingerprints.contains(fingerprint);
+    }
+
+}
@@ -0,0 +1,304 @@
+package de.mtg.jlint.pqc.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+
+import org.bouncycastle.util.encoders.Hex;
+
+/**
+ * A hash table of external lint results in a memory-mapped file that is shared by all JVMs on a host, so that
+ * short-lived lint processes reuse the results of each other.
+ * <p>
+ * The file starts with a header of 64 bytes: a magic number, the format version, the number of slots and a counter of
+ * the writes. It is followed by a fixed number of slots of 64 bytes:
+ * <pre>
+ *  0  state           0 if empty, the stamp of the writer with the WRITING bit set while the entry is written,
+ *                     otherwise the tag of the entry with the READY bit set
+ *  8  key id          the SHA-256 digest of the SubjectPublicKeyInfo
+ * 40  lint hash       the hash of the lint name and the engine version
+ * 48  stamp           the value of the counter when the entry was written
+ * 56  result length
+ * 57  result          up to 7 ASCII characters
+ * </pre>
+ * A writer takes a stamp from the counter, claims a slot by a compare-and-set of its state to WRITING with the stamp,
+ * writes the entry and publishes it by setting the state to READY. Readers only read entries in the READY state and
+ * verify all fields of the entry. As a slot may be overwritten while it is read, a reader reads the state again after
+ * the entry, and only returns the entry if the state did not change, so no lock is needed.
+ * <p>
+ * A process that dies while it writes an entry leaves its slot in the WRITING state. Every write takes a stamp, also
+ * if it does not find a slot, so once as many writes as the file has slots were started after the slot was claimed,
+ * the writer is considered dead and the slot is replaced like the oldest entry. A writer that was only stalled that
+ * long does not publish its entry.
+ * <p>
+ * Every result is stored in one slot, so a file holds the results of about slots / 8 keys with all ML-KEM lints, 8192
+ * keys with the default of 65536 slots. The table is never resized. A result is stored in one of 16 slots that follow
+ * the slot of its tag. When all of them are taken, the entry with the oldest stamp among them is replaced, so the file
+ * keeps the most recently written results. Results of different engine versions do not replace each other, every
+ * entry carries the hash of its engine version, and entries of an engine version that is no longer used are replaced
+ * as they age.
+ */
+final class SharedLintResultFile implements Closeable {
+
+    private static final int MAGIC = 0x50514352;
+    private static final int FORMAT_VERSION = 3;
+
+    private static final int HEADER_SIZE = 64;
+    private static final int MAGIC_OFFSET = 0;
+    private static final int FORMAT_VERSION_OFFSET = 4;
+    private static final int SLOTS_OFFSET = 8;
+    private static final int COUNTER_OFFSET = 16;
+
+    private static final int SLOT_SIZE = 64;
+    private static final int STATE_OFFSET = 0;
+    private static final int ID_OFFSET = 8;
+    private static final int ID_LENGTH = 32;
+    private static final int LINT_HASH_OFFSET = 40;
+    private static final int STAMP_OFFSET = 48;
+    private static final int RESULT_LENGTH_OFFSET = 56;
+    private static final int RESULT_OFFSET = 57;
+    private static final int MAX_RESULT_LENGTH = SLOT_SIZE - RESULT_OFFSET;
+
+    private static final long WRITING = 1L;
+    private static final long READY = 2L;
+    private static final long FLAGS = WRITING | READY;
+    private static final int MAX_PROBES = 16;
+    private static final int MAX_SLOTS = 1 << 24;
+
+    private static final VarHandle LONG = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int slots;
+
+    private SharedLintResultFile(FileChannel channel, MappedByteBuffer buffer, int slots) {
+        this.channel = channel;
+        this.buffer = buffer;
+        this.slots = slots;
+    }
+
+    /**
+     * Opens the file, or initializes it if it does not exist or has a different format. The number of slots of an
+     * existing file is kept, so that all processes agree on it.
+     *
+     * @param slots the number of slots of a new file, rounded up to a power of two.
+     */
+    static SharedLintResultFile open(Path path, int slots) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            int slotCount;
+            FileLock lock = channel.lock();
+            try {
+                MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+                header.order(ByteOrder.LITTLE_ENDIAN);
+                slotCount = header.getInt(SLOTS_OFFSET);
+                if (header.getInt(MAGIC_OFFSET) != MAGIC
+                        || header.getInt(FORMAT_VERSION_OFFSET) != FORMAT_VERSION
+                        || slotCount < MAX_PROBES
+                        || slotCount > MAX_SLOTS
+                        || Integer.bitCount(slotCount) != 1
+                        || channel.size() < getFileSize(slotCount)) {
+                    slotCount = Integer.highestOneBit(Math.min(Math.max(slots, MAX_PROBES), MAX_SLOTS) - 1) << 1;
+                    // the file is never shrunk, other processes may still map it
+                    if (channel.size() < getFileSize(slotCount)) {
+                        channel.write(ByteBuffer.allocate(1), getFileSize(slotCount) - 1);
+                    }
+                    MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, getFileSize(slotCount));
+                    for (int offset = HEADER_SIZE; offset < buffer.capacity(); offset += SLOT_SIZE) {
+                        buffer.putLong(offset + STATE_OFFSET, 0L);
+                    }
+                    header.putInt(MAGIC_OFFSET, MAGIC);
+                    header.putInt(FORMAT_VERSION_OFFSET, FORMAT_VERSION);
+                    header.putInt(SLOTS_OFFSET, slotCount);
+                    header.putLong(COUNTER_OFFSET, 0L);
+                    buffer.force();
+                    header.force();
+                }
+            } finally {
+                lock.release();
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, getFileSize(slotCount));
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            return new SharedLintResultFile(channel, buffer, slotCount);
+        } catch (IOException | RuntimeException ex) {
+            channel.close();
+            throw ex;
+        }
+    }
+
+    private static long getFileSize(int slots) {
+        return HEADER_SIZE + (long) slots * SLOT_SIZE;
+    }
+
+    /**
+     * Returns the shared result of the lint for the key, or null if there is none.
+     */
+    String get(String lintName, String id, String engineVersion) {
+        byte[] idBytes = Hex.decode(id);
+        if (idBytes.length != ID_LENGTH) {
+            return null;
+        }
+        long lintHash = hash(lintName, engineVersion);
+        long tag = getTag(idBytes, lintHash);
+        int slot = getSlot(tag);
+        for (int probe = 0; probe < MAX_PROBES; probe++) {
+            int offset = getOffset(slot + probe);
+            long state = (long) LONG.getAcquire(buffer, offset + STATE_OFFSET);
+            if (state == 0) {
+                return null;
+            }
+            long stamp = buffer.getLong(offset + STAMP_OFFSET);
+            if (state == (tag | READY) && matches(offset, idBytes, lintHash)) {
+                int length = buffer.get(offset + RESULT_LENGTH_OFFSET);
+                byte[] result = length < 0 || length > MAX_RESULT_LENGTH ? null : new byte[length];
+                if (result != null) {
+                    buffer.get(offset + RESULT_OFFSET, result);
+                }
+                // the entry is only consistent if the slot was not replaced while it was read, an entry with the same
+                // tag that replaced it in the meantime has another stamp
+                VarHandle.loadLoadFence();
+                if ((long) LONG.getAcquire(buffer, offset + STATE_OFFSET) != state
+                        || buffer.getLong(offset + STAMP_OFFSET) != stamp || result == null) {
+                    return null;
+                }
+                return new String(result, StandardCharsets.US_ASCII);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Shares the results of the lints for the key.
+     */
+    void put(String id, String engineVersion, Map<String, String> results) {
+        byte[] idBytes = Hex.decode(id);
+        if (idBytes.length != ID_LENGTH) {
+            return;
+        }
+        for (Map.Entry<String, String> result : results.entrySet()) {
+            byte[] value = result.getValue().getBytes(StandardCharsets.US_ASCII);
+            if (value.length <= MAX_RESULT_LENGTH) {
+                put(idBytes, hash(result.getKey(), engineVersion), value);
+            }
+        }
+    }
+
+    private void put(byte[] idBytes, long lintHash, byte[] value) {
+        long stamp = (long) LONG.getAndAdd(buffer, COUNTER_OFFSET, 1L);
+        long claim = stamp << 2 | WRITING;
+        long tag = getTag(idBytes, lintHash);
+        int slot = getSlot(tag);
+        int oldestOffset = -1;
+        long oldestState = 0;
+        long oldestStamp = Long.MAX_VALUE;
+        for (int probe = 0; probe < MAX_PROBES; probe++) {
+            int offset = getOffset(slot + probe);
+            long state = (long) LONG.getAcquire(buffer, offset + STATE_OFFSET);
+            if (state == (tag | READY) && matches(offset, idBytes, lintHash)) {
+                return;
+            }
+            if (state == 0 && LONG.compareAndSet(buffer, offset + STATE_OFFSET, 0L, claim)) {
+                write(offset, claim, stamp, tag, idBytes, lintHash, value);
+                return;
+            }
+            long entryStamp;
+            if ((state & READY) != 0) {
+                entryStamp = buffer.getLong(offset + STAMP_OFFSET);
+            } else if ((state & WRITING) != 0 && stamp - (state >>> 2) > slots) {
+                // the writer that claimed the slot died
+                entryStamp = state >>> 2;
+            } else {
+                continue;
+            }
+            if (entryStamp < oldestStamp) {
+                oldestOffset = offset;
+                oldestState = state;
+                oldestStamp = entryStamp;
+            }
+        }
+        // all slots are taken, the oldest entry is replaced unless another writer replaced it first
+        if (oldestOffset >= 0 && LONG.compareAndSet(buffer, oldestOffset + STATE_OFFSET, oldestState, claim)) {
+            write(oldestOffset, claim, stamp, tag, idBytes, lintHash, value);
+        }
+    }
+
+    /**
+     * Writes the entry into the slot that was claimed by setting its state to the claim, and publishes it unless the
+     * slot was taken over in the meantime because the writer seemed to have died.
+     */
+    private void write(int offset, long claim, long stamp, long tag, byte[] idBytes, long lintHash, byte[] value) {
+        // the stamp is written first, so that a reader of the replaced entry sees that it changed
+        buffer.putLong(offset + STAMP_OFFSET, stamp);
+        VarHandle.storeStoreFence();
+        buffer.put(offset + ID_OFFSET, idBytes);
+        buffer.putLong(offset + LINT_HASH_OFFSET, lintHash);
+        buffer.put(offset + RESULT_LENGTH_OFFSET, (byte) value.length);
+        buffer.put(offset + RESULT_OFFSET, value);
+        LONG.compareAndSet(buffer, offset + STATE_OFFSET, claim, tag | READY);
+    }
+
+    private boolean matches(int offset, byte[] idBytes, long lintHash) {
+        if (buffer.getLong(offset + LINT_HASH_OFFSET) != lintHash) {
+            return false;
+        }
+        for (int i = 0; i < ID_LENGTH; i++) {
+            if (buffer.get(offset + ID_OFFSET + i) != idBytes[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int getSlot(long tag) {
+        return (int) (tag >>> 2) & (slots - 1);
+    }
+
+    private int getOffset(int slot) {
+        return HEADER_SIZE + (slot & (slots - 1)) * SLOT_SIZE;
+    }
+
+    /**
+     * Returns the tag of an entry, which is never 0 and leaves the bits of the state flags free.
+     */
+    private static long getTag(byte[] idBytes, long lintHash) {
+        long idPrefix = 0;
+        for (int i = 0; i < Long.BYTES; i++) {
+            idPrefix = idPrefix << 8 | (idBytes[i] & 0xFF);
+        }
+        long tag = (idPrefix ^ lintHash * 0x9E3779B97F4A7C15L) & ~FLAGS;
+        return tag == 0 ? 4L : tag;
+    }
+
+    /**
+     * Returns the 64-bit FNV-1a hash of the lint name and the engine version, separated by a NUL character.
+     */
+    private static long hash(String lintName, String engineVersion) {
+        long hash = 0xCBF29CE484222325L;
+        for (int i = 0; i < lintName.length(); i++) {
+            hash ^= lintName.charAt(i);
+            hash *= 0x100000001B3L;
+        }
+        hash *= 0x100000001B3L;
+        for (int i = 0; i < engineVersion.length(); i++) {
+            hash ^= engineVersion.charAt(i);
+            hash *= 0x100000001B3L;
+        }
+        return hash;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+}
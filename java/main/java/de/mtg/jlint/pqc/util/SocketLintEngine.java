@@ -0,0 +1,118 @@
+package de.mtg.jlint.pqc.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.UnixDomainSocketAddress;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Evaluates lints on the lint server of the Rust implementation that serves all JVMs of a host, see the
+ * {@code serve} command of the CLI.
+ * <p>
+ * Requests are spread over a fixed number of pipelined connections, which are opened on first use and reopened
+ * after they were closed.
+ */
+final class SocketLintEngine implements LintEngine, Closeable {
+
+    private final UnixDomainSocketAddress address;
+    private final long timeoutMillis;
+    private final boolean frames;
+    private final LintConnection[] connections;
+    private final AtomicInteger nextConnection = new AtomicInteger();
+
+    /**
+     * @param connections the number of connections to the server.
+     * @param timeoutMillis the deadline of one request, or 0 if requests have no deadline.
+     * @param frames true to send binary frames if the server speaks the frame protocol, false to send JSON lines.
+     */
+    SocketLintEngine(Path socketPath, int connections, long timeoutMillis, boolean frames) {
+        this.address = UnixDomainSocketAddress.of(socketPath);
+        this.timeoutMillis = timeoutMillis;
+        this.frames = frames;
+        this.connections = new LintConnection[Math.max(connections, 1)];
+    }
+
+    @Override
+    public Map<String, String> evaluate(List<String> lintNames, String id, int rank, byte[] publicKey) throws IOException {
+        ExternalLintRequest externalLintRequest = new ExternalLintRequest(lintNames, id, rank, publicKey);
+        CompletableFuture<ExternalLintResponse> response = getConnection().send(externalLintRequest);
+        try {
+            return (timeoutMillis > 0 ? response.get(timeoutMillis, TimeUnit.MILLISECONDS) : response.get()).getResults();
+        } catch (TimeoutException e) {
+            throw new LintTimeoutException(timeoutMillis);
+        } catch (ExecutionException e) {
+            throw new IOException("Lint server failed", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the lint server");
+        }
+    }
+
+    /**
+     * Sends the request and returns without waiting, the response completes the future on the reader of the
+     * connection.
+     */
+    @Override
+    public CompletableFuture<Map<String, String>> evaluateAsync(List<String> lintNames, String id, int rank,
+            byte[] publicKey, Executor executor) {
+        CompletableFuture<ExternalLintResponse> response;
+        try {
+            response = getConnection().send(new ExternalLintRequest(lintNames, id, rank, publicKey));
+        } catch (IOException ex) {
+            return CompletableFuture.failedFuture(ex);
+        }
+        if (timeoutMillis > 0) {
+            response.orTimeout(timeoutMillis, TimeUnit.MILLISECONDS);
+        }
+        CompletableFuture<Map<String, String>> results = new CompletableFuture<>();
+        response.whenComplete((externalLintResponse, failure) -> {
+            if (failure == null) {
+                results.complete(externalLintResponse.getResults());
+            } else if (LintExecutors.getCause(failure) instanceof TimeoutException) {
+                results.completeExceptionally(new LintTimeoutException(timeoutMillis));
+            } else {
+                results.completeExceptionally(LintExecutors.getCause(failure));
+            }
+        });
+        return results;
+    }
+
+    @Override
+    public String getVersion() {
+        // the server is managed outside of this JVM
+        return "socket:" + address.getPath();
+    }
+
+    private LintConnection getConnection() throws IOException {
+        int index = Math.floorMod(nextConnection.getAndIncrement(), connections.length);
+        synchronized (connections) {
+            LintConnection connection = connections[index];
+            if (connection == null || !connection.isOpen()) {
+                connection = LintConnection.open(address, frames, timeoutMillis);
+                connections[index] = connection;
+            }
+            return connection;
+        }
+    }
+
+    @Override
+    public void close() {
+        synchronized (connections) {
+            for (LintConnection connection : connections) {
+                if (connection != null) {
+                    connection.close();
+                }
+            }
+        }
+    }
+
+}
@@ -0,0 +1,191 @@
+package de.mtg.jlint.pqc.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * A sorted table of SHA-256 fingerprints in a binary file, which is compiled at build time, see
+ * {@link KnownPublicKeysCompiler}, and memory-mapped at runtime.
+ * <p>
+ * The file starts with a header of 48 bytes, all numbers are big-endian:
+ * <pre>
+ *  0  magic           "PQKK"
+ *  4  format version
+ *  8  number of fingerprints
+ * 16  source digest   the SHA-256 digest of the file the fingerprints were compiled from
+ * 48  fingerprints    32 bytes each, in ascending unsigned order without duplicates
+ * </pre>
+ * A lookup is a binary search that compares the fingerprints as four unsigned longs, so it neither parses nor
+ * allocates. Instances are immutable and thread-safe, as the buffer is only read with absolute reads.
+ */
+final class SortedFingerprintFile implements FingerprintSet {
+
+    private static final int MAGIC = 0x50514b4b;
+    private static final int FORMAT_VERSION = 1;
+
+    private static final int HEADER_SIZE = 48;
+    private static final int MAGIC_OFFSET = 0;
+    private static final int FORMAT_VERSION_OFFSET = 4;
+    private static final int COUNT_OFFSET = 8;
+    private static final int SOURCE_DIGEST_OFFSET = 16;
+
+    private static final int FINGERPRINT_LENGTH = FingerprintIndex.FINGERPRINT_LENGTH;
+
+    private static final VarHandle LONG = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+
+    private final ByteBuffer buffer;
+    private final int size;
+
+    private SortedFingerprintFile(ByteBuffer buffer, int size) {
+        this.buffer = buffer;
+        this.size = size;
+    }
+
+    /**
+     * Memory-maps the file.
+     *
+     * @throws IOException if the file cannot be read or is not a fingerprint file.
+     */
+    static SortedFingerprintFile map(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Fingerprint file too large");
+            }
+            // the mapping stays valid after the channel is closed
+            return of(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Reads the file from the stream, for example from a resource in a jar, which cannot be memory-mapped.
+     *
+     * @throws IOException if the stream cannot be read or does not contain a fingerprint file.
+     */
+    static SortedFingerprintFile read(InputStream in) throws IOException {
+        return of(ByteBuffer.wrap(in.readAllBytes()));
+    }
+
+    private static SortedFingerprintFile of(ByteBuffer buffer) throws IOException {
+        buffer.order(ByteOrder.BIG_ENDIAN);
+        if (buffer.capacity() < HEADER_SIZE
+                || buffer.getInt(MAGIC_OFFSET) != MAGIC
+                || buffer.getInt(FORMAT_VERSION_OFFSET) != FORMAT_VERSION) {
+            throw new IOException("Not a fingerprint file");
+        }
+        long count = buffer.getLong(COUNT_OFFSET);
+        if (count < 0 || buffer.capacity() != HEADER_SIZE + count * FINGERPRINT_LENGTH) {
+            throw new IOException("Truncated fingerprint file");
+        }
+        return new SortedFingerprintFile(buffer, (int) count);
+    }
+
+    /**
+     * Writes the fingerprints as a fingerprint file. Duplicates are written once.
+     *
+     * @param sourceDigest the SHA-256 digest of the file the fingerprints were computed from.
+     * @return the number of distinct fingerprints written.
+     */
+    static int write(OutputStream out, Collection<byte[]> fingerprints, byte[] sourceDigest) throws IOException {
+        List<byte[]> sorted = new ArrayList<>(fingerprints);
+        sorted.sort(Arrays::compareUnsigned);
+        List<byte[]> unique = new ArrayList<>(sorted.size());
+        for (byte[] fingerprint : sorted) {
+            if (fingerprint.length != FINGERPRINT_LENGTH) {
+                throw new IllegalArgumentException("Not a SHA-256 fingerprint");
+            }
+            if (unique.isEmpty() || !Arrays.equals(unique.get(unique.size() - 1), fingerprint)) {
+                unique.add(fingerprint);
+            }
+        }
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC_OFFSET, MAGIC);
+        header.putInt(FORMAT_VERSION_OFFSET, FORMAT_VERSION);
+        header.putLong(COUNT_OFFSET, unique.size());
+        header.put(SOURCE_DIGEST_OFFSET, sourceDigest, 0, FINGERPRINT_LENGTH);
+        out.write(header.array());
+        for (byte[] fingerprint : unique) {
+            out.write(fingerprint);
+        }
+        return unique.size();
+    }
+
+    /**
+     * Returns whether the fingerprints were compiled from the file with the given SHA-256 digest.
+     */
+    boolean isCompiledFrom(byte[] sourceDigest) {
+        for (int i = 0; i < FINGERPRINT_LENGTH; i += Long.BYTES) {
+            if (buffer.getLong(SOURCE_DIGEST_OFFSET + i) != (long) LONG.get(sourceDigest, i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the size of the file in bytes.
+     */
+    long getByteSize() {
+        return buffer.capacity();
+    }
+
+    /**
+     * Adds all fingerprints to the filter. This reads the whole file once.
+     */
+    void addTo(BlockedBloomFilter filter) {
+        for (int i = 0; i < size; i++) {
+            int position = HEADER_SIZE + i * FINGERPRINT_LENGTH;
+            filter.add(buffer.getLong(position), buffer.getLong(position + Long.BYTES));
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean contains(byte[] fingerprint) {
+        long f0 = (long) LONG.get(fingerprint, 0);
+        long f1 = (long) LONG.get(fingerprint, 8);
+        long f2 = (long) LONG.get(fingerprint, 16);
+        long f3 = (long) LONG.get(fingerprint, 24);
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int position = HEADER_SIZE + middle * FINGERPRINT_LENGTH;
+            int comparison = Long.compareUnsigned(buffer.getLong(position), f0);
+            if (comparison == 0) {
+                comparison = Long.compareUnsigned(buffer.getLong(position + 8), f1);
+            }
+            if (comparison == 0) {
+                comparison = Long.compareUnsigned(buffer.getLong(position + 16), f2);
+            }
+            if (comparison == 0) {
+                comparison = Long.compareUnsigned(buffer.getLong(position + 24), f3);
+            }
+            if (comparison < 0) {
+                low = middle + 1;
+            } else if (comparison > 0) {
+                high = middle - 1;
+            } else {
+                return true;
+            }
+        }
+        return false;
+    }
+
+}
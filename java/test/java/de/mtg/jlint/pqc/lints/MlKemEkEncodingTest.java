@@ -1,17 +1,27 @@
 package de.mtg.jlint.pqc.lints;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
 import java.security.PrivateKey;
 import java.security.cert.X509Certificate;
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 
 import org.bouncycastle.asn1.ASN1BitString;
+import org.bouncycastle.asn1.ASN1ObjectIdentifier;
 import org.bouncycastle.asn1.DERBitString;
 import org.bouncycastle.asn1.x500.X500Name;
 import org.bouncycastle.asn1.x509.AlgorithmIdentifier;
 import org.bouncycastle.asn1.x509.SubjectPublicKeyInfo;
 import org.bouncycastle.asn1.x509.V3TBSCertificateGenerator;
 import org.bouncycastle.util.encoders.Base64;
+import org.bouncycastle.util.encoders.Hex;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.RegisterExtension;
 
@@ -86,4 +96,51 @@ class MlKemEkEncodingTest {
         pqccaExtension.assertLintResult(LintResult.of(Status.ERROR), lint, certificate);
     }
 
+    @Test
+    void invalidModulusTest() throws Exception {
+
+        PrivateKey privateKey = pqccaExtension.getMldsaPrivateKey();
+
+        LocalDateTime notBefore = LocalDateTime.now();
+        LocalDateTime notAfter = notBefore.plusDays(100);
+        X500Name issuerDN = new X500Name("CN=JZLint CA, C=DE");
+        X500Name subjectDN = new X500Name("CN=PQC Certificate, C=DE");
+        AlgorithmIdentifier signatureAID = new AlgorithmIdentifier(PQCUtils.ID_ML_DSA_65);
+
+        Map<String, ASN1ObjectIdentifier> parameterSets = Map.of(
+                "512", PQCUtils.ID_ALG_KYBER_512,
+                "768", PQCUtils.ID_ALG_KYBER_768,
+                "1024", PQCUtils.ID_ALG_KYBER_1024);
+
+        for (Map.Entry<String, ASN1ObjectIdentifier> parameterSet : parameterSets.entrySet()) {
+            List<String> kats = readKats("/kats/invalid_modulus/ML-KEM-%s.txt".formatted(parameterSet.getKey()));
+            for (String line : kats) {
+                if (line.isBlank()) {
+                    continue;
+                }
+
+                ASN1BitString bitString = new DERBitString(Hex.decode(line.trim()));
+
+                SubjectPublicKeyInfo spki = new SubjectPublicKeyInfo(new AlgorithmIdentifier(parameterSet.getValue()), bitString);
+                V3TBSCertificateGenerator tbsCertificateGenerator = PQCCAExtension.getV3TBSCertificateGenerator(
+                        spki, signatureAID, notBefore, notAfter, BigInteger.ONE, issuerDN, subjectDN, null);
+
+                X509Certificate certificate = PQCCAExtension.createCertificate(privateKey,
+                        PQCUtils.ID_ML_DSA_65.getId(), signatureAID, tbsCertificateGenerator.generateTBSCertificate());
+
+                pqccaExtension.assertLintResult(LintResult.of(Status.ERROR), lint, certificate);
+            }
+        }
+    }
+
+    /**
+     * Reads the keys of a test resource, a copy of the KATs in rust/tests/kats.
+     */
+    private static List<String> readKats(String name) throws IOException {
+        InputStream inputStream = Objects.requireNonNull(MlKemEkEncodingTest.class.getResourceAsStream(name), name);
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.US_ASCII))) {
+            return reader.lines().toList();
+        }
+    }
+
 }
@@ -1,5 +1,7 @@
 package de.mtg.jlint.pqc.lints;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
 import java.math.BigInteger;
 import java.security.PrivateKey;
 import java.security.cert.X509Certificate;
@@ -84,6 +86,8 @@ class MlKemEkSeedEntryFrequencyTest {
                 PQCUtils.ID_ML_DSA_65.getId(), signatureAID, tbsCertificateGenerator.generateTBSCertificate());
 
         pqccaExtension.assertLintResult(LintResult.of(Status.ERROR), lint, certificate);
+        assertEquals("The byte 0x00 occurs 12 times in the seed, at most 4 occurrences are allowed",
+                lint.execute(certificate).getDetails());
     }
 
 }
@@ -1,5 +1,7 @@
 package de.mtg.jlint.pqc.lints;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
 import java.math.BigInteger;
 import java.security.PrivateKey;
 import java.security.cert.X509Certificate;
@@ -85,6 +87,8 @@ class MlKemEkSeedSlEntriesTest {
                     PQCUtils.ID_ML_DSA_65.getId(), signatureAID, tbsCertificateGenerator.generateTBSCertificate());
 
             pqccaExtension.assertLintResult(LintResult.of(Status.ERROR), lint, certificate);
+            assertEquals("The seed contains 2 small and 30 large bytes, at most 25 of either are allowed",
+                    lint.execute(certificate).getDetails());
         }
 
         {
@@ -100,6 +104,8 @@ class MlKemEkSeedSlEntriesTest {
                     PQCUtils.ID_ML_DSA_65.getId(), signatureAID, tbsCertificateGenerator.generateTBSCertificate());
 
             pqccaExtension.assertLintResult(LintResult.of(Status.ERROR), lint, certificate);
+            assertEquals("The seed contains 30 small and 2 large bytes, at most 25 of either are allowed",
+                    lint.execute(certificate).getDetails());
         }
 
     }
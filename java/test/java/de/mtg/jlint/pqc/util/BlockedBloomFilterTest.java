@@ -0,0 +1,72 @@
+package de.mtg.jlint.pqc.util;
+
+import static de.mtg.jlint.pqc.util.FingerprintIndexTest.fingerprint;
+import static de.mtg.jlint.pqc.util.FingerprintIndexTest.randomFingerprints;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class BlockedBloomFilterTest {
+
+    private static final int BITS_PER_FINGERPRINT = 16;
+
+    @Test
+    void noFalseNegativesTest() {
+        List<byte[]> fingerprints = randomFingerprints(100000, 1);
+        BlockedBloomFilter filter = filter(fingerprints);
+        for (byte[] fingerprint : fingerprints) {
+            assertTrue(filter.mightContain(fingerprint));
+        }
+    }
+
+    @Test
+    void falsePositiveRateTest() {
+        BlockedBloomFilter filter = filter(randomFingerprints(100000, 1));
+        int falsePositives = 0;
+        for (byte[] fingerprint : randomFingerprints(100000, 2)) {
+            if (filter.mightContain(fingerprint)) {
+                falsePositives++;
+            }
+        }
+        // about one in a thousand
+        assertTrue(falsePositives < 200, "false positives: " + falsePositives);
+    }
+
+    @Test
+    void onlyFirstTwoLongsTest() {
+        BlockedBloomFilter filter = filter(List.of(fingerprint(1, 2, 3, 4)));
+        assertTrue(filter.mightContain(fingerprint(1, 2, 5, 6)));
+    }
+
+    @Test
+    void emptyTest() {
+        BlockedBloomFilter filter = new BlockedBloomFilter(0, BITS_PER_FINGERPRINT);
+        assertEquals(64, filter.getByteSize());
+        for (byte[] fingerprint : randomFingerprints(1000, 1)) {
+            assertFalse(filter.mightContain(fingerprint));
+        }
+    }
+
+    @Test
+    void sizeTest() {
+        // 16000 bits in blocks of 512 bits
+        assertEquals(32 * 64, new BlockedBloomFilter(1000, BITS_PER_FINGERPRINT).getByteSize());
+        assertThrows(IllegalArgumentException.class, () -> new BlockedBloomFilter(1L << 40, BITS_PER_FINGERPRINT));
+    }
+
+    private static BlockedBloomFilter filter(List<byte[]> fingerprints) {
+        BlockedBloomFilter filter = new BlockedBloomFilter(fingerprints.size(), BITS_PER_FINGERPRINT);
+        for (byte[] fingerprint : fingerprints) {
+            ByteBuffer buffer = ByteBuffer.wrap(fingerprint);
+            filter.add(buffer.getLong(0), buffer.getLong(Long.BYTES));
+        }
+        return filter;
+    }
+
+}
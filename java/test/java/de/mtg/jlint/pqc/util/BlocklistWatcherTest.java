@@ -0,0 +1,90 @@
+package de.mtg.jlint.pqc.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class BlocklistWatcherTest {
+
+    private static final long TIMEOUT_SECONDS = 10;
+
+    @TempDir
+    Path directory;
+
+    private final Semaphore reloads = new Semaphore(0);
+
+    @Test
+    void replacedFileTest() throws Exception {
+        Path file = directory.resolve("keys.bin");
+        Files.writeString(file, "1");
+        BlocklistWatcher.start(List.of(file), reloads::release);
+
+        replace(file, "2");
+        assertTrue(reloads.tryAcquire(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void createdFileTest() throws Exception {
+        Path file = directory.resolve("keys.bin");
+        BlocklistWatcher.start(List.of(file), reloads::release);
+
+        Files.writeString(file, "1");
+        assertTrue(reloads.tryAcquire(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void burstReloadsOnceTest() throws Exception {
+        Path file = directory.resolve("keys.bin");
+        BlocklistWatcher.start(List.of(file), reloads::release);
+
+        for (int i = 0; i < 5; i++) {
+            Files.writeString(file, Integer.toString(i));
+        }
+        assertTrue(reloads.tryAcquire(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        Thread.sleep(3 * BlocklistWatcher.SETTLE_MILLIS);
+        assertEquals(0, reloads.availablePermits());
+    }
+
+    @Test
+    void otherFilesTest() throws Exception {
+        Path file = directory.resolve("keys.bin");
+        Path other = Files.createDirectory(directory.resolve("other")).resolve("keys.bin");
+        BlocklistWatcher.start(List.of(file, other), reloads::release);
+
+        Files.writeString(directory.resolve("unrelated.bin"), "1");
+        Files.writeString(directory.resolve("other").resolve("unrelated.bin"), "1");
+        Thread.sleep(3 * BlocklistWatcher.SETTLE_MILLIS);
+        assertEquals(0, reloads.availablePermits());
+
+        // a file in the second directory
+        replace(other, "1");
+        assertTrue(reloads.tryAcquire(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void missingDirectoryTest() {
+        Path file = directory.resolve("missing").resolve("keys.bin");
+        assertThrows(IOException.class, () -> BlocklistWatcher.start(List.of(file), reloads::release));
+    }
+
+    /**
+     * Replaces the file atomically, as the blocklist files must be replaced.
+     */
+    private static void replace(Path file, String content) throws IOException {
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.writeString(temporary, content);
+        Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+}
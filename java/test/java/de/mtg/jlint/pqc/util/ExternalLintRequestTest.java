@@ -0,0 +1,58 @@
+package de.mtg.jlint.pqc.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class ExternalLintRequestTest {
+
+    @Test
+    void singleLintTest() {
+        ExternalLintRequest request = new ExternalLintRequest("e_ml_kem_ek_length", "id", "AAEC");
+        assertEquals("{\"lintName\":\"e_ml_kem_ek_length\",\"id\":\"id\",\"publicKey\":\"AAEC\"}", request.getOutput());
+    }
+
+    @Test
+    void lintNamesTest() {
+        ExternalLintRequest request = new ExternalLintRequest(List.of("a", "b"), "id", "AAEC");
+        assertEquals("{\"lintNames\":[\"a\",\"b\"],\"id\":\"id\",\"publicKey\":\"AAEC\"}", request.getOutput());
+        assertEquals(List.of("a", "b"), request.getLintNames());
+    }
+
+    @Test
+    void rawKeyTest() {
+        ExternalLintRequest request = new ExternalLintRequest(List.of("a"), "id", 3, new byte[]{0, 1, 2, (byte) 0xff});
+        assertEquals("{\"lintNames\":[\"a\"],\"id\":\"id\",\"algorithm\":768,\"publicKey\":\"AAEC/w==\"}",
+                request.getOutput());
+    }
+
+    @Test
+    void unknownRankTest() {
+        ExternalLintRequest request = new ExternalLintRequest(List.of("a"), "id", 0, new byte[]{0, 1, 2});
+        assertEquals("{\"lintNames\":[\"a\"],\"id\":\"id\",\"publicKey\":\"AAEC\"}", request.getOutput());
+    }
+
+    @Test
+    void escapingTest() {
+        ExternalLintRequest request = new ExternalLintRequest("a\"b\\c/d\n\t\u0001\u00e9\u20ac", "i\u00fcd", "AAEC");
+        assertEquals("{\"lintName\":\"a\\\"b\\\\c/d\\u000a\\u0009\\u0001\\u00e9\\u20ac\",\"id\":\"i\\u00fcd\","
+                + "\"publicKey\":\"AAEC\"}", request.getOutput());
+    }
+
+    @Test
+    void roundTripTest() {
+        String lintName = "a\"b\\c/d\n\t\u0001\u00e9\u20ac";
+        String id = "\u00fc\"";
+        String output = new ExternalLintRequest(lintName, id, "AAEC").getOutput();
+
+        // the request becomes a response with a result
+        String json = output.substring(0, output.length() - 1) + ",\"result\":\"Pass\"}";
+        ExternalLintResponse response = new ExternalLintResponse(json);
+        assertEquals(lintName, response.getLintName());
+        assertEquals(id, response.getId());
+        assertEquals(LintEngine.PASS, response.getResult());
+    }
+
+}
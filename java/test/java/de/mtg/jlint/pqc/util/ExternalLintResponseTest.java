@@ -0,0 +1,114 @@
+package de.mtg.jlint.pqc.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+class ExternalLintResponseTest {
+
+    @Test
+    void singleResultTest() {
+        ExternalLintResponse response = new ExternalLintResponse(
+                "{\"lintName\":\"e_ml_kem_ek_length\",\"id\":\"id\",\"result\":\"Pass\",\"metric\":1184}");
+        assertEquals("e_ml_kem_ek_length", response.getLintName());
+        assertEquals("id", response.getId());
+        assertEquals(LintEngine.PASS, response.getResult());
+        assertEquals(Map.of("e_ml_kem_ek_length", LintEngine.PASS), response.getResults());
+        assertEquals(Map.of("e_ml_kem_ek_length", 1184L), response.getMetrics());
+    }
+
+    @Test
+    void knownValuesAreNotDecodedTest() {
+        ExternalLintResponse response = new ExternalLintResponse(
+                "{\"lintName\":\"e_ml_kem_ek_encoding\",\"id\":\"id\",\"result\":\"Error\"}");
+        assertSame(ExternalLintUtils.ML_KEM_LINT_NAMES.get(1), response.getLintName());
+        assertSame(LintEngine.ERROR, response.getResult());
+        assertTrue(response.getMetrics().isEmpty());
+    }
+
+    @Test
+    void multipleResultsTest() {
+        ExternalLintResponse response = new ExternalLintResponse("{\"id\":\"id\",\"results\":["
+                + "{\"lintName\":\"a\",\"id\":\"id\",\"result\":\"Pass\",\"metric\":2},"
+                + "{\"lintName\":\"b\",\"id\":\"id\",\"result\":\"Error\"}]}");
+        assertEquals("a", response.getLintName());
+        assertEquals(LintEngine.PASS, response.getResult());
+        assertEquals(List.of("a", "b"), List.copyOf(response.getResults().keySet()));
+        assertEquals(LintEngine.ERROR, response.getResults().get("b"));
+        assertEquals(Map.of("a", 2L), response.getMetrics());
+    }
+
+    @Test
+    void fieldOrderAndUnknownFieldsTest() {
+        ExternalLintResponse response = new ExternalLintResponse(" {\"extra\":{\"x\":[1,-2.5e3,true,false,null,\"}\"]},"
+                + "\r\n\t\"result\" : \"Pass\" , \"id\":\"id\",\"lintName\":\"a\"} ");
+        assertEquals("a", response.getLintName());
+        assertEquals("id", response.getId());
+        assertEquals(LintEngine.PASS, response.getResult());
+    }
+
+    @Test
+    void escapingTest() {
+        ExternalLintResponse response = new ExternalLintResponse(
+                "{\"lintName\":\"a\\\"b\\\\c\\/d\\b\\f\\n\\r\\t\\u00e9\\u20AC\",\"id\":\"\u00fc\",\"result\":\"Pass\"}");
+        assertEquals("a\"b\\c/d\b\f\n\r\t\u00e9\u20ac", response.getLintName());
+        assertEquals("\u00fc", response.getId());
+    }
+
+    @Test
+    void escapedKeyIsUnknownTest() {
+        // an escaped key is not compared with the known keys, so the lint name is missing
+        assertMalformed("{\"lint\\u004eame\":\"a\",\"id\":\"id\",\"result\":\"Pass\"}");
+    }
+
+    @Test
+    void parseRangeTest() throws IOException {
+        byte[] data = "xx{\"lintName\":\"a\",\"id\":\"id\",\"result\":\"Pass\"}yy".getBytes(StandardCharsets.US_ASCII);
+        ExternalLintResponse response = ExternalLintResponse.parse(data, 2, data.length - 4);
+        assertEquals("a", response.getLintName());
+        assertThrows(IOException.class, () -> ExternalLintResponse.parse(data, 2, data.length - 2));
+    }
+
+    @Test
+    void malformedTest() {
+        assertMalformed("");
+        assertMalformed("[]");
+        assertMalformed("{}");
+        assertMalformed("{\"lintName\":\"a\",\"id\":\"id\"}");
+        assertMalformed("{\"lintName\":\"a\",\"id\":\"id\",\"result\":\"Pass\"");
+        assertMalformed("{\"lintName\":\"a\",\"id\":\"id\",\"result\":\"Pass\"}{}");
+        assertMalformed("{\"lintName\":\"a\",\"id\":\"id\",\"result\":\"Pass\",}");
+        assertMalformed("{\"lintName\":\"a,\"id\":\"id\",\"result\":\"Pass\"}");
+        assertMalformed("{\"lintName\":\"a\n\",\"id\":\"id\",\"result\":\"Pass\"}");
+        assertMalformed("{\"lintName\":\"a\\x\",\"id\":\"id\",\"result\":\"Pass\"}");
+        assertMalformed("{\"lintName\":\"a\\u00g0\",\"id\":\"id\",\"result\":\"Pass\"}");
+        assertMalformed("{\"lintName\":\"a\\u00\"}");
+        assertMalformed("{\"lintName\":\"a\",\"id\":\"id\",\"result\":\"Pass\",\"metric\":-1}");
+        assertMalformed("{\"lintName\":\"a\",\"id\":\"id\",\"result\":\"Pass\",\"metric\":99999999999999999999}");
+        assertMalformed("{\"lintName\":\"a\",\"id\":\"id\",\"result\":\"Pass\",\"extra\":tru}");
+        assertMalformed("{\"lintName\":\"a\",\"id\":\"id\",\"result\":\"Pass\",\"extra\":-}");
+        assertMalformed("{\"id\":\"id\",\"results\":[{\"lintName\":\"a\"}]}");
+        assertMalformed("{\"id\":\"id\",\"results\":[{\"lintName\":\"a\",\"result\":\"Pass\"}}");
+    }
+
+    @Test
+    void nestingTooDeepTest() {
+        String nested = "[".repeat(100) + "]".repeat(100);
+        assertMalformed("{\"lintName\":\"a\",\"id\":\"id\",\"result\":\"Pass\",\"extra\":" + nested + "}");
+        String shallow = "[".repeat(10) + "]".repeat(10);
+        new ExternalLintResponse("{\"lintName\":\"a\",\"id\":\"id\",\"result\":\"Pass\",\"extra\":" + shallow + "}");
+    }
+
+    private static void assertMalformed(String json) {
+        assertThrows(IllegalArgumentException.class, () -> new ExternalLintResponse(json), json);
+    }
+
+}
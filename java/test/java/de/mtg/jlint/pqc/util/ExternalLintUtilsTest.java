@@ -0,0 +1,334 @@
+package de.mtg.jlint.pqc.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.security.cert.CertificateException;
+import java.security.cert.CertificateFactory;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import javax.management.JMException;
+import javax.management.JMX;
+import javax.management.ObjectName;
+
+import org.junit.jupiter.api.Test;
+
+import de.mtg.jlint.pqc.lints.MlKemEkEncoding;
+import de.mtg.jlint.pqc.lints.MlKemEkLength;
+import de.mtg.jzlint.LintResult;
+import de.mtg.jzlint.Status;
+
+class ExternalLintUtilsTest {
+
+    private static final int THREADS = 8;
+    private static final long TIMEOUT_SECONDS = 10;
+    private static final String ENCODING = "e_ml_kem_ek_encoding";
+    private static final String LENGTH = "e_ml_kem_ek_length";
+    private static final LintResult NOT_PASS = LintResult.of(Status.ERROR);
+
+    private final StubLintEngine engine = new StubLintEngine();
+
+    @Test
+    void concurrentLintsEvaluateOnceTest() throws Exception {
+        configure("external");
+        X509Certificate certificate = certificate();
+        List<FutureTask<LintResult>> lints = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            String lintName = ExternalLintUtils.ML_KEM_LINT_NAMES.get(i % ExternalLintUtils.ML_KEM_LINT_NAMES.size());
+            lints.add(new FutureTask<>(() -> ExternalLintUtils.getLintResult(lintName, certificate, NOT_PASS)));
+        }
+        startAndAwaitWaiting(lints);
+        engine.release.countDown();
+
+        for (int i = 0; i < THREADS; i++) {
+            String lintName = ExternalLintUtils.ML_KEM_LINT_NAMES.get(i % ExternalLintUtils.ML_KEM_LINT_NAMES.size());
+            Status expected = ENCODING.equals(lintName) ? Status.ERROR : Status.PASS;
+            assertEquals(expected, lints.get(i).get(TIMEOUT_SECONDS, TimeUnit.SECONDS).getStatus(), lintName);
+        }
+        assertEquals(1, engine.evaluations.get());
+
+        // all lints of the key were cached by the evaluation
+        assertEquals(Status.ERROR, ExternalLintUtils.getLintResult(ENCODING, certificate, NOT_PASS).getStatus());
+        assertEquals(1, engine.evaluations.get());
+    }
+
+    @Test
+    void concurrentLintsShareFailureTest() throws Exception {
+        configure("external");
+        engine.failure = new IOException("Lint worker terminated unexpectedly");
+        X509Certificate certificate = certificate();
+        List<FutureTask<LintResult>> lints = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            lints.add(new FutureTask<>(() -> ExternalLintUtils.getLintResult(ENCODING, certificate, NOT_PASS)));
+        }
+        startAndAwaitWaiting(lints);
+        engine.release.countDown();
+
+        for (FutureTask<LintResult> lint : lints) {
+            assertEquals(Status.FATAL, lint.get(TIMEOUT_SECONDS, TimeUnit.SECONDS).getStatus());
+        }
+        assertEquals(1, engine.evaluations.get());
+
+        // a failure is not cached, the next lint evaluates again
+        engine.failure = null;
+        assertEquals(Status.ERROR, ExternalLintUtils.getLintResult(ENCODING, certificate, NOT_PASS).getStatus());
+        assertEquals(2, engine.evaluations.get());
+    }
+
+    @Test
+    void concurrentLintsShareTimeoutTest() throws Exception {
+        configure("external");
+        engine.failure = new LintTimeoutException(100);
+        X509Certificate certificate = certificate();
+        List<FutureTask<LintResult>> lints = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            lints.add(new FutureTask<>(() -> ExternalLintUtils.getLintResult(ENCODING, certificate, NOT_PASS)));
+        }
+        startAndAwaitWaiting(lints);
+        engine.release.countDown();
+
+        for (FutureTask<LintResult> lint : lints) {
+            LintResult result = lint.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            assertEquals(Status.FATAL, result.getStatus());
+            assertEquals("External lint timed out after 100 ms", result.getDetails());
+        }
+        assertEquals(1, engine.evaluations.get());
+    }
+
+    @Test
+    void cachedBeforeRemovedTest() throws Exception {
+        // lints that start while the evaluation ends find either the running evaluation or the cached results
+        configure("external");
+        engine.release.countDown();
+        X509Certificate certificate = certificate();
+        CyclicBarrier barrier = new CyclicBarrier(THREADS);
+        List<FutureTask<LintResult>> lints = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            lints.add(new FutureTask<>(() -> {
+                barrier.await(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+                LintResult result = null;
+                for (int j = 0; j < 100; j++) {
+                    result = ExternalLintUtils.getLintResult(ENCODING, certificate, NOT_PASS);
+                }
+                return result;
+            }));
+        }
+        start(lints);
+
+        for (FutureTask<LintResult> lint : lints) {
+            assertEquals(Status.ERROR, lint.get(TIMEOUT_SECONDS, TimeUnit.SECONDS).getStatus());
+        }
+        assertEquals(1, engine.evaluations.get());
+    }
+
+    @Test
+    void asyncLintsEvaluateOnceTest() throws Exception {
+        configure("external");
+        X509Certificate certificate = certificate();
+        ExecutorService executor = Executors.newCachedThreadPool();
+        try {
+            List<CompletableFuture<LintResult>> lints = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                lints.add(ExternalLintUtils.getLintResultAsync(ENCODING, certificate, NOT_PASS, executor));
+            }
+            assertTrue(engine.entered.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+            for (CompletableFuture<LintResult> lint : lints) {
+                assertFalse(lint.isDone());
+            }
+            engine.release.countDown();
+
+            for (CompletableFuture<LintResult> lint : lints) {
+                assertEquals(Status.ERROR, lint.get(TIMEOUT_SECONDS, TimeUnit.SECONDS).getStatus());
+            }
+            assertEquals(1, engine.evaluations.get());
+
+            // cached results complete the future immediately
+            CompletableFuture<LintResult> cached = ExternalLintUtils.getLintResultAsync(ENCODING, certificate, NOT_PASS,
+                    executor);
+            assertTrue(cached.isDone());
+            assertEquals(1, engine.evaluations.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void asyncLintsShareFailureTest() throws Exception {
+        configure("external");
+        engine.failure = new LintTimeoutException(100);
+        X509Certificate certificate = certificate();
+        ExecutorService executor = Executors.newCachedThreadPool();
+        try {
+            List<CompletableFuture<LintResult>> lints = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                lints.add(ExternalLintUtils.getLintResultAsync(ENCODING, certificate, NOT_PASS, executor));
+            }
+            engine.release.countDown();
+
+            for (CompletableFuture<LintResult> lint : lints) {
+                LintResult result = lint.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+                assertEquals(Status.FATAL, result.getStatus());
+                assertEquals("External lint timed out after 100 ms", result.getDetails());
+            }
+            assertEquals(1, engine.evaluations.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void routeInProcessTest() throws Exception {
+        configure("inprocess");
+        long results = getResults(LENGTH);
+        long inProcessLints = metrics().getPhaseCounts().get("in_process");
+        LintResult inProcessResult = LintResult.of(Status.PASS);
+        assertSame(inProcessResult, ExternalLintUtils.route(new MlKemEkLength(), c -> inProcessResult).apply(certificate()));
+        assertEquals(0, engine.evaluations.get());
+        assertEquals(results + 1, getResults(LENGTH));
+        assertEquals(inProcessLints + 1, (long) metrics().getPhaseCounts().get("in_process"));
+    }
+
+    @Test
+    void routeExternalTest() throws Exception {
+        configure("external");
+        engine.release.countDown();
+        Function<X509Certificate, LintResult> inProcess = certificate -> {
+            throw new AssertionError("linted in-process");
+        };
+        X509Certificate certificate = certificate();
+        assertEquals(Status.PASS, ExternalLintUtils.route(new MlKemEkLength(), inProcess).apply(certificate).getStatus());
+        assertEquals(Status.ERROR, ExternalLintUtils.route(new MlKemEkEncoding(), inProcess).apply(certificate).getStatus());
+        assertEquals(1, engine.evaluations.get());
+    }
+
+    @Test
+    void crossCheckTest() throws Exception {
+        configure("crosscheck");
+        engine.release.countDown();
+        X509Certificate certificate = certificate();
+
+        // the in-process result is returned with its details if the engine agrees
+        LintResult agreed = LintResult.of(Status.ERROR, "details");
+        assertSame(agreed, ExternalLintUtils.route(new MlKemEkEncoding(), c -> agreed).apply(certificate));
+
+        long results = getResults(LENGTH);
+        long mismatches = metrics().getMismatches().getOrDefault(LENGTH, 0L);
+        LintResult disagreed = ExternalLintUtils.route(new MlKemEkLength(), c -> LintResult.of(Status.ERROR))
+                .apply(certificate);
+        assertEquals(Status.FATAL, disagreed.getStatus());
+        assertEquals("The in-process result ERROR differs from the result PASS of the engine", disagreed.getDetails());
+        assertEquals(1, engine.evaluations.get());
+        // one result, the one of the engine
+        assertEquals(results + 1, getResults(LENGTH));
+        assertEquals(mismatches + 1, (long) metrics().getMismatches().get(LENGTH));
+    }
+
+    private static long getResults(String lintName) throws JMException {
+        return metrics().getResults().getOrDefault(lintName, 0L);
+    }
+
+    private static ExternalLintMetricsMXBean metrics() throws JMException {
+        return JMX.newMXBeanProxy(ManagementFactory.getPlatformMBeanServer(), new ObjectName(LintMetrics.OBJECT_NAME),
+                ExternalLintMetricsMXBean.class);
+    }
+
+    private void configure(String mode) {
+        Properties properties = new Properties();
+        properties.setProperty("lint.mode", mode);
+        ExternalLintUtils.configure(properties, engine);
+    }
+
+    private static void start(List<? extends Runnable> lints) {
+        for (Runnable lint : lints) {
+            new Thread(lint).start();
+        }
+    }
+
+    /**
+     * Starts the lints on their own threads and waits until the engine evaluates and all threads wait, for the engine
+     * or for the evaluation of another thread.
+     */
+    private void startAndAwaitWaiting(List<FutureTask<LintResult>> lints) throws InterruptedException {
+        List<Thread> threads = new ArrayList<>();
+        for (FutureTask<LintResult> lint : lints) {
+            Thread thread = new Thread(lint);
+            threads.add(thread);
+            thread.start();
+        }
+        assertTrue(engine.entered.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(TIMEOUT_SECONDS);
+        for (Thread thread : threads) {
+            while (thread.getState() != Thread.State.WAITING && thread.getState() != Thread.State.TIMED_WAITING) {
+                assertTrue(System.nanoTime() - deadline < 0, "Lint does not wait: " + thread.getState());
+                Thread.sleep(1);
+            }
+        }
+    }
+
+    private static X509Certificate certificate() throws IOException, CertificateException {
+        try (InputStream in = ExternalLintUtilsTest.class.getResourceAsStream("/certificates/mlkem.crt")) {
+            return (X509Certificate) CertificateFactory.getInstance("X.509").generateCertificate(in);
+        }
+    }
+
+    /**
+     * An engine that counts its evaluations and blocks them until it is released. The encoding lint fails, all other
+     * lints pass.
+     */
+    private static final class StubLintEngine implements LintEngine {
+
+        private final AtomicInteger evaluations = new AtomicInteger();
+        private final CountDownLatch entered = new CountDownLatch(1);
+        private final CountDownLatch release = new CountDownLatch(1);
+        private volatile IOException failure;
+
+        @Override
+        public Map<String, String> evaluate(List<String> lintNames, String id, int rank, byte[] publicKey)
+                throws IOException {
+            evaluations.incrementAndGet();
+            entered.countDown();
+            try {
+                if (!release.await(TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                    throw new IOException("Stub engine was not released");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException(e);
+            }
+            if (failure != null) {
+                throw failure;
+            }
+            Map<String, String> results = new HashMap<>();
+            for (String lintName : lintNames) {
+                results.put(lintName, ENCODING.equals(lintName) ? ERROR : PASS);
+            }
+            return results;
+        }
+
+        @Override
+        public String getVersion() {
+            return "stub";
+        }
+
+    }
+
+}
@@ -0,0 +1,106 @@
+package de.mtg.jlint.pqc.util;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class FingerprintIndexTest {
+
+    @Test
+    void fingerprintTest() throws NoSuchAlgorithmException {
+        byte[] data = "public key".getBytes(StandardCharsets.US_ASCII);
+        byte[] fingerprint = FingerprintIndex.fingerprint(data);
+        assertArrayEquals(MessageDigest.getInstance("SHA-256").digest(data), fingerprint);
+        // the buffer of the thread is reused
+        assertSame(fingerprint, FingerprintIndex.fingerprint(new byte[0]));
+    }
+
+    @Test
+    void emptyTest() {
+        FingerprintIndex index = new FingerprintIndex(List.of());
+        assertEquals(0, index.size());
+        assertFalse(index.contains(randomFingerprints(1, 1).get(0)));
+    }
+
+    @Test
+    void noFalseNegativesTest() {
+        List<byte[]> fingerprints = randomFingerprints(10000, 1);
+        FingerprintIndex index = new FingerprintIndex(fingerprints);
+        assertEquals(fingerprints.size(), index.size());
+        for (byte[] fingerprint : fingerprints) {
+            assertTrue(index.contains(fingerprint));
+        }
+        for (byte[] fingerprint : randomFingerprints(10000, 2)) {
+            assertFalse(index.contains(fingerprint));
+        }
+    }
+
+    @Test
+    void duplicatesTest() {
+        List<byte[]> fingerprints = randomFingerprints(3, 1);
+        fingerprints.add(fingerprints.get(0).clone());
+        fingerprints.add(fingerprints.get(2).clone());
+        FingerprintIndex index = new FingerprintIndex(fingerprints);
+        assertEquals(3, index.size());
+        for (byte[] fingerprint : fingerprints) {
+            assertTrue(index.contains(fingerprint));
+        }
+    }
+
+    @Test
+    void prefixCollisionTest() {
+        // the same 64-bit prefix, different in the last long
+        byte[] first = fingerprint(0x0123456789abcdefL, 1, 2, 3);
+        byte[] second = fingerprint(0x0123456789abcdefL, 1, 2, 4);
+        FingerprintIndex index = new FingerprintIndex(List.of(first, second));
+        assertEquals(2, index.size());
+        assertTrue(index.contains(first));
+        assertTrue(index.contains(second));
+        assertFalse(index.contains(fingerprint(0x0123456789abcdefL, 1, 2, 5)));
+        assertFalse(index.contains(fingerprint(0x0123456789abcdefL, 0, 2, 3)));
+    }
+
+    @Test
+    void slotCollisionTest() {
+        // 3 fingerprints take 8 slots, all of them start in the last slot and wrap around
+        List<byte[]> fingerprints = List.of(
+                fingerprint(0x1000000000000007L, 1, 1, 1),
+                fingerprint(0x2000000000000007L, 2, 2, 2),
+                fingerprint(0x3000000000000007L, 3, 3, 3));
+        FingerprintIndex index = new FingerprintIndex(fingerprints);
+        for (byte[] fingerprint : fingerprints) {
+            assertTrue(index.contains(fingerprint));
+        }
+        assertFalse(index.contains(fingerprint(0x4000000000000007L, 1, 1, 1)));
+        assertFalse(index.contains(fingerprint(0x1000000000000000L, 1, 1, 1)));
+    }
+
+    static byte[] fingerprint(long first, long second, long third, long fourth) {
+        return ByteBuffer.allocate(FingerprintIndex.FINGERPRINT_LENGTH)
+                .putLong(first).putLong(second).putLong(third).putLong(fourth).array();
+    }
+
+    static List<byte[]> randomFingerprints(int count, long seed) {
+        Random random = new Random(seed);
+        List<byte[]> fingerprints = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            byte[] fingerprint = new byte[FingerprintIndex.FINGERPRINT_LENGTH];
+            random.nextBytes(fingerprint);
+            fingerprints.add(fingerprint);
+        }
+        return fingerprints;
+    }
+
+}
@@ -0,0 +1,42 @@
+package de.mtg.jlint.pqc.util;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class KnownPublicKeysCompilerTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void compiledResourceUpToDateTest() throws Exception {
+        // fails when knownPublicKeys.dat changed and knownPublicKeys.bin was not compiled again, see KnownPublicKeysCompiler
+        byte[] content = getResource(KnownPublicKeys.RESOURCE_NAME);
+        byte[] compiled = getResource(KnownPublicKeys.COMPILED_RESOURCE_NAME);
+        assertTrue(SortedFingerprintFile.read(new ByteArrayInputStream(compiled))
+                .isCompiledFrom(FingerprintIndex.fingerprint(content)));
+
+        Path pemFile = Files.write(directory.resolve(KnownPublicKeys.RESOURCE_NAME), content);
+        Path binaryFile = directory.resolve(KnownPublicKeys.COMPILED_RESOURCE_NAME);
+        KnownPublicKeysCompiler.compile(pemFile, binaryFile);
+        assertArrayEquals(Files.readAllBytes(binaryFile), compiled);
+    }
+
+    private static byte[] getResource(String name) throws IOException {
+        try (InputStream in = KnownPublicKeysCompilerTest.class.getClassLoader().getResourceAsStream(name)) {
+            assertNotNull(in, name);
+            return in.readAllBytes();
+        }
+    }
+
+}
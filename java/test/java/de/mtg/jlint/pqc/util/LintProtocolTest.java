@@ -0,0 +1,185 @@
+package de.mtg.jlint.pqc.util;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.bouncycastle.util.encoders.Hex;
+import org.junit.jupiter.api.Test;
+
+class LintProtocolTest {
+
+    private static final String ID = "000102030405060708090a0b0c0d0e0f101112131415161718191a1b1c1d1e1f";
+
+    @Test
+    void isFrameTest() {
+        assertTrue(LintProtocol.isFrame((byte) LintProtocol.VERSION_1));
+        assertTrue(LintProtocol.isFrame((byte) 8));
+        assertFalse(LintProtocol.isFrame((byte) 0));
+        assertFalse(LintProtocol.isFrame((byte) '\t'));
+        assertFalse(LintProtocol.isFrame((byte) '\n'));
+        assertFalse(LintProtocol.isFrame((byte) ' '));
+        assertFalse(LintProtocol.isFrame((byte) '{'));
+    }
+
+    @Test
+    void helloTest() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        LintProtocol.writeHello(out);
+        assertArrayEquals(new byte[]{1, 0, 0, 0, 1, '\n'}, out.toByteArray());
+    }
+
+    @Test
+    void helloAnsweredWithFrameTest() throws IOException {
+        assertEquals(LintProtocol.VERSION_1, LintProtocol.readHello(stream(1, 0, 0, 0, 0)));
+        // a newer server speaks the version of the client
+        InputStream in = stream(2, 0, 0, 0, 1, 'x', '{');
+        assertEquals(LintProtocol.VERSION_1, LintProtocol.readHello(in));
+        assertEquals('{', in.read());
+    }
+
+    @Test
+    void helloAnsweredWithJsonTest() throws IOException {
+        InputStream in = stream("{\"lintName\":\"\",\"id\":\"\",\"result\":\"Fatal\"}\n{");
+        assertEquals(LintProtocol.VERSION_JSON, LintProtocol.readHello(in));
+        assertEquals('{', in.read());
+    }
+
+    @Test
+    void helloNotAnsweredTest() {
+        assertThrows(EOFException.class, () -> LintProtocol.readHello(stream()));
+        assertThrows(EOFException.class, () -> LintProtocol.readHello(stream(1, 0, 0)));
+    }
+
+    @Test
+    void readFrameTest() throws IOException {
+        LineBuffer frame = new LineBuffer();
+        InputStream in = stream(1, 0, 0, 0, 2, 7, 8, 1, 0, 0, 0, 0);
+        LintProtocol.readFrame(in, frame);
+        assertArrayEquals(new byte[]{1, 0, 0, 0, 2, 7, 8}, frame.toByteArray());
+        LintProtocol.readFrame(in, frame);
+        assertArrayEquals(new byte[]{1, 0, 0, 0, 0}, frame.toByteArray());
+        assertThrows(EOFException.class, () -> LintProtocol.readFrame(in, frame));
+    }
+
+    @Test
+    void readMalformedFrameTest() {
+        LineBuffer frame = new LineBuffer();
+        assertThrows(EOFException.class, () -> LintProtocol.readFrame(stream(1, 0, 0, 0, 3, 7, 8), frame));
+        assertThrows(IOException.class, () -> LintProtocol.readFrame(stream(1, 0, 0x10, 0, 1), frame));
+        assertThrows(IOException.class, () -> LintProtocol.readFrame(stream(1, 0x80, 0, 0, 0), frame));
+    }
+
+    @Test
+    void getFrameSizeTest() throws IOException {
+        byte[] data = {'x', 1, 0, 0, 0, 1, 7};
+        assertEquals(6, LintProtocol.getFrameSize(data, 1, data.length));
+        assertEquals(-1, LintProtocol.getFrameSize(data, 1, 5));
+        byte[] tooLong = {1, 0, 0x10, 0, 1};
+        assertThrows(IOException.class, () -> LintProtocol.getFrameSize(tooLong, 0, tooLong.length));
+    }
+
+    @Test
+    void requestFrameTest() throws IOException {
+        byte[] key = {9, 8, 7};
+        ExternalLintRequest request = new ExternalLintRequest(
+                List.of("e_ml_kem_ek_length", "e_ml_kem_ek_matrix_sl_entries"), ID, 3, key);
+        assertTrue(request.hasFrame());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        request.writeFrameTo(out);
+        byte[] frame = out.toByteArray();
+        assertEquals(LintProtocol.HEADER_SIZE + 3 + LintProtocol.ID_LENGTH + key.length, frame.length);
+        assertArrayEquals(new byte[]{1, 0, 0, 0, 38, 3, 0, (byte) 0x81},
+                Arrays.copyOf(frame, LintProtocol.HEADER_SIZE + 3));
+        assertArrayEquals(Hex.decode(ID), Arrays.copyOfRange(frame, 8, 8 + LintProtocol.ID_LENGTH));
+        assertArrayEquals(key, Arrays.copyOfRange(frame, 8 + LintProtocol.ID_LENGTH, frame.length));
+    }
+
+    @Test
+    void requestWithoutFrameTest() {
+        byte[] key = {9, 8, 7};
+        List<String> lintNames = List.of("e_ml_kem_ek_length");
+        assertFalse(new ExternalLintRequest(lintNames, ID, 3, "CQgH").hasFrame());
+        assertFalse(new ExternalLintRequest(List.of("e_ml_kem_ek_unknown"), ID, 3, key).hasFrame());
+        assertFalse(new ExternalLintRequest(lintNames, "id", 3, key).hasFrame());
+        assertFalse(new ExternalLintRequest(lintNames, ID.replace('a', 'x'), 3, key).hasFrame());
+    }
+
+    @Test
+    void resultFrameTest() throws IOException {
+        byte[] frame = resultFrame(3,
+                0, LintProtocol.STATUS_PASS, 0, 0, 4, 160,
+                7, LintProtocol.STATUS_ERROR, 0xff, 0xff, 0xff, 0xff,
+                2, LintProtocol.STATUS_FATAL, 0, 0, 0, 0);
+        ExternalLintResponse response = ExternalLintResponse.parseFrame(frame, 0, frame.length);
+        assertEquals(ID, response.getId());
+        assertEquals("e_ml_kem_ek_length", response.getLintName());
+        assertEquals(LintEngine.PASS, response.getResult());
+        assertEquals(List.of("e_ml_kem_ek_length", "e_ml_kem_ek_matrix_sl_entries", "e_ml_kem_ek_seed_entry_frequency"),
+                List.copyOf(response.getResults().keySet()));
+        assertEquals(LintEngine.ERROR, response.getResults().get("e_ml_kem_ek_matrix_sl_entries"));
+        assertEquals(LintEngine.FATAL, response.getResults().get("e_ml_kem_ek_seed_entry_frequency"));
+        assertEquals(Map.of("e_ml_kem_ek_length", 1184L, "e_ml_kem_ek_matrix_sl_entries", 0xffffffffL,
+                "e_ml_kem_ek_seed_entry_frequency", 0L), response.getMetrics());
+    }
+
+    @Test
+    void malformedResultFrameTest() {
+        // the empty frame rejects the version of the request
+        assertMalformedFrame(new byte[]{1, 0, 0, 0, 0});
+        assertMalformedFrame(new byte[]{2, 0, 0, 0, 0});
+        assertMalformedFrame(new byte[]{1, 0, 0});
+
+        byte[] frame = resultFrame(1, 0, LintProtocol.STATUS_PASS, 0, 0, 0, 0);
+        assertMalformedFrame(Arrays.copyOf(frame, frame.length - 1));
+        // the count does not match the length
+        frame[LintProtocol.HEADER_SIZE + LintProtocol.ID_LENGTH] = 2;
+        assertMalformedFrame(frame);
+        // an unknown lint
+        assertMalformedFrame(resultFrame(1, LintProtocol.LINT_NAMES.size(), LintProtocol.STATUS_PASS, 0, 0, 0, 0));
+    }
+
+    private static void assertMalformedFrame(byte[] frame) {
+        assertThrows(IOException.class, () -> ExternalLintResponse.parseFrame(frame, 0, frame.length));
+    }
+
+    /**
+     * Returns a result frame for {@link #ID} with the given number of results, every result given as six bytes.
+     */
+    private static byte[] resultFrame(int count, int... results) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.writeBytes(new byte[]{1, 0, 0, 0, (byte) (LintProtocol.ID_LENGTH + 1 + results.length)});
+        out.writeBytes(Hex.decode(ID));
+        out.write(count);
+        for (int b : results) {
+            out.write(b);
+        }
+        return out.toByteArray();
+    }
+
+    private static InputStream stream(int... bytes) {
+        byte[] data = new byte[bytes.length];
+        for (int i = 0; i < bytes.length; i++) {
+            data[i] = (byte) bytes[i];
+        }
+        return new ByteArrayInputStream(data);
+    }
+
+    private static InputStream stream(String data) {
+        return new ByteArrayInputStream(data.getBytes(StandardCharsets.US_ASCII));
+    }
+
+}
@@ -0,0 +1,100 @@
+package de.mtg.jlint.pqc.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+import org.junit.jupiter.api.io.TempDir;
+
+@DisabledOnOs(OS.WINDOWS)
+class LintWorkerPoolTest {
+
+    private static final long TIMEOUT_MILLIS = 1000;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void timeoutTerminatesWorkerTest() throws Exception {
+        Path pidFile = directory.resolve("pid");
+        String executable = script("echo $$ > " + pidFile + "\nsleep 30");
+        try (LintWorkerPool pool = new LintWorkerPool(executable, 1, TIMEOUT_MILLIS, false)) {
+            long start = System.nanoTime();
+            LintTimeoutException exception = assertThrows(LintTimeoutException.class, () -> pool.execute(request()));
+            assertEquals("External lint timed out after " + TIMEOUT_MILLIS + " ms", exception.getMessage());
+            assertBounded(start);
+
+            long pid = Long.parseLong(Files.readString(pidFile).trim());
+            ProcessHandle.of(pid)
+                    .ifPresent(process -> process.onExit().orTimeout(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS).join());
+            assertFalse(ProcessHandle.of(pid).map(ProcessHandle::isAlive).orElse(false));
+        }
+    }
+
+    @Test
+    void failedWorkerRetriedOnceTest() throws Exception {
+        Path starts = directory.resolve("starts");
+        String executable = script("echo started >> " + starts + "\nexit 1");
+        try (LintWorkerPool pool = new LintWorkerPool(executable, 1, TIMEOUT_MILLIS, false)) {
+            IOException exception = assertThrows(IOException.class, () -> pool.execute(request()));
+            assertFalse(exception instanceof LintTimeoutException);
+            assertEquals(2, Files.readAllLines(starts).size());
+        }
+    }
+
+    @Test
+    void retryWithinDeadlineTest() throws Exception {
+        // the first worker fails shortly before the deadline, the retry only gets the time that is left
+        String executable = script("sleep 0.9\nexit 1");
+        try (LintWorkerPool pool = new LintWorkerPool(executable, 1, TIMEOUT_MILLIS, false)) {
+            long start = System.nanoTime();
+            assertThrows(IOException.class, () -> pool.execute(request()));
+            assertBounded(start);
+        }
+    }
+
+    @Test
+    void waitingForWorkerWithinDeadlineTest() throws Exception {
+        String executable = script("sleep 30");
+        try (LintWorkerPool pool = new LintWorkerPool(executable, 1, TIMEOUT_MILLIS, false)) {
+            Thread busy = new Thread(() -> assertThrows(LintTimeoutException.class, () -> pool.execute(request())));
+            busy.start();
+            // the second request waits for the permit of the first one and times out with it
+            long start = System.nanoTime();
+            assertThrows(LintTimeoutException.class, () -> pool.execute(request()));
+            assertBounded(start);
+            busy.join();
+        }
+    }
+
+    /**
+     * Asserts that a request that started at the given time ended close to its deadline, well before a second
+     * deadline would have passed.
+     */
+    private static void assertBounded(long start) {
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertTrue(elapsedMillis < TIMEOUT_MILLIS * 3 / 2, "Request took " + elapsedMillis + " ms");
+    }
+
+    private static ExternalLintRequest request() {
+        return new ExternalLintRequest(List.of("e_ml_kem_ek_length"), "id", 0, new byte[] { 1, 2, 3 });
+    }
+
+    private String script(String body) throws IOException {
+        Path script = directory.resolve("engine.sh");
+        Files.writeString(script, "#!/bin/sh\n" + body + "\n");
+        assertTrue(script.toFile().setExecutable(true));
+        return script.toString();
+    }
+
+}
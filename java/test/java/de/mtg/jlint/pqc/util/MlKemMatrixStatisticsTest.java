@@ -0,0 +1,192 @@
+package de.mtg.jlint.pqc.util;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * The expected coefficients and statistics are those of the matrix generated by the ML-KEM implementation of Bouncy
+ * Castle for the seed &rho; = 00 01 02 ... 1f.
+ */
+class MlKemMatrixStatisticsTest {
+
+    private static final byte[] SEED = new byte[32];
+
+    /**
+     * A large coefficient that does not occur in {@link #distinctEntries(int)}.
+     */
+    private static final short UNUSED = 3000;
+
+    static {
+        for (int i = 0; i < SEED.length; i++) {
+            SEED[i] = (byte) i;
+        }
+    }
+
+    @Test
+    void sampleNTTTest() {
+        assertEntry(0, 0,
+                new short[]{481, 1919, 1434, 2359, 327, 1066, 3001, 649, 1037, 2971, 661, 1148, 1602, 864, 301, 1835},
+                new short[]{1796, 3263, 3011, 1370, 1926, 2513, 2367, 3216});
+        assertEntry(0, 1,
+                new short[]{797, 993, 161, 6, 2608, 2385, 2096, 2661, 1676, 247, 2440, 342, 634, 194, 1570, 2848},
+                new short[]{154, 23, 2842, 1105, 1419, 79, 5, 2013});
+        assertEntry(1, 0,
+                new short[]{2512, 1187, 75, 2259, 2131, 1317, 940, 936, 21, 1685, 666, 3191, 2923, 2756, 2780, 2476},
+                new short[]{502, 319, 2320, 3233, 2850, 3236, 1269, 855});
+        assertEntry(1, 1,
+                new short[]{2527, 690, 1729, 2539, 1892, 465, 1928, 1329, 413, 3299, 2062, 3046, 2100, 127, 3313, 1591},
+                new short[]{1484, 2638, 2107, 535, 762, 131, 2050, 2073});
+    }
+
+    @Test
+    void sampleNTTOffsetTest() {
+        byte[] publicKey = getPublicKey(3);
+        assertArrayEquals(MlKemMatrixStatistics.sampleNTT(SEED, 0, 1, 0),
+                MlKemMatrixStatistics.sampleNTT(publicKey, publicKey.length - SEED.length, 1, 0));
+    }
+
+    @Test
+    void mlKem512Test() {
+        assertStatistics(2, 1024, 4, 2610, 1, 530);
+    }
+
+    @Test
+    void mlKem768Test() {
+        assertStatistics(3, 2304, 6, 592, 1, 1179);
+    }
+
+    @Test
+    void mlKem1024Test() {
+        assertStatistics(4, 4096, 7, 3169, 2, 2058);
+    }
+
+    @Test
+    void invalidRankTest() {
+        assertThrows(IllegalArgumentException.class, () -> MlKemMatrixStatistics.of(5, getPublicKey(4)));
+        assertThrows(IllegalArgumentException.class, () -> MlKemMatrixStatistics.of(3, new byte[31]));
+    }
+
+    @Test
+    void constantSeedTest() {
+        // a seed of equal bytes still expands to a uniform looking matrix, only the seed lints detect it
+        MlKemMatrixStatistics statistics = MlKemMatrixStatistics.of(3, new byte[1184]);
+        assertTrue(statistics.isEntryFrequencyValid());
+        assertTrue(statistics.isEntryRunValid());
+        assertTrue(statistics.isSlEntriesValid());
+        assertFalse(MlKemSeedStatistics.of(new byte[1184], 1184 - 32).isEntryRunValid());
+    }
+
+    @Test
+    void entryFrequencyBoundTest() {
+        short[][] entries = distinctEntries(512);
+        for (int i = 0; i < MlKemMatrixStatistics.MAX_ENTRY_FREQUENCY; i++) {
+            entries[0][2 * i] = UNUSED;
+        }
+        MlKemMatrixStatistics statistics = MlKemMatrixStatistics.of(entries);
+        assertEquals(MlKemMatrixStatistics.MAX_ENTRY_FREQUENCY, statistics.getMaxEntryFrequency());
+        assertEquals(UNUSED, statistics.getMostFrequentEntry());
+        assertTrue(statistics.isEntryFrequencyValid());
+
+        entries[3][100] = UNUSED;
+        statistics = MlKemMatrixStatistics.of(entries);
+        assertEquals(MlKemMatrixStatistics.MAX_ENTRY_FREQUENCY + 1, statistics.getMaxEntryFrequency());
+        assertFalse(statistics.isEntryFrequencyValid());
+        assertTrue(statistics.isEntryRunValid());
+        assertTrue(statistics.isSlEntriesValid());
+    }
+
+    @Test
+    void entryRunBoundTest() {
+        short[][] entries = distinctEntries(512);
+        Arrays.fill(entries[1], 10, 10 + MlKemMatrixStatistics.MAX_ENTRY_RUN, UNUSED);
+        MlKemMatrixStatistics statistics = MlKemMatrixStatistics.of(entries);
+        assertEquals(MlKemMatrixStatistics.MAX_ENTRY_RUN, statistics.getLongestRun());
+        assertTrue(statistics.isEntryRunValid());
+
+        entries[1][10 + MlKemMatrixStatistics.MAX_ENTRY_RUN] = UNUSED;
+        statistics = MlKemMatrixStatistics.of(entries);
+        assertEquals(MlKemMatrixStatistics.MAX_ENTRY_RUN + 1, statistics.getLongestRun());
+        assertFalse(statistics.isEntryRunValid());
+        assertTrue(statistics.isEntryFrequencyValid());
+        assertTrue(statistics.isSlEntriesValid());
+    }
+
+    @Test
+    void entryRunEndsWithEntryTest() {
+        // two runs at the end of one entry and the start of the next are not one run
+        short[][] entries = distinctEntries(512);
+        Arrays.fill(entries[0], 256 - MlKemMatrixStatistics.MAX_ENTRY_RUN, 256, UNUSED);
+        Arrays.fill(entries[1], 0, MlKemMatrixStatistics.MAX_ENTRY_RUN, UNUSED);
+        MlKemMatrixStatistics statistics = MlKemMatrixStatistics.of(entries);
+        assertEquals(MlKemMatrixStatistics.MAX_ENTRY_RUN, statistics.getLongestRun());
+        assertTrue(statistics.isEntryRunValid());
+    }
+
+    @Test
+    void slEntriesBoundTest() {
+        // 1024 entries, the difference of small and large entries may be 6 * 32 = 192
+        assertSlEntries(608, true);
+        assertSlEntries(609, false);
+        assertSlEntries(416, true);
+        assertSlEntries(415, false);
+        assertSlEntries(0, false);
+        assertSlEntries(1024, false);
+    }
+
+    private static void assertSlEntries(int smallEntries, boolean valid) {
+        MlKemMatrixStatistics statistics = MlKemMatrixStatistics.of(distinctEntries(smallEntries));
+        assertEquals(1024, statistics.getEntries());
+        assertEquals(smallEntries, statistics.getSmallEntries());
+        assertEquals(1024 - smallEntries, statistics.getLargeEntries());
+        assertEquals(valid, statistics.isSlEntriesValid(), "small entries: " + smallEntries);
+        assertTrue(statistics.isEntryFrequencyValid());
+        assertTrue(statistics.isEntryRunValid());
+    }
+
+    /**
+     * Returns the four entries of a matrix of rank 2 whose coefficients are all different, the first ones small, below
+     * (q + 1) / 2, and the others large. None of them is {@link #UNUSED}.
+     */
+    private static short[][] distinctEntries(int smallEntries) {
+        short[][] entries = new short[4][256];
+        for (int i = 0; i < 1024; i++) {
+            entries[i / 256][i % 256] = (short) (i < smallEntries ? i : 1665 + i);
+        }
+        return entries;
+    }
+
+    private static void assertEntry(int i, int j, short[] first, short[] last) {
+        short[] entry = MlKemMatrixStatistics.sampleNTT(SEED, 0, i, j);
+        assertEquals(256, entry.length);
+        assertArrayEquals(first, Arrays.copyOf(entry, first.length));
+        assertArrayEquals(last, Arrays.copyOfRange(entry, entry.length - last.length, entry.length));
+    }
+
+    private static void assertStatistics(int rank, int entries, int maxEntryFrequency, int mostFrequentEntry,
+            int longestRun, int smallEntries) {
+        MlKemMatrixStatistics statistics = MlKemMatrixStatistics.of(rank, getPublicKey(rank));
+        assertEquals(entries, statistics.getEntries());
+        assertEquals(maxEntryFrequency, statistics.getMaxEntryFrequency());
+        assertEquals(mostFrequentEntry, statistics.getMostFrequentEntry());
+        assertEquals(longestRun, statistics.getLongestRun());
+        assertEquals(smallEntries, statistics.getSmallEntries());
+        assertEquals(entries - smallEntries, statistics.getLargeEntries());
+        assertTrue(statistics.isEntryFrequencyValid());
+        assertTrue(statistics.isEntryRunValid());
+        assertTrue(statistics.isSlEntriesValid());
+    }
+
+    private static byte[] getPublicKey(int rank) {
+        byte[] publicKey = new byte[384 * rank + SEED.length];
+        System.arraycopy(SEED, 0, publicKey, publicKey.length - SEED.length, SEED.length);
+        return publicKey;
+    }
+
+}
@@ -0,0 +1,119 @@
+package de.mtg.jlint.pqc.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+class MlKemSeedStatisticsTest {
+
+    /**
+     * A large byte that does not occur in {@link #distinctSeed(int)}.
+     */
+    private static final byte UNUSED = (byte) 0xFF;
+
+    @Test
+    void distinctSeedTest() {
+        MlKemSeedStatistics statistics = MlKemSeedStatistics.of(distinctSeed(16), 0);
+        assertEquals(1, statistics.getMaxEntryFrequency());
+        assertEquals(0, statistics.getMostFrequentEntry());
+        assertEquals(1, statistics.getLongestRun());
+        assertEquals(16, statistics.getSmallEntries());
+        assertEquals(16, statistics.getLargeEntries());
+        assertTrue(statistics.isEntryFrequencyValid());
+        assertTrue(statistics.isEntryRunValid());
+        assertTrue(statistics.isSlEntriesValid());
+    }
+
+    @Test
+    void entryFrequencyBoundTest() {
+        byte[] seed = distinctSeed(16);
+        for (int i = 0; i < MlKemSeedStatistics.MAX_ENTRY_FREQUENCY; i++) {
+            seed[2 * i + 1] = UNUSED;
+        }
+        MlKemSeedStatistics statistics = MlKemSeedStatistics.of(seed, 0);
+        assertEquals(MlKemSeedStatistics.MAX_ENTRY_FREQUENCY, statistics.getMaxEntryFrequency());
+        assertEquals(0xFF, statistics.getMostFrequentEntry());
+        assertTrue(statistics.isEntryFrequencyValid());
+
+        seed[20] = UNUSED;
+        statistics = MlKemSeedStatistics.of(seed, 0);
+        assertEquals(MlKemSeedStatistics.MAX_ENTRY_FREQUENCY + 1, statistics.getMaxEntryFrequency());
+        assertFalse(statistics.isEntryFrequencyValid());
+        assertTrue(statistics.isEntryRunValid());
+        assertTrue(statistics.isSlEntriesValid());
+    }
+
+    @Test
+    void entryRunBoundTest() {
+        byte[] seed = distinctSeed(16);
+        Arrays.fill(seed, 20, 20 + MlKemSeedStatistics.MAX_ENTRY_RUN, UNUSED);
+        MlKemSeedStatistics statistics = MlKemSeedStatistics.of(seed, 0);
+        assertEquals(MlKemSeedStatistics.MAX_ENTRY_RUN, statistics.getLongestRun());
+        assertTrue(statistics.isEntryRunValid());
+
+        seed[20 + MlKemSeedStatistics.MAX_ENTRY_RUN] = UNUSED;
+        statistics = MlKemSeedStatistics.of(seed, 0);
+        assertEquals(MlKemSeedStatistics.MAX_ENTRY_RUN + 1, statistics.getLongestRun());
+        assertFalse(statistics.isEntryRunValid());
+        assertTrue(statistics.isEntryFrequencyValid());
+        assertTrue(statistics.isSlEntriesValid());
+    }
+
+    @Test
+    void slEntriesBoundTest() {
+        assertSlEntries(MlKemSeedStatistics.MAX_SL_ENTRIES, true);
+        assertSlEntries(MlKemSeedStatistics.MAX_SL_ENTRIES + 1, false);
+        assertSlEntries(32 - MlKemSeedStatistics.MAX_SL_ENTRIES, true);
+        assertSlEntries(31 - MlKemSeedStatistics.MAX_SL_ENTRIES, false);
+    }
+
+    @Test
+    void smallBoundTest() {
+        byte[] seed = new byte[32];
+        seed[0] = 0x7F;
+        seed[1] = (byte) 0x80;
+        MlKemSeedStatistics statistics = MlKemSeedStatistics.of(seed, 0);
+        assertEquals(31, statistics.getSmallEntries());
+        assertEquals(1, statistics.getLargeEntries());
+    }
+
+    @Test
+    void offsetTest() {
+        byte[] data = new byte[40];
+        System.arraycopy(distinctSeed(16), 0, data, 8, 32);
+        MlKemSeedStatistics statistics = MlKemSeedStatistics.of(data, 8);
+        assertEquals(1, statistics.getMaxEntryFrequency());
+        assertEquals(16, statistics.getSmallEntries());
+
+        assertThrows(IllegalArgumentException.class, () -> MlKemSeedStatistics.of(data, 9));
+        assertThrows(IllegalArgumentException.class, () -> MlKemSeedStatistics.of(data, -1));
+        assertThrows(IllegalArgumentException.class, () -> MlKemSeedStatistics.of(new byte[31], 0));
+    }
+
+    private static void assertSlEntries(int smallEntries, boolean valid) {
+        MlKemSeedStatistics statistics = MlKemSeedStatistics.of(distinctSeed(smallEntries), 0);
+        assertEquals(smallEntries, statistics.getSmallEntries());
+        assertEquals(32 - smallEntries, statistics.getLargeEntries());
+        assertEquals(valid, statistics.isSlEntriesValid(), "small entries: " + smallEntries);
+        assertTrue(statistics.isEntryFrequencyValid());
+        assertTrue(statistics.isEntryRunValid());
+    }
+
+    /**
+     * Returns a seed whose bytes are all different, the first ones small, below 0x80, and the others large. None of
+     * them is {@link #UNUSED}.
+     */
+    private static byte[] distinctSeed(int smallEntries) {
+        byte[] seed = new byte[32];
+        for (int i = 0; i < seed.length; i++) {
+            seed[i] = (byte) (i < smallEntries ? i : 0x80 + i);
+        }
+        return seed;
+    }
+
+}
@@ -0,0 +1,67 @@
+package de.mtg.jlint.pqc.util;
+
+import static de.mtg.jlint.pqc.util.FingerprintIndexTest.fingerprint;
+import static de.mtg.jlint.pqc.util.FingerprintIndexTest.randomFingerprints;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class PrefilteredFingerprintSetTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void containsTest() throws IOException {
+        List<byte[]> fingerprints = randomFingerprints(10000, 1);
+        PrefilteredFingerprintSet set = PrefilteredFingerprintSet.map(write(fingerprints));
+        assertEquals(fingerprints.size(), set.size());
+        for (byte[] fingerprint : fingerprints) {
+            assertTrue(set.contains(fingerprint));
+        }
+        for (byte[] fingerprint : randomFingerprints(10000, 2)) {
+            assertFalse(set.contains(fingerprint));
+        }
+    }
+
+    @Test
+    void filterCollisionTest() throws IOException {
+        // passes the filter, which only reads the first two longs, but is not in the file
+        PrefilteredFingerprintSet set = PrefilteredFingerprintSet.map(write(List.of(fingerprint(1, 2, 3, 4))));
+        assertTrue(set.contains(fingerprint(1, 2, 3, 4)));
+        assertFalse(set.contains(fingerprint(1, 2, 3, 5)));
+    }
+
+    @Test
+    void emptyTest() throws IOException {
+        PrefilteredFingerprintSet set = PrefilteredFingerprintSet.map(write(List.of()));
+        assertEquals(0, set.size());
+        assertFalse(set.contains(fingerprint(1, 2, 3, 4)));
+    }
+
+    @Test
+    void notAFingerprintFileTest() throws IOException {
+        Path path = directory.resolve("keys.txt");
+        Files.writeString(path, "not a fingerprint file");
+        assertThrows(IOException.class, () -> PrefilteredFingerprintSet.map(path));
+    }
+
+    private Path write(List<byte[]> fingerprints) throws IOException {
+        Path path = directory.resolve("keys.bin");
+        try (OutputStream out = Files.newOutputStream(path)) {
+            SortedFingerprintFile.write(out, fingerprints, new byte[FingerprintIndex.FINGERPRINT_LENGTH]);
+        }
+        return path;
+    }
+
+}
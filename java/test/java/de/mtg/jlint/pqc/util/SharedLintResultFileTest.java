@@ -0,0 +1,163 @@
+package de.mtg.jlint.pqc.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.bouncycastle.util.encoders.Hex;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class SharedLintResultFileTest {
+
+    private static final String ENGINE_VERSION = "native-2";
+    private static final String LINT_NAME = ExternalLintUtils.ML_KEM_LINT_NAMES.get(0);
+    private static final int SLOTS = 16;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void putGetTest() throws IOException {
+        String id = randomIds(1, 1).get(0);
+        try (SharedLintResultFile file = SharedLintResultFile.open(directory.resolve("results.bin"), SLOTS);
+             SharedLintResultFile other = SharedLintResultFile.open(directory.resolve("results.bin"), SLOTS)) {
+            assertNull(other.get(LINT_NAME, id, ENGINE_VERSION));
+            file.put(id, ENGINE_VERSION, Map.of(LINT_NAME, LintEngine.PASS));
+            assertEquals(LintEngine.PASS, other.get(LINT_NAME, id, ENGINE_VERSION));
+            assertNull(other.get(LINT_NAME, id, "native-1"));
+            assertNull(other.get(ExternalLintUtils.ML_KEM_LINT_NAMES.get(1), id, ENGINE_VERSION));
+        }
+    }
+
+    @Test
+    void oldestReplacedTest() throws IOException {
+        // all results share the 16 slots of the file
+        List<String> ids = randomIds(SLOTS + 1, 1);
+        try (SharedLintResultFile file = SharedLintResultFile.open(directory.resolve("results.bin"), SLOTS)) {
+            for (String id : ids) {
+                file.put(id, ENGINE_VERSION, Map.of(LINT_NAME, LintEngine.PASS));
+            }
+            assertNull(file.get(LINT_NAME, ids.get(0), ENGINE_VERSION));
+            for (String id : ids.subList(1, ids.size())) {
+                assertEquals(LintEngine.PASS, file.get(LINT_NAME, id, ENGINE_VERSION));
+            }
+        }
+    }
+
+    @Test
+    void deadWriterTest() throws IOException {
+        Path path = directory.resolve("results.bin");
+        String id = randomIds(1, 1).get(0);
+        try (SharedLintResultFile file = SharedLintResultFile.open(path, SLOTS)) {
+            // every slot was claimed with stamp 0 by a writer that died before it published the entry
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, 64 + SLOTS * 64);
+                buffer.order(ByteOrder.LITTLE_ENDIAN);
+                for (int slot = 0; slot < SLOTS; slot++) {
+                    buffer.putLong(64 + slot * 64, 1L);
+                }
+            }
+
+            // the writers may still be alive until as many writes as slots were started
+            for (int i = 0; i <= SLOTS; i++) {
+                file.put(id, ENGINE_VERSION, Map.of(LINT_NAME, LintEngine.PASS));
+                assertNull(file.get(LINT_NAME, id, ENGINE_VERSION));
+            }
+            file.put(id, ENGINE_VERSION, Map.of(LINT_NAME, LintEngine.PASS));
+            assertEquals(LintEngine.PASS, file.get(LINT_NAME, id, ENGINE_VERSION));
+        }
+    }
+
+    @Test
+    void concurrentPutGetTest() throws Exception {
+        // more results than slots, so that entries are replaced while they are read
+        int threads = 4;
+        int keys = 256;
+        Path path = directory.resolve("results.bin");
+        List<SharedLintResultFile> files = new ArrayList<>();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Integer>> found = new ArrayList<>();
+            for (int thread = 0; thread < threads; thread++) {
+                // every thread maps the file like another process
+                SharedLintResultFile file = SharedLintResultFile.open(path, 1024);
+                files.add(file);
+                found.add(executor.submit(lintThread(file, randomIds(keys, thread))));
+            }
+            int total = 0;
+            for (Future<Integer> future : found) {
+                total += future.get();
+            }
+            assertTrue(total > 0);
+        } finally {
+            executor.shutdownNow();
+            for (SharedLintResultFile file : files) {
+                file.close();
+            }
+        }
+    }
+
+    /**
+     * Returns a task that puts the results of every key and reads them back. Every result that is found must be the
+     * one of its key.
+     */
+    private static Callable<Integer> lintThread(SharedLintResultFile file, List<String> ids) {
+        return () -> {
+            int found = 0;
+            for (int round = 0; round < 4; round++) {
+                for (String id : ids) {
+                    file.put(id, ENGINE_VERSION, results(id));
+                    for (Map.Entry<String, String> result : results(id).entrySet()) {
+                        String shared = file.get(result.getKey(), id, ENGINE_VERSION);
+                        if (shared != null) {
+                            assertEquals(result.getValue(), shared);
+                            found++;
+                        }
+                    }
+                }
+            }
+            return found;
+        };
+    }
+
+    /**
+     * Returns results of all ML-KEM lints that depend on the key.
+     */
+    private static Map<String, String> results(String id) {
+        Map<String, String> results = new HashMap<>();
+        List<String> lintNames = ExternalLintUtils.ML_KEM_LINT_NAMES;
+        for (int i = 0; i < lintNames.size(); i++) {
+            results.put(lintNames.get(i), id.substring(i, i + 7));
+        }
+        return results;
+    }
+
+    private static List<String> randomIds(int count, long seed) {
+        Random random = new Random(seed);
+        List<String> ids = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            byte[] id = new byte[32];
+            random.nextBytes(id);
+            ids.add(Hex.toHexString(id));
+        }
+        return ids;
+    }
+
+}
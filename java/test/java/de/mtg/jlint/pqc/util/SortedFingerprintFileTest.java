@@ -0,0 +1,147 @@
+package de.mtg.jlint.pqc.util;
+
+import static de.mtg.jlint.pqc.util.FingerprintIndexTest.fingerprint;
+import static de.mtg.jlint.pqc.util.FingerprintIndexTest.randomFingerprints;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class SortedFingerprintFileTest {
+
+    private static final byte[] SOURCE_DIGEST = fingerprint(1, 2, 3, 4);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void readTest() throws IOException {
+        List<byte[]> fingerprints = randomFingerprints(1000, 1);
+        byte[] file = write(fingerprints);
+        assertEquals(48 + 1000 * 32, file.length);
+
+        SortedFingerprintFile sorted = SortedFingerprintFile.read(new ByteArrayInputStream(file));
+        assertEquals(1000, sorted.size());
+        assertEquals(file.length, sorted.getByteSize());
+        assertContainsExactly(sorted, fingerprints);
+    }
+
+    @Test
+    void mapTest() throws IOException {
+        List<byte[]> fingerprints = randomFingerprints(1000, 1);
+        Path path = directory.resolve("keys.bin");
+        Files.write(path, write(fingerprints));
+
+        SortedFingerprintFile sorted = SortedFingerprintFile.map(path);
+        assertEquals(1000, sorted.size());
+        assertContainsExactly(sorted, fingerprints);
+    }
+
+    @Test
+    void emptyTest() throws IOException {
+        SortedFingerprintFile sorted = SortedFingerprintFile.read(new ByteArrayInputStream(write(List.of())));
+        assertEquals(0, sorted.size());
+        assertFalse(sorted.contains(fingerprint(1, 2, 3, 4)));
+    }
+
+    @Test
+    void duplicatesTest() throws IOException {
+        List<byte[]> fingerprints = randomFingerprints(3, 1);
+        fingerprints.add(fingerprints.get(1).clone());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertEquals(3, SortedFingerprintFile.write(out, fingerprints, SOURCE_DIGEST));
+
+        SortedFingerprintFile sorted = SortedFingerprintFile.read(new ByteArrayInputStream(out.toByteArray()));
+        assertEquals(3, sorted.size());
+        assertContainsExactly(sorted, fingerprints);
+    }
+
+    @Test
+    void unsignedOrderTest() throws IOException {
+        // fingerprints that differ only in one long and in the sign of a long
+        List<byte[]> fingerprints = List.of(
+                fingerprint(-1, 0, 0, 0),
+                fingerprint(Long.MAX_VALUE, 0, 0, 0),
+                fingerprint(Long.MIN_VALUE, 0, 0, 0),
+                fingerprint(0, -1, 0, 0),
+                fingerprint(0, 0, Long.MIN_VALUE, 0),
+                fingerprint(0, 0, 0, -1),
+                fingerprint(0, 0, 0, 1),
+                fingerprint(0, 0, 0, 2));
+        SortedFingerprintFile sorted = SortedFingerprintFile.read(new ByteArrayInputStream(write(fingerprints)));
+        assertContainsExactly(sorted, fingerprints);
+        assertFalse(sorted.contains(fingerprint(0, 0, 0, 0)));
+        assertFalse(sorted.contains(fingerprint(0, 0, 0, 3)));
+        assertFalse(sorted.contains(fingerprint(0, 0, 1, 0)));
+        assertFalse(sorted.contains(fingerprint(Long.MIN_VALUE + 1, 0, 0, 0)));
+        assertFalse(sorted.contains(fingerprint(-1, 0, 0, 1)));
+    }
+
+    @Test
+    void sourceDigestTest() throws IOException {
+        SortedFingerprintFile sorted = SortedFingerprintFile.read(new ByteArrayInputStream(write(List.of())));
+        assertTrue(sorted.isCompiledFrom(SOURCE_DIGEST));
+        assertFalse(sorted.isCompiledFrom(fingerprint(1, 2, 3, 5)));
+    }
+
+    @Test
+    void malformedTest() throws IOException {
+        byte[] file = write(randomFingerprints(2, 1));
+
+        assertMalformed(new byte[0]);
+        assertMalformed(Arrays.copyOf(file, 47));
+        assertMalformed(Arrays.copyOf(file, file.length - 1));
+        assertMalformed(Arrays.copyOf(file, file.length + 1));
+
+        byte[] magic = file.clone();
+        magic[0] = 'X';
+        assertMalformed(magic);
+
+        byte[] version = file.clone();
+        version[7] = 2;
+        assertMalformed(version);
+
+        byte[] count = file.clone();
+        count[8] = (byte) 0x80;
+        assertMalformed(count);
+    }
+
+    @Test
+    void invalidFingerprintTest() {
+        List<byte[]> fingerprints = List.of(new byte[31]);
+        assertThrows(IllegalArgumentException.class,
+                () -> SortedFingerprintFile.write(new ByteArrayOutputStream(), fingerprints, SOURCE_DIGEST));
+    }
+
+    private static void assertContainsExactly(SortedFingerprintFile sorted, List<byte[]> fingerprints) {
+        for (byte[] fingerprint : fingerprints) {
+            assertTrue(sorted.contains(fingerprint));
+        }
+        for (byte[] fingerprint : randomFingerprints(1000, 2)) {
+            assertFalse(sorted.contains(fingerprint));
+        }
+    }
+
+    private static void assertMalformed(byte[] file) {
+        assertThrows(IOException.class, () -> SortedFingerprintFile.read(new ByteArrayInputStream(file)));
+    }
+
+    private static byte[] write(List<byte[]> fingerprints) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        SortedFingerprintFile.write(out, new ArrayList<>(fingerprints), SOURCE_DIGEST);
+        return out.toByteArray();
+    }
+
+}
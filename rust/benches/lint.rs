@@ -0,0 +1,155 @@
+use std::hint::black_box;
+use std::time::Duration;
+
+use base64::prelude::*;
+use criterion::{criterion_group, criterion_main, Criterion, Throughput};
+use rand::{rngs::OsRng, RngCore};
+
+use libcrux_ml_kem::{lint, mlkem1024, mlkem512, mlkem768, statistics};
+
+/// The number of keys in a batch request.
+const BATCH_SIZE: usize = 10_000;
+
+/// The variants as their rank and their name.
+const VARIANTS: [(usize, &str); 3] = [(2, "mlkem512"), (3, "mlkem768"), (4, "mlkem1024")];
+
+/// A fresh encapsulation key of rank `rank`.
+fn public_key(rank: usize) -> Vec<u8> {
+    let mut seed = [0; 64];
+    OsRng.fill_bytes(&mut seed);
+    match rank {
+        2 => mlkem512::generate_key_pair(seed).public_key().as_slice().to_vec(),
+        3 => mlkem768::generate_key_pair(seed).public_key().as_slice().to_vec(),
+        4 => mlkem1024::generate_key_pair(seed).public_key().as_slice().to_vec(),
+        _ => unreachable!(),
+    }
+}
+
+/// A JSON request for all lints on `public_key`.
+fn lint_line(id: usize, public_key: &[u8]) -> String {
+    format!(
+        r#"{{"lintNames":{},"id":"{id:064x}","publicKey":"{}"}}"#,
+        serde_json::to_string(&lint::LINT_NAMES).unwrap(),
+        BASE64_STANDARD.encode(public_key)
+    )
+}
+
+/// The body of a request frame for all lints on `public_key`.
+fn lint_frame(rank: usize, public_key: &[u8]) -> Vec<u8> {
+    let mask = (1u16 << lint::LINT_NAMES.len()) - 1;
+    let mut body = vec![rank as u8];
+    body.extend_from_slice(&mask.to_be_bytes());
+    body.extend_from_slice(&[0; 32]);
+    body.extend_from_slice(public_key);
+    body
+}
+
+pub fn pk_validation(c: &mut Criterion) {
+    macro_rules! fun {
+        ($name:expr, $p:path, $group:expr, $pk:expr) => {
+            $group.bench_function(format!("libcrux {}", $name), |b| {
+                use $p as p;
+                let pk = $pk;
+                b.iter(|| black_box(p::validate_public_key(black_box(pk))))
+            });
+        };
+    }
+
+    macro_rules! init {
+        ($version:ident) => {{
+            let mut group = c.benchmark_group(format!(
+                "Lint ML-KEM {} PK Validation",
+                stringify!($version)
+            ));
+            group.throughput(Throughput::Elements(1));
+            group.measurement_time(Duration::from_secs(10));
+
+            use $version as version;
+            let mut seed = [0; 64];
+            OsRng.fill_bytes(&mut seed);
+            let keypair = version::generate_key_pair(seed);
+            fun!("portable", version::portable, group, keypair.public_key());
+            #[cfg(feature = "simd128")]
+            {
+                fun!("neon", version::neon, group, keypair.public_key());
+            }
+            #[cfg(feature = "simd256")]
+            {
+                fun!("avx2", version::avx2, group, keypair.public_key());
+            }
+        }};
+    }
+
+    init!(mlkem512);
+    init!(mlkem768);
+    init!(mlkem1024);
+}
+
+pub fn matrix_expansion(c: &mut Criterion) {
+    let mut group = c.benchmark_group("Lint Matrix Expansion");
+    group.throughput(Throughput::Elements(1));
+    let seed: [u8; statistics::SEED_SIZE] = *statistics::seed_of(&public_key(2)).unwrap();
+    for (rank, name) in VARIANTS {
+        group.bench_function(name, |b| {
+            b.iter(|| black_box(statistics::expand_matrix(rank, black_box(&seed))))
+        });
+    }
+}
+
+pub fn entry_statistics(c: &mut Criterion) {
+    let mut group = c.benchmark_group("Lint Statistics");
+    group.throughput(Throughput::Elements(1));
+    let seed: [u8; statistics::SEED_SIZE] = *statistics::seed_of(&public_key(2)).unwrap();
+    group.bench_function("seed", |b| {
+        b.iter(|| black_box(statistics::seed_statistics(black_box(&seed))))
+    });
+    for (rank, name) in VARIANTS {
+        let matrix = statistics::expand_matrix(rank, &seed).unwrap();
+        group.bench_function(format!("matrix {name}"), |b| {
+            b.iter(|| black_box(black_box(&matrix).statistics()))
+        });
+    }
+}
+
+pub fn lint_request(c: &mut Criterion) {
+    let mut group = c.benchmark_group("Lint Request");
+    group.throughput(Throughput::Elements(1));
+    for (rank, name) in VARIANTS {
+        let pk = public_key(rank);
+        let line = lint_line(0, &pk);
+        group.bench_function(format!("json {name}"), |b| {
+            b.iter(|| black_box(lint::run_lint_json(black_box(&line))))
+        });
+        let frame = lint_frame(rank, &pk);
+        group.bench_function(format!("frame {name}"), |b| {
+            b.iter(|| black_box(lint::run_lint_frame(black_box(&frame))))
+        });
+    }
+}
+
+pub fn lint_batch(c: &mut Criterion) {
+    let mut group = c.benchmark_group("Lint Batch");
+    group.throughput(Throughput::Elements(BATCH_SIZE as u64));
+    group.sample_size(10);
+    group.measurement_time(Duration::from_secs(20));
+    for (rank, name) in VARIANTS {
+        let lines: Vec<String> = (0..BATCH_SIZE)
+            .map(|id| lint_line(id, &public_key(rank)))
+            .collect();
+        let lines: Vec<&str> = lines.iter().map(String::as_str).collect();
+        group.bench_function(format!("json {name} x{BATCH_SIZE}"), |b| {
+            b.iter(|| black_box(lint::run_lint_lines(black_box(&lines))))
+        });
+    }
+}
+
+pub fn lints(c: &mut Criterion) {
+    pk_validation(c);
+    matrix_expansion(c);
+    entry_statistics(c);
+    lint_request(c);
+    lint_batch(c);
+}
+
+criterion_group!(benches, lints);
+criterion_main!(benches);
@@ -0,0 +1,108 @@
+/*
+ * JNI entry points of the in-process ML-KEM engine of the PQC lints.
+ *
+ * Java: de.mtg.jlint.pqc.util.NativeLintEngine
+ *
+ * The key bytes are copied straight from the Java array into the libcrux
+ * public key type and validated with `validate_public_key` of the parameter
+ * set given by the rank. On x64 the AVX2 implementation is used when the CPU
+ * supports it.
+ */
+
+#include <jni.h>
+#include <string.h>
+
+#include "libcrux_mlkem1024_portable.h"
+#include "libcrux_mlkem512_portable.h"
+#include "libcrux_mlkem768_portable.h"
+
+#if defined(LIBCRUX_X64) && (defined(__GNUC__) || defined(__clang__))
+#define JLINT_PQC_AVX2
+#include "libcrux_mlkem1024_avx2.h"
+#include "libcrux_mlkem512_avx2.h"
+#include "libcrux_mlkem768_avx2.h"
+#endif
+
+#define JLINT_PQC_INVALID_LENGTH -1
+#define JLINT_PQC_INVALID 0
+#define JLINT_PQC_VALID 1
+
+static bool use_avx2(void) {
+#if defined(JLINT_PQC_AVX2)
+  return __builtin_cpu_supports("avx2");
+#else
+  return false;
+#endif
+}
+
+/*
+ * Returns 1 if the key is a valid ML-KEM encapsulation key of the given rank,
+ * 0 if it is not, and -1 if its length does not match the rank.
+ */
+JNIEXPORT jint JNICALL
+Java_de_mtg_jlint_pqc_util_NativeLintEngine_validatePublicKey(JNIEnv *env,
+                                                              jclass clazz,
+                                                              jint rank,
+                                                              jbyteArray key) {
+  jsize length = (*env)->GetArrayLength(env, key);
+  bool avx2 = use_avx2();
+  (void)avx2;
+  switch (rank) {
+    case 2: {
+      libcrux_ml_kem_types_MlKemPublicKey_52 public_key;
+      if (length != (jsize)sizeof(public_key.value)) {
+        return JLINT_PQC_INVALID_LENGTH;
+      }
+      (*env)->GetByteArrayRegion(env, key, 0, length,
+                                 (jbyte *)public_key.value);
+#if defined(JLINT_PQC_AVX2)
+      if (avx2) {
+        return libcrux_ml_kem_mlkem512_avx2_validate_public_key(&public_key)
+                   ? JLINT_PQC_VALID
+                   : JLINT_PQC_INVALID;
+      }
+#endif
+      return libcrux_ml_kem_mlkem512_portable_validate_public_key(&public_key)
+                 ? JLINT_PQC_VALID
+                 : JLINT_PQC_INVALID;
+    }
+    case 3: {
+      libcrux_ml_kem_types_MlKemPublicKey_30 public_key;
+      if (length != (jsize)sizeof(public_key.value)) {
+        return JLINT_PQC_INVALID_LENGTH;
+      }
+      (*env)->GetByteArrayRegion(env, key, 0, length,
+                                 (jbyte *)public_key.value);
+#if defined(JLINT_PQC_AVX2)
+      if (avx2) {
+        return libcrux_ml_kem_mlkem768_avx2_validate_public_key(&public_key)
+                   ? JLINT_PQC_VALID
+                   : JLINT_PQC_INVALID;
+      }
+#endif
+      return libcrux_ml_kem_mlkem768_portable_validate_public_key(&public_key)
+                 ? JLINT_PQC_VALID
+                 : JLINT_PQC_INVALID;
+    }
+    case 4: {
+      libcrux_ml_kem_types_MlKemPublicKey_64 public_key;
+      if (length != (jsize)sizeof(public_key.value)) {
+        return JLINT_PQC_INVALID_LENGTH;
+      }
+      (*env)->GetByteArrayRegion(env, key, 0, length,
+                                 (jbyte *)public_key.value);
+#if defined(JLINT_PQC_AVX2)
+      if (avx2) {
+        return libcrux_ml_kem_mlkem1024_avx2_validate_public_key(&public_key)
+                   ? JLINT_PQC_VALID
+                   : JLINT_PQC_INVALID;
+      }
+#endif
+      return libcrux_ml_kem_mlkem1024_portable_validate_public_key(&public_key)
+                 ? JLINT_PQC_VALID
+                 : JLINT_PQC_INVALID;
+    }
+    default:
+      return JLINT_PQC_INVALID_LENGTH;
+  }
+}
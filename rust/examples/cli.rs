@@ -1,13 +1,21 @@
 #![allow(dead_code)]
 
+#[cfg(unix)]
+use std::{
+    io::BufReader,
+    os::unix::net::{UnixListener, UnixStream},
+    sync::{mpsc, Arc, Condvar, Mutex},
+};
 use std::{
     fs::File,
-    io::{Read, Write},
+    io::{BufWriter, Read, Write},
 };
 
-use base64::prelude::*;
 use clap::{Parser, Subcommand};
 use libcrux_ml_kem::{
+    lint::{
+        self, answer, read_message, run_lint_lines, KeyEvaluation, Lint, LintResponse, Message,
+    },
     mlkem1024::{
         self, MlKem1024Ciphertext, MlKem1024KeyPair, MlKem1024PrivateKey, MlKem1024PublicKey,
     },
@@ -29,71 +37,6 @@ use libcrux_ml_kem::{
 use rand::RngCore;
 use serde::{Deserialize, Serialize};
 
-#[allow(non_snake_case)]
-#[derive(Serialize, Deserialize)]
-struct Lint {
-    lintName: String,
-    // algorithm: Algorithm,
-    // valid: bool,
-    // r#type: String,
-    id: String,
-    publicKey: String,
-}
-
-#[allow(non_snake_case)]
-#[derive(Serialize, Deserialize)]
-struct LintResult {
-    lintName: String,
-    id: String,
-    result: String,
-}
-
-// enum LintType {
-//     PublicKey,
-// }
-
-impl Lint {
-    // XXX: Only kem for now. Needs updating for ml-dsa
-    fn new(
-        id: String,
-        // lint_type: LintType,
-        pk: &[u8],
-        name: &str,
-        // algorithm: Algorithm,
-        // valid: bool,
-    ) -> Self {
-        Self {
-            lintName: name.to_owned(),
-            // r#type: match lint_type {
-            //     LintType::PublicKey => "PublicKey".to_owned(),
-            // },
-            id,
-            publicKey: BASE64_STANDARD.encode(pk),
-            // algorithm,
-            // valid,
-        }
-    }
-
-    // fn input_type(&self) -> Option<LintType> {
-    //     match self.publicKey.as_str() {
-    //         "PublicKey" => Some(LintType::PublicKey),
-    //         _ => None,
-    //     }
-    // }
-
-    fn id(&self) -> &str {
-        &self.id
-    }
-
-    // fn kem_algorithm(&self) -> Algorithm {
-    //     self.algorithm
-    // }
-
-    fn public_key(&self) -> Option<Vec<u8>> {
-        BASE64_STANDARD.decode(&self.publicKey).ok()
-    }
-}
-
 #[derive(Subcommand)]
 enum Cmd {
     GenerateKey {
@@ -163,6 +106,33 @@ enum Cmd {
         /// Defaults to `lint_result.json`.
         #[arg(short, long)]
         result: Option<String>,
+
+        /// Run all lints in `file`, one JSON lint per line, on all cores.
+        ///
+        /// The results are written to `result` in the same order, one per line,
+        /// and are tagged with the `id` of their lint.
+        #[arg(long)]
+        batch: bool,
+    },
+    /// Run as a long-lived lint worker.
+    ///
+    /// Reads lints from stdin and writes one lint result per lint to stdout,
+    /// until stdin is closed. Lints are JSON lines or binary frames, see
+    /// [`read_message`], and are answered in the same format.
+    Worker,
+    /// Run as a lint server on a Unix domain socket.
+    ///
+    /// Every connection is served like a worker: every lint is answered with
+    /// one lint result, in the same order. Clients may send further lints
+    /// before reading the results of earlier ones.
+    /// The lints of all connections are run on one thread per core. At most
+    /// 256 connections are served at once and only a bounded number of lints
+    /// is queued, further clients and lints wait until there is room.
+    #[cfg(unix)]
+    Serve {
+        /// The path of the socket. An existing file at this path is replaced.
+        #[arg(short, long)]
+        socket: String,
     },
 }
 
@@ -188,6 +158,18 @@ enum Algorithm {
     MlKem512,
 }
 
+impl Algorithm {
+    /// The variant given as 512, 768 or 1024.
+    fn from_variant(variant: u16) -> Option<Self> {
+        match variant {
+            512 => Some(Self::MlKem512),
+            768 => Some(Self::MlKem768),
+            1024 => Some(Self::MlKem1024),
+            _ => None,
+        }
+    }
+}
+
 enum KeyPair {
     MlKem1024(MlKem1024KeyPair),
     MlKem768(MlKem768KeyPair),
@@ -522,11 +504,9 @@ fn main() {
     let cli = Cli::parse();
 
     let alg = if let Some(l) = cli.algorithm {
-        match l {
-            512 => Algorithm::MlKem512,
-            768 => Algorithm::MlKem768,
-            1024 => Algorithm::MlKem1024,
-            _ => {
+        match Algorithm::from_variant(l) {
+            Some(alg) => alg,
+            None => {
                 eprintln!("Invalid algorithm variant {l}");
                 return;
             }
@@ -597,13 +577,20 @@ fn main() {
             result,
             key,
             key_file,
+            batch,
         } => {
             let file = match file {
                 Some(n) => n,
                 None => "lint.json".to_owned(),
             };
 
-            if let Some(lint_name) = name {
+            if batch {
+                let result = match result {
+                    Some(n) => n,
+                    None => "lint_result.json".to_owned(),
+                };
+                run_batch(&file, &result);
+            } else if let Some(lint_name) = name {
                 // Generate for the given lint.
 
                 // There's a hex public key.
@@ -643,53 +630,7 @@ fn main() {
                     File::open(file.clone()).expect(&format!("Can not open file {file}"));
                 let lint: Lint = serde_json::from_reader(json_file)
                     .expect(&format!("Error reading file {file}"));
-                let alg = Algorithm::MlKem768;
-                // let alg = lint.kem_algorithm();
-
-                let pk_bytes = lint.public_key().expect("Error reading public key.");
-                eprintln!("alg: {alg:?}");
-
-                // Decode the public key.
-                // This verifies that it's a valid key.
-                let result_key = PublicKey::decode(alg, &pk_bytes);
-
-                let mut lint_result = LintResult {
-                    lintName: lint.lintName.clone(),
-                    id: lint.id.clone(),
-                    result: "Failure".to_owned(),
-                };
-
-                // We expect this one to pass.
-                if result_key.is_err() {
-                    lint_result.result = "Error".to_owned();
-                    print_status("Error: Invalid public key.", &pk_bytes, &lint);
-                }
-
-                // This pk should not have passed.
-                if result_key.is_ok() {
-                    lint_result.result = "Pass".to_owned();
-                    print_status("Pass: Valid public key", &pk_bytes, &lint);
-                }
-
-                // // Passed. Valid.
-                // if lint.valid && result_key.is_ok() {
-                //     lint_result.result = "Pass".to_owned();
-                //     print_status(
-                //         "Pass: valid lint lead to successful pk validation.",
-                //         &pk_bytes,
-                //         &lint,
-                //     );
-                // }
-
-                // // Passed. Invalid
-                // if !lint.valid && result_key.is_err() {
-                //     lint_result.result = "Pass".to_owned();
-                //     print_status(
-                //         "Pass: lint with invalid PK lead to pk validation error.",
-                //         &pk_bytes,
-                //         &lint,
-                //     );
-                // }
+                let lint_result = run_lint_verbose(&lint);
 
                 let file = match result {
                     Some(n) => n,
@@ -703,7 +644,228 @@ fn main() {
                     .expect("Error writing lint file");
             }
         }
+        Cmd::Worker => run_worker(),
+        #[cfg(unix)]
+        Cmd::Serve { socket } => run_server(&socket),
+    }
+}
+
+/// Run the lint, or all lints in `lintNames`, and print the variant and the
+/// validity of the key to stderr.
+fn run_lint_verbose(lint: &Lint) -> LintResponse {
+    match lint.public_key() {
+        Some(pk_bytes) => {
+            let mut key = KeyEvaluation::new(lint.variant(&pk_bytes), &pk_bytes);
+            print_key_status(&mut key, lint);
+        }
+        None => eprintln!("Error reading public key."),
+    }
+    lint::run_lint(lint)
+}
+
+/// Print the variant and the validity of the key of the lint to stderr.
+fn print_key_status(key: &mut KeyEvaluation<'_>, lint: &Lint) {
+    let pk_bytes = key.key();
+    match key.declared_variant() {
+        Some(variant) => eprintln!("alg: {variant:?}"),
+        None => {
+            print_status("Error: Unknown ML-KEM variant.", pk_bytes, lint);
+            return;
+        }
+    }
+    if key.is_valid() {
+        print_status("Pass: Valid public key", pk_bytes, lint);
+    } else {
+        print_status("Error: Invalid public key.", pk_bytes, lint);
+    }
+}
+
+/// Serve lints from stdin until it is closed.
+///
+/// Every lint is answered with exactly one result, such that the caller can
+/// keep the process running and pipeline requests.
+fn run_worker() {
+    let mut input = std::io::stdin().lock();
+    let mut out = BufWriter::new(std::io::stdout().lock());
+
+    while let Ok(Some(message)) = read_message(&mut input) {
+        out.write_all(&answer(message))
+            .expect("Error writing lint result");
+        out.flush().expect("Error writing lint result");
+    }
+}
+
+/// A lint and the channel its result is sent to.
+#[cfg(unix)]
+type Job = (Message, mpsc::SyncSender<Vec<u8>>);
+
+/// The maximal number of connections that are served at once. Further clients
+/// wait in the backlog of the socket until a connection is closed.
+#[cfg(unix)]
+const MAX_CONNECTIONS: usize = 256;
+
+/// The number of lints per lint thread that may be queued. When the queue is
+/// full, the connections stop reading lints until a lint thread takes one.
+#[cfg(unix)]
+const QUEUED_JOBS_PER_THREAD: usize = 16;
+
+/// The number of lints of one connection whose results may be pending. A
+/// client that does not read its results stops being read.
+#[cfg(unix)]
+const MAX_PENDING_RESULTS: usize = 64;
+
+/// The number of connections that are served.
+#[cfg(unix)]
+struct Connections {
+    count: Mutex<usize>,
+    closed: Condvar,
+}
+
+#[cfg(unix)]
+impl Connections {
+    /// Wait until fewer than [`MAX_CONNECTIONS`] connections are served and
+    /// count one more until the returned guard is dropped.
+    fn open(self: &Arc<Self>) -> Connection {
+        let mut count = self.count.lock().expect("Connection count poisoned");
+        while *count >= MAX_CONNECTIONS {
+            count = self.closed.wait(count).expect("Connection count poisoned");
+        }
+        *count += 1;
+        Connection(Arc::clone(self))
+    }
+}
+
+/// A connection that is counted by [`Connections`] while it is served.
+#[cfg(unix)]
+struct Connection(Arc<Connections>);
+
+#[cfg(unix)]
+impl Drop for Connection {
+    fn drop(&mut self) {
+        // also if a connection panicked while it held the lock
+        let mut count = self.0.count.lock().unwrap_or_else(|e| e.into_inner());
+        *count -= 1;
+        self.0.closed.notify_one();
+    }
+}
+
+/// Serve lints on the Unix domain socket at `socket` until the process is
+/// terminated.
+#[cfg(unix)]
+fn run_server(socket: &str) {
+    let _ = std::fs::remove_file(socket);
+    let listener = UnixListener::bind(socket).expect(&format!("Can not bind socket {socket}"));
+
+    let threads = std::thread::available_parallelism()
+        .map(|n| n.get())
+        .unwrap_or(1);
+    let (jobs, queue) = mpsc::sync_channel::<Job>(threads * QUEUED_JOBS_PER_THREAD);
+    let queue = Arc::new(Mutex::new(queue));
+    for _ in 0..threads {
+        let queue = Arc::clone(&queue);
+        std::thread::spawn(move || loop {
+            let job = queue.lock().expect("Lint queue poisoned").recv();
+            let (message, result) = match job {
+                Ok(job) => job,
+                Err(_) => break,
+            };
+            // the connection may have been closed in the meantime
+            let _ = result.send(answer(message));
+        });
+    }
+
+    let connections = Arc::new(Connections {
+        count: Mutex::new(0),
+        closed: Condvar::new(),
+    });
+    loop {
+        // accept only when the connection can be served
+        let connection = connections.open();
+        match listener.accept() {
+            Ok((stream, _)) => {
+                let jobs = jobs.clone();
+                std::thread::spawn(move || {
+                    let _connection = connection;
+                    serve_connection(stream, jobs)
+                });
+            }
+            Err(e) => eprintln!("Error accepting connection: {e}"),
+        }
+    }
+}
+
+/// Serve the lints of one connection.
+///
+/// The lints are queued in the order they are read, and a writer thread sends
+/// their results in the same order. The output is flushed whenever no further
+/// result is pending. Sending a job blocks while the queue of the lint threads
+/// or the results of the connection are full, so that neither grows without
+/// bound.
+#[cfg(unix)]
+fn serve_connection(stream: UnixStream, jobs: mpsc::SyncSender<Job>) {
+    let input = match stream.try_clone() {
+        Ok(input) => input,
+        Err(e) => {
+            eprintln!("Error reading connection: {e}");
+            return;
+        }
+    };
+
+    let (pending, pending_results) =
+        mpsc::sync_channel::<mpsc::Receiver<Vec<u8>>>(MAX_PENDING_RESULTS);
+    let writer = std::thread::spawn(move || {
+        let mut out = BufWriter::new(stream);
+        let mut next = pending_results.recv();
+        while let Ok(result) = next {
+            let response = match result.recv() {
+                Ok(response) => response,
+                Err(_) => break,
+            };
+            if out.write_all(&response).is_err() {
+                break;
+            }
+            next = match pending_results.try_recv() {
+                Ok(result) => Ok(result),
+                Err(mpsc::TryRecvError::Empty) => {
+                    if out.flush().is_err() {
+                        break;
+                    }
+                    pending_results.recv()
+                }
+                Err(mpsc::TryRecvError::Disconnected) => break,
+            };
+        }
+        let _ = out.flush();
+    });
+
+    let mut input = BufReader::new(input);
+    while let Ok(Some(message)) = read_message(&mut input) {
+        let (result, response) = mpsc::sync_channel(1);
+        if jobs.send((message, result)).is_err() || pending.send(response).is_err() {
+            break;
+        }
+    }
+    drop(pending);
+    let _ = writer.join();
+}
+
+/// Run all lints in the JSON-lines `file` and write the results to `result`.
+///
+/// The results are written in input order.
+fn run_batch(file: &str, result: &str) {
+    let input = std::fs::read_to_string(file).expect(&format!("Error reading file {file}"));
+    let lines: Vec<&str> = input.lines().filter(|l| !l.trim().is_empty()).collect();
+    let responses = run_lint_lines(&lines);
+
+    let mut out = BufWriter::new(
+        File::create(result).expect(&format!("Can not create file {result}")),
+    );
+    for response in responses {
+        out.write_all(response.as_bytes())
+            .expect("Error writing lint result");
+        out.write_all(b"\n").expect("Error writing lint result");
     }
+    out.flush().expect("Error writing lint result");
 }
 
 fn print_status(msg: &str, pk_bytes: &[u8], lint: &Lint) {
@@ -7,25 +7,25 @@ use super::*;
 #[cfg(feature = "simd256")]
 use instantiations::avx2::{
     decapsulate as decapsulate_avx2, encapsulate as encapsulate_avx2,
-    generate_keypair as generate_keypair_avx2,
+    generate_keypair as generate_keypair_avx2, validate_public_key as validate_public_key_avx2,
 };
 
 #[cfg(feature = "simd128")]
 use instantiations::neon::{
     decapsulate as decapsulate_neon, encapsulate as encapsulate_neon,
-    generate_keypair as generate_keypair_neon,
+    generate_keypair as generate_keypair_neon, validate_public_key as validate_public_key_neon,
 };
 
 #[cfg(not(feature = "simd256"))]
 use instantiations::portable::{
     decapsulate as decapsulate_avx2, encapsulate as encapsulate_avx2,
-    generate_keypair as generate_keypair_avx2,
+    generate_keypair as generate_keypair_avx2, validate_public_key as validate_public_key_avx2,
 };
 
 #[cfg(not(feature = "simd128"))]
 use instantiations::portable::{
     decapsulate as decapsulate_neon, encapsulate as encapsulate_neon,
-    generate_keypair as generate_keypair_neon,
+    generate_keypair as generate_keypair_neon, validate_public_key as validate_public_key_neon,
 };
 
 #[cfg(all(feature = "simd256", feature = "kyber"))]
@@ -61,12 +61,29 @@ pub(crate) fn validate_public_key<
 >(
     public_key: &[u8; PUBLIC_KEY_SIZE],
 ) -> bool {
-    instantiations::portable::validate_public_key::<
-        K,
-        T_AS_NTT_ENCODED_SIZE,
-        RANKED_BYTES_PER_RING_ELEMENT,
-        PUBLIC_KEY_SIZE,
-    >(public_key)
+    // Runtime feature detection.
+    if libcrux_platform::simd256_support() {
+        validate_public_key_avx2::<
+            K,
+            T_AS_NTT_ENCODED_SIZE,
+            RANKED_BYTES_PER_RING_ELEMENT,
+            PUBLIC_KEY_SIZE,
+        >(public_key)
+    } else if libcrux_platform::simd128_support() {
+        validate_public_key_neon::<
+            K,
+            T_AS_NTT_ENCODED_SIZE,
+            RANKED_BYTES_PER_RING_ELEMENT,
+            PUBLIC_KEY_SIZE,
+        >(public_key)
+    } else {
+        instantiations::portable::validate_public_key::<
+            K,
+            T_AS_NTT_ENCODED_SIZE,
+            RANKED_BYTES_PER_RING_ELEMENT,
+            PUBLIC_KEY_SIZE,
+        >(public_key)
+    }
 }
 
 #[inline(always)]
@@ -120,6 +120,15 @@ cfg_pre_verification! {
     mod types;
     pub mod vector;
 
+    // The statistics are only used for linting and are not extracted to C.
+    cfg_no_eurydice! {
+        pub mod statistics;
+
+        #[cfg(feature = "lint")]
+        #[cfg_attr(docsrs, doc(cfg(feature = "lint")))]
+        pub mod lint;
+    }
+
     #[cfg(feature = "mlkem512")]
     #[cfg_attr(docsrs, doc(cfg(feature = "mlkem512")))]
     pub mod mlkem512;
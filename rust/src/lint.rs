@@ -0,0 +1,736 @@
+//! # Lints of ML-KEM encapsulation keys
+//!
+//! The lint engine of the command line tool in `examples/cli.rs`, which the
+//! Java lints call as an external engine.
+//!
+//! A lint checks the length or the encoding of an encapsulation key, or the
+//! statistics of its seed `ρ` or of the matrix `Â` expanded from it, see
+//! [`crate::statistics`]. A request runs one or several lints on one key, and
+//! the key is decoded and analyzed at most once per request, see
+//! [`KeyEvaluation`].
+//!
+//! Requests are either JSON lines, see [`Lint`], or binary frames, see
+//! [`read_message`], and are answered in the format they were sent in, see
+//! [`answer`].
+
+use std::{
+    borrow::ToOwned,
+    io::{self, BufRead, Read},
+    string::String,
+    thread, vec,
+    vec::Vec,
+};
+
+use base64::prelude::*;
+use serde::{Deserialize, Serialize};
+
+use crate::{
+    mlkem1024::{self, MlKem1024PublicKey},
+    mlkem512::{self, MlKem512PublicKey},
+    mlkem768::{self, MlKem768PublicKey},
+    statistics::{matrix_statistics, seed_of, seed_statistics, EntryStatistics},
+};
+
+/// A lint request for one key, as one line of JSON.
+#[allow(non_snake_case)]
+#[derive(Serialize, Deserialize)]
+pub struct Lint {
+    /// The name of the lint to run.
+    #[serde(default)]
+    pub lintName: String,
+    /// Optionally, the names of several lints to run on the same key.
+    ///
+    /// When this is set, `lintName` is ignored and a [`LintResults`] is returned.
+    #[serde(default, skip_serializing_if = "Vec::is_empty")]
+    pub lintNames: Vec<String>,
+    /// Optionally, the ML-KEM variant declared by the algorithm of the key:
+    /// 512, 768 or 1024.
+    ///
+    /// When this is not set, the variant is inferred from the length of the
+    /// key. A key whose length does not match the declared variant fails the
+    /// lints that depend on the variant.
+    #[serde(default, skip_serializing_if = "Option::is_none")]
+    pub algorithm: Option<u16>,
+    /// The id the results are tagged with.
+    pub id: String,
+    /// The base64 encoded key.
+    pub publicKey: String,
+}
+
+/// The result of one lint.
+#[allow(non_snake_case)]
+#[derive(Serialize, Deserialize)]
+pub struct LintResult {
+    /// The name of the lint.
+    pub lintName: String,
+    /// The id of the request.
+    pub id: String,
+    /// `Pass`, `Error`, or `Fatal` if the request could not be read, the key
+    /// is not valid base64 or the lint is not known.
+    pub result: String,
+    /// The value measured by the lint, for example the longest run of equal
+    /// entries.
+    #[serde(default, skip_serializing_if = "Option::is_none")]
+    pub metric: Option<u32>,
+}
+
+/// The results of all lints requested with `lintNames` for one key.
+#[derive(Serialize, Deserialize)]
+pub struct LintResults {
+    /// The id of the request.
+    pub id: String,
+    /// The results in the order of `lintNames`.
+    pub results: Vec<LintResult>,
+}
+
+/// The answer to a [`Lint`], depending on whether one or several lints were
+/// requested.
+#[derive(Serialize)]
+#[serde(untagged)]
+pub enum LintResponse {
+    /// The result of the lint requested with `lintName`.
+    Single(LintResult),
+    /// The results of the lints requested with `lintNames`.
+    Multiple(LintResults),
+}
+
+impl Lint {
+    /// A request for the lint `name` on the key `pk`.
+    pub fn new(id: String, pk: &[u8], name: &str) -> Self {
+        Self {
+            lintName: name.to_owned(),
+            lintNames: Vec::new(),
+            algorithm: None,
+            id,
+            publicKey: BASE64_STANDARD.encode(pk),
+        }
+    }
+
+    /// The id the results are tagged with.
+    pub fn id(&self) -> &str {
+        &self.id
+    }
+
+    /// The ML-KEM variant of the key `pk` of this lint, given by `algorithm`
+    /// or inferred from the length of the key.
+    ///
+    /// Returns `None` if neither identifies a variant.
+    pub fn variant(&self, pk: &[u8]) -> Option<Variant> {
+        match self.algorithm {
+            Some(variant) => Variant::from_variant(variant),
+            None => Variant::from_public_key_len(pk.len()),
+        }
+    }
+
+    /// The decoded key, or `None` if it is not valid base64.
+    pub fn public_key(&self) -> Option<Vec<u8>> {
+        BASE64_STANDARD.decode(&self.publicKey).ok()
+    }
+}
+
+/// An ML-KEM variant.
+#[derive(Clone, Copy, Debug, PartialEq, Eq)]
+pub enum Variant {
+    /// ML-KEM 512
+    MlKem512,
+    /// ML-KEM 768
+    MlKem768,
+    /// ML-KEM 1024
+    MlKem1024,
+}
+
+impl Variant {
+    /// The variant given as 512, 768 or 1024.
+    pub fn from_variant(variant: u16) -> Option<Self> {
+        match variant {
+            512 => Some(Self::MlKem512),
+            768 => Some(Self::MlKem768),
+            1024 => Some(Self::MlKem1024),
+            _ => None,
+        }
+    }
+
+    /// The variant whose matrix has the rank `rank`, 2, 3 or 4.
+    pub fn from_rank(rank: u8) -> Option<Self> {
+        match rank {
+            2 => Some(Self::MlKem512),
+            3 => Some(Self::MlKem768),
+            4 => Some(Self::MlKem1024),
+            _ => None,
+        }
+    }
+
+    /// The variant whose encapsulation keys are `len` bytes long.
+    pub fn from_public_key_len(len: usize) -> Option<Self> {
+        if len == MlKem512PublicKey::len() {
+            Some(Self::MlKem512)
+        } else if len == MlKem768PublicKey::len() {
+            Some(Self::MlKem768)
+        } else if len == MlKem1024PublicKey::len() {
+            Some(Self::MlKem1024)
+        } else {
+            None
+        }
+    }
+
+    /// The length of the encapsulation keys of this variant.
+    pub fn public_key_len(self) -> usize {
+        match self {
+            Self::MlKem512 => MlKem512PublicKey::len(),
+            Self::MlKem768 => MlKem768PublicKey::len(),
+            Self::MlKem1024 => MlKem1024PublicKey::len(),
+        }
+    }
+
+    /// The rank `k` of the matrix of this variant.
+    pub fn rank(self) -> usize {
+        match self {
+            Self::MlKem512 => 2,
+            Self::MlKem768 => 3,
+            Self::MlKem1024 => 4,
+        }
+    }
+
+    /// Whether `key` is a valid encapsulation key of this variant.
+    pub fn is_valid_public_key(self, key: &[u8]) -> bool {
+        match self {
+            Self::MlKem512 => MlKem512PublicKey::try_from(key)
+                .map_or(false, |pk| mlkem512::validate_public_key(&pk)),
+            Self::MlKem768 => MlKem768PublicKey::try_from(key)
+                .map_or(false, |pk| mlkem768::validate_public_key(&pk)),
+            Self::MlKem1024 => MlKem1024PublicKey::try_from(key)
+                .map_or(false, |pk| mlkem1024::validate_public_key(&pk)),
+        }
+    }
+}
+
+// The bounds of the lints on the statistics of the seed and the matrix. These
+// are the same as in the Java lints.
+const SEED_MAX_ENTRY_FREQUENCY: usize = 4;
+const SEED_MAX_ENTRY_RUN: usize = 2;
+const SEED_MAX_SL_ENTRIES: usize = 25;
+const MATRIX_MAX_ENTRY_FREQUENCY: usize = 12;
+const MATRIX_MAX_ENTRY_RUN: usize = 3;
+const MATRIX_MAX_SL_DEVIATION: usize = 6;
+
+/// A public key that all lints of one request are evaluated on.
+///
+/// The key is decoded, and the seed and the matrix are analyzed, at most once
+/// and only if a lint needs it.
+pub struct KeyEvaluation<'a> {
+    /// The declared or inferred variant of the key, if it is known.
+    declared: Option<Variant>,
+    key: &'a [u8],
+    valid: Option<bool>,
+    seed: Option<Option<EntryStatistics>>,
+    matrix: Option<Option<EntryStatistics>>,
+}
+
+impl<'a> KeyEvaluation<'a> {
+    /// An evaluation of `key`, which is declared to be of the variant
+    /// `declared`.
+    pub fn new(declared: Option<Variant>, key: &'a [u8]) -> Self {
+        Self {
+            declared,
+            key,
+            valid: None,
+            seed: None,
+            matrix: None,
+        }
+    }
+
+    /// The declared variant of the key, whether or not the key has its length.
+    pub fn declared_variant(&self) -> Option<Variant> {
+        self.declared
+    }
+
+    /// The key.
+    pub fn key(&self) -> &'a [u8] {
+        self.key
+    }
+
+    /// The variant of the key, if it is known and the key has its length.
+    pub fn variant(&self) -> Option<Variant> {
+        self.declared
+            .filter(|variant| variant.public_key_len() == self.key.len())
+    }
+
+    /// Whether the key decodes to a valid key of its variant.
+    pub fn is_valid(&mut self) -> bool {
+        if self.valid.is_none() {
+            self.valid = Some(match self.variant() {
+                Some(variant) => variant.is_valid_public_key(self.key),
+                None => false,
+            });
+        }
+        self.valid == Some(true)
+    }
+
+    /// The statistics of the seed, or `None` if the key is too short.
+    fn seed(&mut self) -> Option<EntryStatistics> {
+        if self.seed.is_none() {
+            self.seed = Some(seed_of(self.key).map(seed_statistics));
+        }
+        self.seed.flatten()
+    }
+
+    /// The statistics of the matrix expanded from the seed, or `None` if the
+    /// variant of the key is unknown or the key does not have its length.
+    fn matrix(&mut self) -> Option<EntryStatistics> {
+        if self.matrix.is_none() {
+            self.matrix = Some(match (self.variant(), seed_of(self.key)) {
+                (Some(variant), Some(seed)) => matrix_statistics(variant.rank(), seed),
+                _ => None,
+            });
+        }
+        self.matrix.flatten()
+    }
+
+    /// Evaluate the lint `lint_name` on the key.
+    ///
+    /// Returns whether the key passes the lint and the value the lint
+    /// measured, or `None` if the lint is not known here.
+    pub fn evaluate(&mut self, lint_name: &str) -> Option<(bool, Option<u32>)> {
+        Some(match lint_name {
+            "e_ml_kem_ek_length" => (self.variant().is_some(), Some(self.key.len() as u32)),
+            "e_ml_kem_ek_encoding" => (self.is_valid(), None),
+            "e_ml_kem_ek_seed_entry_frequency" => self.check_seed(|seed| {
+                check(seed.max_entry_frequency, |frequency| {
+                    frequency <= SEED_MAX_ENTRY_FREQUENCY
+                })
+            }),
+            "e_ml_kem_ek_seed_entry_run" => self.check_seed(|seed| {
+                check(seed.longest_run, |run| run <= SEED_MAX_ENTRY_RUN)
+            }),
+            "e_ml_kem_ek_seed_sl_entries" => self.check_seed(|seed| {
+                check(seed.small_entries.max(seed.large_entries), |entries| {
+                    entries <= SEED_MAX_SL_ENTRIES
+                })
+            }),
+            "e_ml_kem_ek_matrix_entry_frequency" => self.check_matrix(|matrix| {
+                check(matrix.max_entry_frequency, |frequency| {
+                    frequency <= MATRIX_MAX_ENTRY_FREQUENCY
+                })
+            }),
+            "e_ml_kem_ek_matrix_entry_run" => self.check_matrix(|matrix| {
+                check(matrix.longest_run, |run| run <= MATRIX_MAX_ENTRY_RUN)
+            }),
+            "e_ml_kem_ek_matrix_sl_entries" => self.check_matrix(|matrix| {
+                // |small - large| <= 6 * sqrt(entries), without the square root.
+                check(
+                    matrix.small_entries.abs_diff(matrix.large_entries),
+                    |deviation| {
+                        deviation * deviation
+                            <= MATRIX_MAX_SL_DEVIATION * MATRIX_MAX_SL_DEVIATION * matrix.entries
+                    },
+                )
+            }),
+            _ => return None,
+        })
+    }
+
+    fn check_seed(
+        &mut self,
+        check: impl FnOnce(EntryStatistics) -> (bool, Option<u32>),
+    ) -> (bool, Option<u32>) {
+        self.seed().map_or((false, None), check)
+    }
+
+    fn check_matrix(
+        &mut self,
+        check: impl FnOnce(EntryStatistics) -> (bool, Option<u32>),
+    ) -> (bool, Option<u32>) {
+        self.matrix().map_or((false, None), check)
+    }
+}
+
+/// Whether the measured `value` passes, and the value.
+fn check(value: usize, passes: impl FnOnce(usize) -> bool) -> (bool, Option<u32>) {
+    (passes(value), Some(value as u32))
+}
+
+/// Run the lint, or all lints in `lintNames`.
+///
+/// The public key is decoded and validated only once, regardless of the
+/// number of lints. If it can not be decoded, all lints are `Fatal`.
+pub fn run_lint(lint: &Lint) -> LintResponse {
+    let lint_names: Vec<&String> = if lint.lintNames.is_empty() {
+        vec![&lint.lintName]
+    } else {
+        lint.lintNames.iter().collect()
+    };
+
+    let pk_bytes = lint.public_key();
+    let mut key = pk_bytes
+        .as_deref()
+        .map(|pk_bytes| KeyEvaluation::new(lint.variant(pk_bytes), pk_bytes));
+
+    let mut results: Vec<LintResult> = lint_names
+        .into_iter()
+        .map(|lint_name| {
+            let evaluation = key.as_mut().and_then(|key| key.evaluate(lint_name));
+            LintResult {
+                lintName: lint_name.clone(),
+                id: lint.id.clone(),
+                result: match evaluation {
+                    Some((true, _)) => "Pass",
+                    Some((false, _)) => "Error",
+                    None => "Fatal",
+                }
+                .to_owned(),
+                metric: evaluation.and_then(|(_, metric)| metric),
+            }
+        })
+        .collect();
+
+    if lint.lintNames.is_empty() {
+        LintResponse::Single(results.remove(0))
+    } else {
+        LintResponse::Multiple(LintResults {
+            id: lint.id.clone(),
+            results,
+        })
+    }
+}
+
+/// Run the lint given as one line of JSON.
+///
+/// A line that can not be read is answered with a `Fatal` result.
+pub fn run_lint_line(line: &str) -> LintResponse {
+    match serde_json::from_str::<Lint>(line) {
+        Ok(lint) => run_lint(&lint),
+        Err(_) => LintResponse::Single(LintResult {
+            lintName: String::new(),
+            id: String::new(),
+            result: "Fatal".to_owned(),
+            metric: None,
+        }),
+    }
+}
+
+/// Run the lints of the JSON `line` and return the JSON result.
+pub fn run_lint_json(line: &str) -> String {
+    serde_json::to_string(&run_lint_line(line)).expect("Error writing lint result")
+}
+
+/// Run the lints of all JSON `lines` and return their JSON results in the same
+/// order.
+///
+/// The lines are split into one contiguous chunk per core.
+pub fn run_lint_lines(lines: &[&str]) -> Vec<String> {
+    let threads = thread::available_parallelism()
+        .map(|n| n.get())
+        .unwrap_or(1);
+    let chunk_size = ((lines.len() + threads - 1) / threads).max(1);
+
+    let mut responses = vec![String::new(); lines.len()];
+    thread::scope(|s| {
+        for (lines, responses) in lines.chunks(chunk_size).zip(responses.chunks_mut(chunk_size)) {
+            s.spawn(move || {
+                for (line, response) in lines.iter().zip(responses.iter_mut()) {
+                    *response = run_lint_json(line);
+                }
+            });
+        }
+    });
+    responses
+}
+
+/// The lints that can be requested in a binary frame. Bit `i` of the lint mask
+/// of a request is the lint at index `i`.
+pub const LINT_NAMES: [&str; 8] = [
+    "e_ml_kem_ek_length",
+    "e_ml_kem_ek_encoding",
+    "e_ml_kem_ek_seed_entry_frequency",
+    "e_ml_kem_ek_seed_entry_run",
+    "e_ml_kem_ek_seed_sl_entries",
+    "e_ml_kem_ek_matrix_entry_frequency",
+    "e_ml_kem_ek_matrix_entry_run",
+    "e_ml_kem_ek_matrix_sl_entries",
+];
+
+/// The version of the binary frames.
+pub const FRAME_VERSION: u8 = 1;
+const FRAME_HEADER_LEN: usize = 5;
+const FRAME_ID_LEN: usize = 32;
+const FRAME_MAX_BODY_LEN: usize = 1 << 20;
+
+const STATUS_PASS: u8 = 0;
+const STATUS_ERROR: u8 = 1;
+const STATUS_FATAL: u8 = 2;
+
+/// A lint read from a worker or a connection.
+pub enum Message {
+    /// A JSON lint line.
+    Json(String),
+    /// The version and the body of a binary frame.
+    Frame(u8, Vec<u8>),
+}
+
+/// Frames start with their version, which is below the whitespace characters
+/// that may precede a JSON line.
+fn is_frame(first: u8) -> bool {
+    (1..b'\t').contains(&first)
+}
+
+/// Read the next lint, or `None` at the end of the input.
+///
+/// A lint is either one line of JSON, or a binary frame: the version byte, the
+/// big-endian 32-bit length of the body and the body. Blank lines are skipped.
+pub fn read_message(input: &mut impl BufRead) -> io::Result<Option<Message>> {
+    loop {
+        let first = match input.fill_buf()?.first() {
+            Some(&first) => first,
+            None => return Ok(None),
+        };
+        if is_frame(first) {
+            let mut header = [0u8; FRAME_HEADER_LEN];
+            input.read_exact(&mut header)?;
+            let len = u32::from_be_bytes([header[1], header[2], header[3], header[4]]) as usize;
+            if len > FRAME_MAX_BODY_LEN {
+                return Err(io::Error::new(io::ErrorKind::InvalidData, "Frame too long"));
+            }
+            let mut body = vec![0u8; len];
+            input.read_exact(&mut body)?;
+            return Ok(Some(Message::Frame(first, body)));
+        }
+        let mut line = String::new();
+        if input.read_line(&mut line)? == 0 {
+            return Ok(None);
+        }
+        if !line.trim().is_empty() {
+            return Ok(Some(Message::Json(line)));
+        }
+    }
+}
+
+/// Answer a lint in the format it was sent in.
+///
+/// A frame whose body is a line break is a hello of a client that negotiates
+/// the version. It is answered with an empty frame of [`FRAME_VERSION`], as is
+/// a frame of any other version, which the client takes as a rejection.
+pub fn answer(message: Message) -> Vec<u8> {
+    match message {
+        Message::Json(line) => {
+            let mut response =
+                serde_json::to_vec(&run_lint_line(&line)).expect("Error writing lint result");
+            response.push(b'\n');
+            response
+        }
+        Message::Frame(FRAME_VERSION, body) if body.as_slice() != b"\n" => run_lint_frame(&body),
+        Message::Frame(_, _) => frame_header(FRAME_VERSION, 0).to_vec(),
+    }
+}
+
+fn frame_header(version: u8, len: usize) -> [u8; FRAME_HEADER_LEN] {
+    let len = (len as u32).to_be_bytes();
+    [version, len[0], len[1], len[2], len[3]]
+}
+
+/// Run the lints of a request frame and encode their result frame.
+///
+/// The body of a request is the parameter set (the rank of ML-KEM declared by
+/// the algorithm of the key, or 0 to infer it from the length of the key), the
+/// big-endian lint mask, the 32-byte id and the raw key. A key whose length
+/// does not match the declared parameter set fails the lints that depend on
+/// it. The body of a result is the id, the number of results, and for
+/// every lint its index, its status and a big-endian 32-bit metric.
+///
+/// A body that is too short for a request is answered with an empty frame.
+pub fn run_lint_frame(body: &[u8]) -> Vec<u8> {
+    const PREFIX_LEN: usize = 3 + FRAME_ID_LEN;
+    if body.len() < PREFIX_LEN {
+        return frame_header(FRAME_VERSION, 0).to_vec();
+    }
+    let mask = u16::from_be_bytes([body[1], body[2]]);
+    let id = &body[3..PREFIX_LEN];
+    let key = &body[PREFIX_LEN..];
+    let variant = Variant::from_rank(body[0]).or_else(|| Variant::from_public_key_len(key.len()));
+
+    let mut evaluation = KeyEvaluation::new(variant, key);
+    let lints: Vec<u8> = (0..LINT_NAMES.len() as u8)
+        .filter(|i| mask & (1u16 << i) != 0)
+        .collect();
+    let len = FRAME_ID_LEN + 1 + 6 * lints.len();
+    let mut response = Vec::with_capacity(FRAME_HEADER_LEN + len);
+    response.extend_from_slice(&frame_header(FRAME_VERSION, len));
+    response.extend_from_slice(id);
+    response.push(lints.len() as u8);
+    for lint in lints {
+        let (status, metric) = match evaluation.evaluate(LINT_NAMES[lint as usize]) {
+            Some((true, metric)) => (STATUS_PASS, metric),
+            Some((false, metric)) => (STATUS_ERROR, metric),
+            None => (STATUS_FATAL, None),
+        };
+        response.push(lint);
+        response.push(status);
+        response.extend_from_slice(&metric.unwrap_or(0).to_be_bytes());
+    }
+    response
+}
+
+#[cfg(test)]
+mod tests {
+    use super::*;
+    use std::format;
+
+    /// An ML-KEM 768 encapsulation key.
+    fn public_key() -> Vec<u8> {
+        mlkem768::generate_key_pair([7; 64])
+            .public_key()
+            .as_slice()
+            .to_vec()
+    }
+
+    /// The body of a request frame for `lints` on `key`.
+    fn request(rank: u8, lints: u16, key: &[u8]) -> Vec<u8> {
+        let mut body = vec![rank];
+        body.extend_from_slice(&lints.to_be_bytes());
+        body.extend_from_slice(&[0xab; FRAME_ID_LEN]);
+        body.extend_from_slice(key);
+        body
+    }
+
+    #[test]
+    fn key_of_its_variant_passes() {
+        let key = public_key();
+        let mut evaluation = KeyEvaluation::new(Variant::from_public_key_len(key.len()), &key);
+        assert_eq!(evaluation.variant(), Some(Variant::MlKem768));
+        assert!(evaluation.is_valid());
+        assert_eq!(evaluation.evaluate("e_ml_kem_ek_length"), Some((true, Some(1184))));
+        assert_eq!(evaluation.evaluate("e_ml_kem_ek_encoding"), Some((true, None)));
+        assert!(evaluation
+            .evaluate("e_ml_kem_ek_matrix_entry_frequency")
+            .and_then(|(_, metric)| metric)
+            .is_some());
+    }
+
+    #[test]
+    fn unknown_lint_is_not_evaluated() {
+        let key = public_key();
+        let mut evaluation = KeyEvaluation::new(Variant::from_public_key_len(key.len()), &key);
+        assert_eq!(evaluation.evaluate("e_ml_kem_ek_unknown"), None);
+    }
+
+    #[test]
+    fn key_of_another_declared_variant_fails() {
+        let key = public_key();
+        let mut evaluation = KeyEvaluation::new(Some(Variant::MlKem1024), &key);
+        assert_eq!(evaluation.declared_variant(), Some(Variant::MlKem1024));
+        assert_eq!(evaluation.variant(), None);
+        assert_eq!(evaluation.evaluate("e_ml_kem_ek_length"), Some((false, Some(1184))));
+        assert_eq!(evaluation.evaluate("e_ml_kem_ek_encoding"), Some((false, None)));
+        assert_eq!(evaluation.evaluate("e_ml_kem_ek_matrix_entry_run"), Some((false, None)));
+        // the seed does not depend on the variant
+        assert!(evaluation
+            .evaluate("e_ml_kem_ek_seed_entry_run")
+            .and_then(|(_, metric)| metric)
+            .is_some());
+    }
+
+    #[test]
+    fn frame_round_trip() {
+        let key = public_key();
+        let body = request(3, 0b11, &key);
+        let mut input = frame_header(FRAME_VERSION, body.len()).to_vec();
+        input.extend_from_slice(&body);
+
+        let message = read_message(&mut input.as_slice()).unwrap().unwrap();
+        let response = answer(message);
+        let len = FRAME_ID_LEN + 1 + 2 * 6;
+        assert_eq!(response[..FRAME_HEADER_LEN], frame_header(FRAME_VERSION, len));
+        assert_eq!(response.len(), FRAME_HEADER_LEN + len);
+        let result = &response[FRAME_HEADER_LEN..];
+        assert_eq!(result[..FRAME_ID_LEN], [0xab; FRAME_ID_LEN]);
+        assert_eq!(result[FRAME_ID_LEN], 2);
+        // the length 1184 and the encoding without a metric
+        assert_eq!(
+            result[FRAME_ID_LEN + 1..],
+            [0, STATUS_PASS, 0, 0, 4, 160, 1, STATUS_PASS, 0, 0, 0, 0]
+        );
+    }
+
+    #[test]
+    fn frame_of_another_declared_rank_fails() {
+        let key = public_key();
+        let response = run_lint_frame(&request(4, 0b1, &key));
+        let result = &response[FRAME_HEADER_LEN + FRAME_ID_LEN + 1..];
+        assert_eq!(result[..2], [0, STATUS_ERROR]);
+    }
+
+    #[test]
+    fn hello_and_unknown_versions_are_answered_with_an_empty_frame() {
+        let empty = frame_header(FRAME_VERSION, 0).to_vec();
+        assert_eq!(answer(Message::Frame(FRAME_VERSION, b"\n".to_vec())), empty);
+        assert_eq!(answer(Message::Frame(FRAME_VERSION + 1, request(3, 1, &[]))), empty);
+        assert_eq!(run_lint_frame(&[3, 0, 1]), empty);
+    }
+
+    #[test]
+    fn messages_are_read_in_order() {
+        let mut input = b"\n  \n{\"id\":\"a\"}\n".to_vec();
+        input.extend_from_slice(&frame_header(FRAME_VERSION, 1));
+        input.push(b'\n');
+        let mut input = input.as_slice();
+
+        assert!(matches!(
+            read_message(&mut input),
+            Ok(Some(Message::Json(line))) if line == "{\"id\":\"a\"}\n"
+        ));
+        assert!(matches!(
+            read_message(&mut input),
+            Ok(Some(Message::Frame(FRAME_VERSION, body))) if body == b"\n"
+        ));
+        assert!(matches!(read_message(&mut input), Ok(None)));
+    }
+
+    #[test]
+    fn long_or_truncated_frames_are_rejected() {
+        let long = frame_header(FRAME_VERSION, FRAME_MAX_BODY_LEN + 1);
+        assert!(read_message(&mut long.as_slice()).is_err());
+        let truncated = frame_header(FRAME_VERSION, 10);
+        assert!(read_message(&mut truncated.as_slice()).is_err());
+    }
+
+    #[test]
+    fn json_requests() {
+        let key = BASE64_STANDARD.encode(public_key());
+        let single = run_lint_json(&format!(
+            r#"{{"lintName":"e_ml_kem_ek_length","id":"a","publicKey":"{key}"}}"#
+        ));
+        assert_eq!(
+            single,
+            r#"{"lintName":"e_ml_kem_ek_length","id":"a","result":"Pass","metric":1184}"#
+        );
+
+        let multiple = run_lint_json(&format!(
+            r#"{{"lintNames":["e_ml_kem_ek_encoding","e_ml_kem_ek_length"],"algorithm":512,"id":"b","publicKey":"{key}"}}"#
+        ));
+        assert_eq!(
+            multiple,
+            r#"{"id":"b","results":[{"lintName":"e_ml_kem_ek_encoding","id":"b","result":"Error"},{"lintName":"e_ml_kem_ek_length","id":"b","result":"Error","metric":1184}]}"#
+        );
+
+        assert_eq!(run_lint_json("{\"id\":"), r#"{"lintName":"","id":"","result":"Fatal"}"#);
+    }
+
+    #[test]
+    fn json_requests_that_can_not_be_evaluated_are_fatal() {
+        let key = BASE64_STANDARD.encode(public_key());
+        let unknown = run_lint_json(&format!(
+            r#"{{"lintName":"e_ml_kem_ek_unknown","id":"c","publicKey":"{key}"}}"#
+        ));
+        assert_eq!(
+            unknown,
+            r#"{"lintName":"e_ml_kem_ek_unknown","id":"c","result":"Fatal"}"#
+        );
+
+        let undecodable = run_lint_json(
+            r#"{"lintNames":["e_ml_kem_ek_length","e_ml_kem_ek_encoding"],"id":"d","publicKey":"not base64!"}"#,
+        );
+        assert_eq!(
+            undecodable,
+            r#"{"id":"d","results":[{"lintName":"e_ml_kem_ek_length","id":"d","result":"Fatal"},{"lintName":"e_ml_kem_ek_encoding","id":"d","result":"Fatal"}]}"#
+        );
+    }
+}
@@ -0,0 +1,432 @@
+//! Statistics of the entries of an ML-KEM encapsulation key.
+//!
+//! The last [`SEED_SIZE`] bytes of an encapsulation key are the seed `ρ`, from
+//! which the matrix `Â` is expanded with SHAKE128. For an honestly generated
+//! key both are uniformly distributed, so a key whose entries repeat too
+//! often, form too long runs or are unbalanced between small and large values
+//! was most likely not generated at random.
+//!
+//! The matrix is expanded with the same code as key generation and
+//! encapsulation, using the AVX2 or NEON implementation, with the x4 SHAKE128,
+//! if the CPU supports it.
+
+use crate::{
+    constants::COEFFICIENTS_IN_RING_ELEMENT,
+    hash_functions::Hash,
+    matrix::sample_matrix_A,
+    polynomial::PolynomialRingElement,
+    utils::into_padded_array,
+    vector::{Operations, FIELD_ELEMENTS_IN_VECTOR, FIELD_MODULUS},
+};
+
+/// The size of the seed `ρ` at the end of an encapsulation key.
+pub const SEED_SIZE: usize = 32;
+
+/// Bytes of the seed below this value are small, the others are large.
+const SEED_SMALL_BOUND: u16 = 0x80;
+
+/// Entries of the matrix below `⌈q/2⌉` are small, the others are large.
+const MATRIX_SMALL_BOUND: u16 = (FIELD_MODULUS as u16 + 1) / 2;
+
+const SEED_VALUES: usize = 256;
+const MATRIX_VALUES: usize = FIELD_MODULUS as usize;
+
+/// The statistics of a sequence of entries.
+#[derive(Clone, Copy, Debug, PartialEq, Eq)]
+pub struct EntryStatistics {
+    /// The number of entries.
+    pub entries: usize,
+    /// How often the most frequent entry occurs.
+    pub max_entry_frequency: usize,
+    /// The most frequent entry, the smallest one if several are.
+    pub most_frequent_entry: u16,
+    /// The length of the longest run of equal consecutive entries.
+    ///
+    /// For the matrix, runs do not continue from one polynomial to the next.
+    pub longest_run: usize,
+    /// The number of small entries.
+    pub small_entries: usize,
+    /// The number of large entries.
+    pub large_entries: usize,
+}
+
+/// The statistics of the seed and of the matrix of an encapsulation key.
+#[derive(Clone, Copy, Debug, PartialEq, Eq)]
+pub struct KeyStatistics {
+    /// The statistics of the bytes of `ρ`.
+    pub seed: EntryStatistics,
+    /// The statistics of the coefficients of `Â`.
+    pub matrix: EntryStatistics,
+}
+
+/// Compute the statistics of the encapsulation key `public_key` of rank
+/// `rank`.
+///
+/// The matrix is expanded once. Returns `None` if the rank is not 2, 3 or 4,
+/// or if the key is shorter than the seed.
+pub fn key_statistics(rank: usize, public_key: &[u8]) -> Option<KeyStatistics> {
+    let seed = seed_of(public_key)?;
+    Some(KeyStatistics {
+        seed: seed_statistics(seed),
+        matrix: matrix_statistics(rank, seed)?,
+    })
+}
+
+/// The seed `ρ` of the encapsulation key `public_key`, or `None` if the key is
+/// shorter than the seed.
+pub fn seed_of(public_key: &[u8]) -> Option<&[u8; SEED_SIZE]> {
+    let start = public_key.len().checked_sub(SEED_SIZE)?;
+    public_key[start..].try_into().ok()
+}
+
+/// Compute the statistics of the bytes of the seed `ρ`.
+pub fn seed_statistics(seed: &[u8; SEED_SIZE]) -> EntryStatistics {
+    let mut counter = Counter::<SEED_VALUES>::new(SEED_SMALL_BOUND);
+    for &byte in seed {
+        counter.add(byte as u16);
+    }
+    counter.finish()
+}
+
+/// Expand the matrix `Â` of rank `rank` from the seed `ρ` and compute the
+/// statistics of its coefficients.
+///
+/// Returns `None` if the rank is not 2, 3 or 4.
+pub fn matrix_statistics(rank: usize, seed: &[u8; SEED_SIZE]) -> Option<EntryStatistics> {
+    expand_matrix(rank, seed).map(|matrix| matrix.statistics())
+}
+
+/// The largest rank of ML-KEM.
+const MAX_RANK: usize = 4;
+
+/// The coefficients of a matrix `Â`.
+#[derive(Clone)]
+pub struct Matrix {
+    rank: usize,
+    polynomials: [[i16; COEFFICIENTS_IN_RING_ELEMENT]; MAX_RANK * MAX_RANK],
+}
+
+impl Matrix {
+    /// The rank `k` of the `k × k` matrix.
+    pub fn rank(&self) -> usize {
+        self.rank
+    }
+
+    /// The coefficients of the polynomials of the matrix, row by row.
+    pub fn polynomials(&self) -> &[[i16; COEFFICIENTS_IN_RING_ELEMENT]] {
+        &self.polynomials[..self.rank * self.rank]
+    }
+
+    /// Compute the statistics of the coefficients.
+    pub fn statistics(&self) -> EntryStatistics {
+        let mut counter = Counter::<MATRIX_VALUES>::new(MATRIX_SMALL_BOUND);
+        for polynomial in self.polynomials() {
+            // Runs do not continue from one polynomial to the next.
+            counter.start_run();
+            for &coefficient in polynomial {
+                // Sampled coefficients are in [0, q).
+                counter.add(coefficient as u16);
+            }
+        }
+        counter.finish()
+    }
+}
+
+/// Expand the matrix `Â` of rank `rank` from the seed `ρ`.
+///
+/// Returns `None` if the rank is not 2, 3 or 4.
+pub fn expand_matrix(rank: usize, seed: &[u8; SEED_SIZE]) -> Option<Matrix> {
+    match rank {
+        2 => Some(expand_matrix_multiplexed::<2>(seed)),
+        3 => Some(expand_matrix_multiplexed::<3>(seed)),
+        4 => Some(expand_matrix_multiplexed::<4>(seed)),
+        _ => None,
+    }
+}
+
+fn expand_matrix_multiplexed<const K: usize>(seed: &[u8; SEED_SIZE]) -> Matrix {
+    if libcrux_platform::simd256_support() {
+        expand_matrix_avx2::<K>(seed)
+    } else if libcrux_platform::simd128_support() {
+        expand_matrix_neon::<K>(seed)
+    } else {
+        expand_matrix_portable::<K>(seed)
+    }
+}
+
+// For the case where we didn't compile with the simd128/simd256 features but
+// have a CPU that has it, we fall back to the portable version.
+
+#[cfg(feature = "simd256")]
+fn expand_matrix_avx2<const K: usize>(seed: &[u8; SEED_SIZE]) -> Matrix {
+    expand_matrix_generic::<
+        K,
+        crate::vector::SIMD256Vector,
+        crate::hash_functions::avx2::Simd256Hash,
+    >(seed)
+}
+
+#[cfg(not(feature = "simd256"))]
+fn expand_matrix_avx2<const K: usize>(seed: &[u8; SEED_SIZE]) -> Matrix {
+    expand_matrix_portable::<K>(seed)
+}
+
+#[cfg(feature = "simd128")]
+fn expand_matrix_neon<const K: usize>(seed: &[u8; SEED_SIZE]) -> Matrix {
+    expand_matrix_generic::<
+        K,
+        crate::vector::SIMD128Vector,
+        crate::hash_functions::neon::Simd128Hash,
+    >(seed)
+}
+
+#[cfg(not(feature = "simd128"))]
+fn expand_matrix_neon<const K: usize>(seed: &[u8; SEED_SIZE]) -> Matrix {
+    expand_matrix_portable::<K>(seed)
+}
+
+fn expand_matrix_portable<const K: usize>(seed: &[u8; SEED_SIZE]) -> Matrix {
+    expand_matrix_generic::<
+        K,
+        crate::vector::portable::PortableVector,
+        crate::hash_functions::portable::PortableHash<K>,
+    >(seed)
+}
+
+#[inline(always)]
+#[allow(non_snake_case)]
+fn expand_matrix_generic<const K: usize, Vector: Operations, Hasher: Hash<K>>(
+    seed: &[u8; SEED_SIZE],
+) -> Matrix {
+    let mut A = core::array::from_fn(|_i| {
+        core::array::from_fn(|_j| PolynomialRingElement::<Vector>::ZERO())
+    });
+    // The orientation does not matter for the statistics, so A is not
+    // transposed.
+    sample_matrix_A::<K, Vector, Hasher>(&mut A, into_padded_array(seed), false);
+
+    let mut matrix = Matrix {
+        rank: K,
+        polynomials: [[0; COEFFICIENTS_IN_RING_ELEMENT]; MAX_RANK * MAX_RANK],
+    };
+    for (i, row) in A.iter().enumerate() {
+        for (j, polynomial) in row.iter().enumerate() {
+            let coefficients = matrix.polynomials[i * K + j]
+                .chunks_exact_mut(FIELD_ELEMENTS_IN_VECTOR);
+            for (chunk, vector) in coefficients.zip(polynomial.coefficients) {
+                chunk.copy_from_slice(&Vector::to_i16_array(vector));
+            }
+        }
+    }
+    matrix
+}
+
+/// Counts a sequence of entries below `VALUES`.
+struct Counter<const VALUES: usize> {
+    histogram: [u16; VALUES],
+    small_bound: u16,
+    entries: usize,
+    small_entries: usize,
+    previous: Option<u16>,
+    run: usize,
+    longest_run: usize,
+}
+
+impl<const VALUES: usize> Counter<VALUES> {
+    fn new(small_bound: u16) -> Self {
+        Self {
+            histogram: [0; VALUES],
+            small_bound,
+            entries: 0,
+            small_entries: 0,
+            previous: None,
+            run: 0,
+            longest_run: 0,
+        }
+    }
+
+    /// Start a new sequence, whose first entry does not continue the current
+    /// run.
+    fn start_run(&mut self) {
+        self.previous = None;
+    }
+
+    fn add(&mut self, entry: u16) {
+        self.histogram[entry as usize] += 1;
+        self.entries += 1;
+        if entry < self.small_bound {
+            self.small_entries += 1;
+        }
+        if self.previous == Some(entry) {
+            self.run += 1;
+        } else {
+            self.run = 1;
+            self.previous = Some(entry);
+        }
+        self.longest_run = self.longest_run.max(self.run);
+    }
+
+    fn finish(self) -> EntryStatistics {
+        let mut max_entry_frequency = 0;
+        let mut most_frequent_entry = 0;
+        for (entry, &frequency) in self.histogram.iter().enumerate() {
+            if frequency as usize > max_entry_frequency {
+                max_entry_frequency = frequency as usize;
+                most_frequent_entry = entry as u16;
+            }
+        }
+        EntryStatistics {
+            entries: self.entries,
+            max_entry_frequency,
+            most_frequent_entry,
+            longest_run: self.longest_run,
+            small_entries: self.small_entries,
+            large_entries: self.entries - self.small_entries,
+        }
+    }
+}
+
+#[cfg(test)]
+mod tests {
+    use super::*;
+
+    #[test]
+    fn seed_runs_and_counts() {
+        let mut seed = [0u8; SEED_SIZE];
+        for (i, byte) in seed.iter_mut().enumerate() {
+            *byte = (i * 8) as u8;
+        }
+        seed[1] = 0;
+        seed[2] = 0;
+
+        let statistics = seed_statistics(&seed);
+        assert_eq!(statistics.entries, SEED_SIZE);
+        assert_eq!(statistics.max_entry_frequency, 3);
+        assert_eq!(statistics.most_frequent_entry, 0);
+        assert_eq!(statistics.longest_run, 3);
+        assert_eq!(statistics.small_entries, 16);
+        assert_eq!(statistics.large_entries, 16);
+    }
+
+    #[test]
+    fn matrix_is_expanded_for_every_rank() {
+        let seed = [0x42u8; SEED_SIZE];
+        for rank in 2..=4 {
+            let statistics = matrix_statistics(rank, &seed).unwrap();
+            assert_eq!(statistics.entries, rank * rank * COEFFICIENTS_IN_RING_ELEMENT);
+            assert_eq!(
+                statistics.small_entries + statistics.large_entries,
+                statistics.entries
+            );
+        }
+        assert!(matrix_statistics(5, &seed).is_none());
+    }
+
+    /// The seed `00 01 … 1f`.
+    fn counting_seed() -> [u8; SEED_SIZE] {
+        let mut seed = [0u8; SEED_SIZE];
+        for (i, byte) in seed.iter_mut().enumerate() {
+            *byte = i as u8;
+        }
+        seed
+    }
+
+    /// The first 16 and the last 8 coefficients of a polynomial.
+    fn ends(polynomial: &[i16; COEFFICIENTS_IN_RING_ELEMENT]) -> ([i16; 16], [i16; 8]) {
+        (
+            polynomial[..16].try_into().unwrap(),
+            polynomial[COEFFICIENTS_IN_RING_ELEMENT - 8..]
+                .try_into()
+                .unwrap(),
+        )
+    }
+
+    /// The expected values are the output of `SampleNTT` of the Java lints,
+    /// `MlKemMatrixStatistics`, which follows FIPS 203 and samples `Â[i][j]`
+    /// from `ρ‖j‖i`. The polynomial `i·k + j` here is sampled from `ρ‖i‖j`,
+    /// so it is the Java `Â[j][i]`.
+    #[test]
+    fn matrix_matches_sample_ntt() {
+        let matrix = expand_matrix(2, &counting_seed()).unwrap();
+        assert_eq!(matrix.rank(), 2);
+        let polynomials = matrix.polynomials();
+        assert_eq!(polynomials.len(), 4);
+
+        assert_eq!(
+            ends(&polynomials[0]),
+            (
+                [
+                    481, 1919, 1434, 2359, 327, 1066, 3001, 649, 1037, 2971, 661, 1148, 1602, 864,
+                    301, 1835
+                ],
+                [1796, 3263, 3011, 1370, 1926, 2513, 2367, 3216]
+            )
+        );
+        // Java Â[1][0]
+        assert_eq!(
+            ends(&polynomials[1]),
+            (
+                [
+                    2512, 1187, 75, 2259, 2131, 1317, 940, 936, 21, 1685, 666, 3191, 2923, 2756,
+                    2780, 2476
+                ],
+                [502, 319, 2320, 3233, 2850, 3236, 1269, 855]
+            )
+        );
+        // Java Â[0][1]
+        assert_eq!(
+            ends(&polynomials[2]),
+            (
+                [
+                    797, 993, 161, 6, 2608, 2385, 2096, 2661, 1676, 247, 2440, 342, 634, 194, 1570,
+                    2848
+                ],
+                [154, 23, 2842, 1105, 1419, 79, 5, 2013]
+            )
+        );
+        assert_eq!(
+            ends(&polynomials[3]),
+            (
+                [
+                    2527, 690, 1729, 2539, 1892, 465, 1928, 1329, 413, 3299, 2062, 3046, 2100, 127,
+                    3313, 1591
+                ],
+                [1484, 2638, 2107, 535, 762, 131, 2050, 2073]
+            )
+        );
+    }
+
+    /// The expected statistics are those of the Java lints for the same seed.
+    #[test]
+    fn matrix_statistics_match_the_java_lints() {
+        let seed = counting_seed();
+        // (rank, max frequency, most frequent, longest run, small entries)
+        for (rank, max_entry_frequency, most_frequent_entry, longest_run, small_entries) in [
+            (2, 4, 2610, 1, 530),
+            (3, 6, 592, 1, 1179),
+            (4, 7, 3169, 2, 2058),
+        ] {
+            let entries = rank * rank * COEFFICIENTS_IN_RING_ELEMENT;
+            assert_eq!(
+                matrix_statistics(rank, &seed),
+                Some(EntryStatistics {
+                    entries,
+                    max_entry_frequency,
+                    most_frequent_entry,
+                    longest_run,
+                    small_entries,
+                    large_entries: entries - small_entries,
+                })
+            );
+        }
+    }
+
+    #[test]
+    fn matrix_does_not_depend_on_the_implementation() {
+        let seed = [7u8; SEED_SIZE];
+        assert_eq!(
+            expand_matrix_multiplexed::<3>(&seed).polynomials(),
+            expand_matrix_portable::<3>(&seed).polynomials()
+        );
+    }
+}